@@ -17,7 +17,12 @@ package org.simplify4u.plugins;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Supplier;
 import javax.inject.Inject;
 
@@ -29,6 +34,10 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.aether.SessionData;
+import org.simplify4u.plugins.keyserver.KeyCacheSettings;
+import org.simplify4u.plugins.keyserver.KeyFetchBudget;
+import org.simplify4u.plugins.keyserver.KeyServerClientSettings;
 import org.simplify4u.plugins.keyserver.PGPKeysCache;
 import org.simplify4u.plugins.utils.PGPSignatureUtils;
 import org.slf4j.Logger;
@@ -59,12 +68,81 @@ public abstract class AbstractPGPMojo extends AbstractMojo {
             defaultValue = "${settings.localRepository}/pgpkeys-cache")
     private File pgpKeysCachePath;
 
+    /**
+     * Additional read only directories with cached PGP public keys, eg. pre-populated cache
+     * on shared volume or in CI image.
+     * <p>
+     * Directories are looked up in order after {@link #pgpKeysCachePath}, found keys are copied
+     * to {@link #pgpKeysCachePath}. New keys are stored only in {@link #pgpKeysCachePath}.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keycacheReadOnly")
+    private List<File> pgpKeysCacheReadOnlyPaths;
+
+    /**
+     * Address of remote keys cache shared by many builds, eg. by all CI agents.
+     * <p>
+     * Remote cache is plain HTTP store with the same layout as {@link #pgpKeysCachePath},
+     * keys are read by <code>GET</code> and stored by <code>PUT</code> requests.
+     * It is looked up after local caches and before key servers.
+     * Proxy selected by {@link #proxyName} is also used for remote cache. When remote cache can not be connected
+     * it is not used for the rest of the build.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keycacheRemote")
+    private String pgpKeysCacheRemoteUrl;
+
+    /**
+     * Store keys received from key servers in remote keys cache.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keycacheRemotePush", defaultValue = "true")
+    private boolean pgpKeysCacheRemotePush;
+
+    /**
+     * Keys not used longer than given number of days are removed from {@link #pgpKeysCachePath}
+     * by <code>cache-gc</code> goal or automatic cleaning. Zero means no limit.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keycacheMaxAge", defaultValue = "365")
+    private int pgpKeysCacheMaxAge;
+
+    /**
+     * The maximum size in megabytes of {@link #pgpKeysCachePath}, the least recently used keys above
+     * this size are removed by <code>cache-gc</code> goal or automatic cleaning. Zero means no limit.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keycacheMaxSize", defaultValue = "0")
+    private long pgpKeysCacheMaxSize;
+
+    /**
+     * Clean {@link #pgpKeysCachePath} automatically, not often than once a day.
+     * <p>
+     * Keys are removed according to {@link #pgpKeysCacheMaxAge} and {@link #pgpKeysCacheMaxSize},
+     * also broken keys are removed.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keycacheAutoClean", defaultValue = "false")
+    private boolean pgpKeysCacheAutoClean;
+
     /**
      * PGP public key servers address.
      *
      * <p>
      * From version <b>1.7.0</b> you can provide many kay servers separated by comma, semicolon or whitespace.
      *
+     * <p>
+     * From version <b>1.11.0</b> local keys can be used by <code>file:</code> address pointing to directory
+     * with the same layout as keys cache or to exported keyring file.
+     * Servers with <a href="https://keys.openpgp.org/about/api">VKS</a> interface, like keys.openpgp.org,
+     * can be used by <code>vks://</code> address.
+     *
      * @since 1.0.0
      */
     @Parameter(property = "pgpverify.keyserver", required = true,
@@ -107,6 +185,72 @@ public abstract class AbstractPGPMojo extends AbstractMojo {
     @Parameter(property = "pgpverify.quiet", defaultValue = "false")
     private boolean quiet;
 
+    /**
+     * The maximum number of retries of key server requests for whole build.
+     * <p>
+     * Retries of all keys requests in all modules are paid from this budget, after it is spent
+     * no more keys are fetched from key servers. Negative value means no limit.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keyFetchRetryBudget", defaultValue = "-1")
+    private int keyFetchRetryBudget;
+
+    /**
+     * The time in seconds for fetching keys from key servers for whole build.
+     * <p>
+     * Time is counted from first usage of key servers in build, after deadline no more keys are fetched
+     * from key servers. Zero means no limit.
+     * <p>
+     * When keys can not be fetched because of budget or deadline, build fails with list of missing keys.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keyFetchDeadline", defaultValue = "0")
+    private int keyFetchDeadline;
+
+    /**
+     * The maximum number of requests per second sent to one key server.
+     * <p>
+     * Limit is shared by all modules in build. Zero or negative value means no limit.
+     * Independent of this limit requests are paused when key server responds with <code>Retry-After</code> header.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keyserversRateLimit", defaultValue = "10")
+    private double keyServersRateLimit;
+
+    /**
+     * The maximum size in kilobytes of key received from key server.
+     * <p>
+     * Larger responses are rejected in order to protect against keys poisoned by huge number of signatures.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keyserversMaxKeySize", defaultValue = "2048")
+    private long keyServersMaxKeySize;
+
+    /**
+     * Connect to key servers in background during artifacts resolution.
+     * <p>
+     * Key servers addresses are resolved and connections are established before first key is requested,
+     * it is not done when proxy is used.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keyserversPrewarm", defaultValue = "false")
+    private boolean keyServersPrewarm;
+
+    /**
+     * Use only keys from cache and local key servers, missing keys are reported without network access.
+     * <p>
+     * Offline mode is also enabled when Maven is run in offline mode.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.offline", defaultValue = "false")
+    private boolean offline;
+
     @Inject
     AbstractPGPMojo(ArtifactResolver artifactResolver, PGPKeysCache pgpKeysCache,
             PGPSignatureUtils pgpSignatureUtils, MavenSession session) {
@@ -128,8 +272,96 @@ public abstract class AbstractPGPMojo extends AbstractMojo {
 
     protected abstract void executeConfiguredMojo() throws MojoExecutionException, MojoFailureException;
 
-    private void initPgpKeysCache() throws IOException {
-        pgpKeysCache.init(pgpKeysCachePath, pgpKeyServer, pgpKeyServerLoadBalance, proxyName);
+    /**
+     * Initialize keys cache with key servers, prewarm connections and clean cache if configured.
+     * <p>
+     * Mojo which only maintains cache can initialize only cache directory.
+     *
+     * @throws IOException in case of problem with cache initialization
+     */
+    protected void initPgpKeysCache() throws IOException {
+
+        KeyCacheSettings cacheSettings = KeyCacheSettings.builder()
+                .cachePath(pgpKeysCachePath)
+                .readOnlyCachePaths(Optional.ofNullable(pgpKeysCacheReadOnlyPaths).orElse(Collections.emptyList()))
+                .remoteCacheUrl(Optional.ofNullable(pgpKeysCacheRemoteUrl).map(URI::create).orElse(null))
+                .remoteCachePush(pgpKeysCacheRemotePush)
+                .keyServers(pgpKeyServer)
+                .loadBalance(pgpKeyServerLoadBalance)
+                .offline(isOffline())
+                .build();
+
+        KeyServerClientSettings clientSettings = KeyServerClientSettings.builder()
+                .proxyName(proxyName)
+                .rateLimit(keyServersRateLimit)
+                .maxKeySize(keyServersMaxKeySize * 1024)
+                .fetchBudget(getKeyFetchBudget())
+                .build();
+
+        pgpKeysCache.init(cacheSettings, clientSettings);
+
+        if (keyServersPrewarm) {
+            pgpKeysCache.prewarm();
+        }
+
+        if (pgpKeysCacheAutoClean) {
+            pgpKeysCache.autoCleanCache(getPgpKeysCacheMaxAge(), getPgpKeysCacheMaxSize())
+                    .ifPresent(result -> LOGGER.info("Keys cache cleaned: {}", result));
+        }
+    }
+
+    /**
+     * @return keys cache directory
+     */
+    protected File getPgpKeysCachePath() {
+        return pgpKeysCachePath;
+    }
+
+    protected boolean isOffline() {
+        return offline || (session != null && session.isOffline());
+    }
+
+    /**
+     * @return id of proxy from Maven settings, <code>null</code> means the first active proxy
+     */
+    protected String getProxyName() {
+        return proxyName;
+    }
+
+    /**
+     * @return maximum age of keys in cache, zero means no limit
+     */
+    protected Duration getPgpKeysCacheMaxAge() {
+        return Duration.ofDays(pgpKeysCacheMaxAge);
+    }
+
+    /**
+     * @return maximum size of keys cache in bytes, zero means no limit
+     */
+    protected long getPgpKeysCacheMaxSize() {
+        return pgpKeysCacheMaxSize * 1024 * 1024;
+    }
+
+    /**
+     * Budget for fetching keys is shared by all modules in build, so it is kept in session data.
+     */
+    private KeyFetchBudget getKeyFetchBudget() {
+
+        if (session == null || session.getRepositorySession() == null) {
+            return newKeyFetchBudget();
+        }
+
+        SessionData sessionData = session.getRepositorySession().getData();
+        Object budget = sessionData.get(KeyFetchBudget.class);
+        if (budget == null) {
+            sessionData.set(KeyFetchBudget.class, null, newKeyFetchBudget());
+            budget = sessionData.get(KeyFetchBudget.class);
+        }
+        return (KeyFetchBudget) budget;
+    }
+
+    private KeyFetchBudget newKeyFetchBudget() {
+        return new KeyFetchBudget(keyFetchRetryBudget, Duration.ofSeconds(keyFetchDeadline));
     }
 
     @Override
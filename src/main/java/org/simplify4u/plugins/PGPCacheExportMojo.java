@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import javax.inject.Inject;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.simplify4u.plugins.keyserver.PGPKeysCache;
+import org.simplify4u.plugins.utils.PGPSignatureUtils;
+
+/**
+ * Export keys cache to one archive.
+ * <p>
+ * Archive contains index and key rings stored once by content hash. The same keys give the same archive,
+ * so it can be stored as CI cache artifact keyed by its hash, which is also written
+ * next to archive in <code>.sha256</code> file.
+ *
+ * @author Slawomir Jaranowski
+ * @since 1.11.0
+ */
+@Slf4j
+@Mojo(name = PGPCacheExportMojo.MOJO_NAME, requiresDirectInvocation = true, requiresProject = false)
+public class PGPCacheExportMojo extends AbstractPGPMojo {
+
+    public static final String MOJO_NAME = "cache-export";
+
+    /**
+     * The archive file to create.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.cacheArchive", required = true)
+    @Setter
+    private File archiveFile;
+
+    @Inject
+    PGPCacheExportMojo(ArtifactResolver artifactResolver, PGPKeysCache pgpKeysCache,
+            PGPSignatureUtils pgpSignatureUtils, MavenSession session) {
+        super(artifactResolver, pgpKeysCache, pgpSignatureUtils, session);
+    }
+
+    @Override
+    protected String getMojoName() {
+        return MOJO_NAME;
+    }
+
+    @Override
+    protected void executeConfiguredMojo() {
+
+        if (archiveFile == null) {
+            throw new PGPMojoException("The parameter 'archiveFile' is miss");
+        }
+
+        try {
+            int exported = pgpKeysCache.exportCache(archiveFile);
+            LOGGER.info("Exported {} key(s) to: {}", exported, archiveFile);
+        } catch (IOException e) {
+            throw new PGPMojoException("Export keys cache to: %s failed - %s", archiveFile, e.getMessage(), e);
+        }
+    }
+}
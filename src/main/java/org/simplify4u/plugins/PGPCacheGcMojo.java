@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins;
+
+import java.io.IOException;
+import javax.inject.Inject;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.simplify4u.plugins.keyserver.KeyCacheCleanResult;
+import org.simplify4u.plugins.keyserver.PGPKeysCache;
+import org.simplify4u.plugins.utils.PGPSignatureUtils;
+
+/**
+ * Clean keys cache.
+ * <p>
+ * Keys not used longer than <code>pgpverify.keycacheMaxAge</code> days, the least recently used keys
+ * above <code>pgpverify.keycacheMaxSize</code> megabytes and broken keys are removed.
+ * Keys are stored by hash path of key id, so directory layout is compacted by removing directories
+ * which are empty after removing keys.
+ * <p>
+ * Only keys cache directory is used, key servers and additional caches are not accessed.
+ *
+ * @author Slawomir Jaranowski
+ * @since 1.11.0
+ */
+@Slf4j
+@Mojo(name = PGPCacheGcMojo.MOJO_NAME, requiresDirectInvocation = true, requiresProject = false)
+public class PGPCacheGcMojo extends AbstractPGPMojo {
+
+    public static final String MOJO_NAME = "cache-gc";
+
+    @Inject
+    PGPCacheGcMojo(ArtifactResolver artifactResolver, PGPKeysCache pgpKeysCache,
+            PGPSignatureUtils pgpSignatureUtils, MavenSession session) {
+        super(artifactResolver, pgpKeysCache, pgpSignatureUtils, session);
+    }
+
+    @Override
+    protected String getMojoName() {
+        return MOJO_NAME;
+    }
+
+    @Override
+    protected void initPgpKeysCache() throws IOException {
+        pgpKeysCache.init(getPgpKeysCachePath());
+    }
+
+    @Override
+    protected void executeConfiguredMojo() {
+
+        try {
+            KeyCacheCleanResult result = pgpKeysCache.cleanCache(getPgpKeysCacheMaxAge(), getPgpKeysCacheMaxSize());
+            LOGGER.info("Keys cache cleaned: {}", result);
+        } catch (IOException e) {
+            throw new PGPMojoException("Clean keys cache failed - %s", e.getMessage(), e);
+        }
+    }
+}
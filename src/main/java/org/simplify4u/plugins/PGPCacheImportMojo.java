@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import javax.inject.Inject;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.simplify4u.plugins.keyserver.PGPKeysCache;
+import org.simplify4u.plugins.utils.PGPSignatureUtils;
+
+/**
+ * Import keys cache from archive created by <code>cache-export</code> goal.
+ * <p>
+ * When <code>.sha256</code> file exists next to archive, archive hash is verified before import.
+ * Keys which already exist in cache are not replaced.
+ *
+ * @author Slawomir Jaranowski
+ * @since 1.11.0
+ */
+@Slf4j
+@Mojo(name = PGPCacheImportMojo.MOJO_NAME, requiresDirectInvocation = true, requiresProject = false)
+public class PGPCacheImportMojo extends AbstractPGPMojo {
+
+    public static final String MOJO_NAME = "cache-import";
+
+    /**
+     * The archive file to import.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.cacheArchive", required = true)
+    @Setter
+    private File archiveFile;
+
+    @Inject
+    PGPCacheImportMojo(ArtifactResolver artifactResolver, PGPKeysCache pgpKeysCache,
+            PGPSignatureUtils pgpSignatureUtils, MavenSession session) {
+        super(artifactResolver, pgpKeysCache, pgpSignatureUtils, session);
+    }
+
+    @Override
+    protected String getMojoName() {
+        return MOJO_NAME;
+    }
+
+    @Override
+    protected void executeConfiguredMojo() {
+
+        if (archiveFile == null || !archiveFile.isFile()) {
+            throw new PGPMojoException("The parameter 'archiveFile' is miss or file not exist: " + archiveFile);
+        }
+
+        try {
+            int imported = pgpKeysCache.importCache(archiveFile);
+            LOGGER.info("Imported {} key(s) from: {}", imported, archiveFile);
+        } catch (IOException e) {
+            throw new PGPMojoException("Import keys cache from: %s failed - %s", archiveFile, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.inject.Inject;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.simplify4u.plugins.keyserver.PGPKeysCache;
+import org.simplify4u.plugins.utils.PGPSignatureUtils;
+
+/**
+ * Import public keys from keyring file to keys cache.
+ * <p>
+ * Keyring can be prepared for example by <code>gpg --export --armor</code> for all keys referenced by keysmap,
+ * so cache can be filled without requests to key servers.
+ *
+ * @author Slawomir Jaranowski
+ * @since 1.11.0
+ */
+@Slf4j
+@Mojo(name = PGPImportKeysMojo.MOJO_NAME, requiresDirectInvocation = true, requiresProject = false)
+public class PGPImportKeysMojo extends AbstractPGPMojo {
+
+    public static final String MOJO_NAME = "import-keys";
+
+    /**
+     * The file with public keys to import, binary or armored.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "keysFile", required = true)
+    @Setter
+    private File keysFile;
+
+    @Inject
+    PGPImportKeysMojo(ArtifactResolver artifactResolver, PGPKeysCache pgpKeysCache,
+            PGPSignatureUtils pgpSignatureUtils, MavenSession session) {
+        super(artifactResolver, pgpKeysCache, pgpSignatureUtils, session);
+    }
+
+    @Override
+    protected String getMojoName() {
+        return MOJO_NAME;
+    }
+
+    @Override
+    protected void executeConfiguredMojo() {
+
+        if (keysFile == null || !keysFile.isFile()) {
+            throw new PGPMojoException("The parameter 'keysFile' is miss or file not exist: " + keysFile);
+        }
+
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(keysFile))) {
+            int imported = pgpKeysCache.importKeyRings(inputStream);
+            LOGGER.info("Imported {} key ring(s) from: {}", imported, keysFile);
+        } catch (IOException e) {
+            throw new PGPMojoException("Import keys from: %s failed - %s", keysFile, e.getMessage(), e);
+        }
+    }
+}
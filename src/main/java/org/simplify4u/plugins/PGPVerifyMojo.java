@@ -22,10 +22,18 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 
 import io.vavr.control.Try;
@@ -45,9 +53,13 @@ import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.operator.bc.BcPGPContentVerifierBuilderProvider;
 import org.simplify4u.plugins.ArtifactResolver.Configuration;
 import org.simplify4u.plugins.ArtifactResolver.SignatureRequirement;
+import org.simplify4u.plugins.keyserver.KeyFetchStatistics;
 import org.simplify4u.plugins.keyserver.PGPKeyNotFound;
+import org.simplify4u.plugins.keyserver.PGPKeyUnavailable;
 import org.simplify4u.plugins.keyserver.PGPKeysCache;
 import org.simplify4u.plugins.keysmap.KeysMap;
+import org.simplify4u.plugins.keysmap.KeysMapMatch;
+import org.simplify4u.plugins.keysmap.KeysMapSettings;
 import org.simplify4u.plugins.skipfilters.CompositeSkipper;
 import org.simplify4u.plugins.skipfilters.ProvidedDependencySkipper;
 import org.simplify4u.plugins.skipfilters.ReactorDependencySkipper;
@@ -55,6 +67,7 @@ import org.simplify4u.plugins.skipfilters.ScopeSkipper;
 import org.simplify4u.plugins.skipfilters.SkipFilter;
 import org.simplify4u.plugins.skipfilters.SnapshotDependencySkipper;
 import org.simplify4u.plugins.skipfilters.SystemDependencySkipper;
+import org.simplify4u.plugins.utils.MavenProxy;
 import org.simplify4u.plugins.utils.PGPKeyId;
 import org.simplify4u.plugins.utils.PGPSignatureException;
 import org.simplify4u.plugins.utils.PGPSignatureUtils;
@@ -79,6 +92,8 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
 
     protected final KeysMap keysMap;
 
+    private final MavenProxy mavenProxy;
+
     /**
      * Scope used to build dependency list.
      * <p>
@@ -240,11 +255,45 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
     @Parameter(property = "pgpverify.keysMapLocation", defaultValue = "")
     private String keysMapLocation;
 
+    /**
+     * Additional locations of keys maps, eg. company-wide base map and team overlays.
+     * <p>
+     * Keys maps are loaded in parallel and merged in one keys map. Entries from {@link #keysMapLocation}
+     * are first, next entries from this list in given order.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keysMapLocations")
+    private List<String> keysMapLocations;
+
+    /**
+     * The directory for storing keys map fetched from http(s) location and parsed keys maps.
+     * <p>
+     * Keys map is fetched again only when it was changed on server, and cached copy is used when server
+     * is not available or in offline mode. Parsed keys map is stored by hash of its content,
+     * so the same keys map is not parsed again by next builds.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.keysMapCache", defaultValue = "${settings.localRepository}/pgpkeys-map-cache")
+    private File keysMapCachePath;
+
+    /**
+     * Receive all keys used by signatures in one batch before verification.
+     * <p>
+     * When disabled, keys are received one by one during verification.
+     *
+     * @since 1.11.0
+     */
+    @Parameter(property = "pgpverify.prefetchKeys", defaultValue = "true")
+    private boolean prefetchKeys;
+
     @Inject
     PGPVerifyMojo(ArtifactResolver artifactResolver, PGPKeysCache pgpKeysCache, PGPSignatureUtils pgpSignatureUtils,
-            MavenSession session, KeysMap keysMap) {
+            MavenSession session, KeysMap keysMap, MavenProxy mavenProxy) {
         super(artifactResolver, pgpKeysCache, pgpSignatureUtils, session);
         this.keysMap = keysMap;
+        this.mavenProxy = mavenProxy;
     }
 
     @Override
@@ -297,6 +346,11 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
         } finally {
             LOGGER.info("Finished {} artifact(s) validation in {}", artifactMap.size(),
                     Duration.ofNanos(System.nanoTime() - artifactValidationStart));
+
+            KeyFetchStatistics fetchStatistics = pgpKeysCache.getFetchStatistics();
+            if (fetchStatistics.getKeys() > 0) {
+                LOGGER.info("Received from key servers: {}", fetchStatistics);
+            }
         }
 
         validationChecksum.saveChecksum();
@@ -313,7 +367,17 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
 
     private void initKeysMap() throws MojoExecutionException {
 
-        Try.run(() -> keysMap.load(keysMapLocation))
+        KeysMapSettings keysMapSettings = KeysMapSettings.builder()
+                .cachePath(keysMapCachePath)
+                .offline(isOffline())
+                .proxy(mavenProxy.getProxyByName(getProxyName()))
+                .build();
+
+        List<String> locations = new ArrayList<>();
+        locations.add(keysMapLocation);
+        Optional.ofNullable(keysMapLocations).ifPresent(locations::addAll);
+
+        Try.run(() -> keysMap.load(locations, keysMapSettings))
                 .getOrElseThrow(e -> new MojoExecutionException(e.getMessage(), e));
     }
 
@@ -358,26 +422,71 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
         return new CompositeSkipper(filters);
     }
 
+    /**
+     * Receive in one batch all keys used by signatures, so keys are not requested one by one
+     * during verification.
+     *
+     * @return loaded signatures by signature artifact, they are used again for verification
+     */
+    private Map<Artifact, PGPSignature> prefetchKeys(Collection<Artifact> ascArtifacts) {
+
+        Map<Artifact, PGPSignature> signatures = new HashMap<>();
+        for (Artifact ascArtifact : ascArtifacts) {
+            if (ascArtifact != null && ascArtifact.isResolved()) {
+                Try.of(() -> pgpSignatureUtils.loadSignature(ascArtifact.getFile()))
+                        .forEach(signature -> signatures.put(ascArtifact, signature));
+            }
+        }
+
+        List<PGPKeyId> keyIds = signatures.values().stream()
+                .map(signature -> Try.of(() -> pgpSignatureUtils.retrieveKeyId(signature)).getOrNull())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        if (!keyIds.isEmpty()) {
+            pgpKeysCache.prefetchKeyRings(keyIds);
+        }
+        return signatures;
+    }
+
     private void verifyArtifactSignatures(Map<Artifact, Artifact> artifactToAsc)
             throws MojoFailureException, MojoExecutionException {
         boolean isAllSigOk = true;
 
+        final Map<String, List<String>> unavailableKeys = new TreeMap<>();
+
+        final Map<Artifact, PGPSignature> signatures = prefetchKeys
+                ? prefetchKeys(artifactToAsc.values()) : Collections.emptyMap();
+
         for (Map.Entry<Artifact, Artifact> artifactEntry : artifactToAsc.entrySet()) {
             final Artifact artifact = artifactEntry.getKey();
             final Artifact ascArtifact = artifactEntry.getValue();
-            final boolean isLastOk = verifyPGPSignature(artifact, ascArtifact);
+            final boolean isLastOk = verifyPGPSignature(artifact, ascArtifact,
+                    ascArtifact != null ? signatures.get(ascArtifact) : null, unavailableKeys);
 
             isAllSigOk = isAllSigOk && isLastOk;
         }
 
+        if (!unavailableKeys.isEmpty()) {
+            String missingKeys = unavailableKeys.entrySet().stream()
+                    .map(entry -> String.format("\t%s for: %s", entry.getKey(), String.join(", ", entry.getValue())))
+                    .collect(Collectors.joining("\n"));
+            LOGGER.error("PGP keys not available in cache and not fetched from key servers:\n{}", missingKeys);
+            throw new MojoFailureException("Missing " + unavailableKeys.size() + " PGP key(s):\n" + missingKeys);
+        }
+
         if (!isAllSigOk) {
             throw new MojoExecutionException("PGP signature error");
         }
     }
 
-    private boolean verifyPGPSignature(Artifact artifact, Artifact ascArtifact) throws MojoFailureException {
+    private boolean verifyPGPSignature(Artifact artifact, Artifact ascArtifact, PGPSignature loadedSignature,
+            Map<String, List<String>> unavailableKeys) throws MojoFailureException {
+
+        KeysMapMatch keysMapMatch = keysMap.resolve(artifact);
+
         if (ascArtifact == null) {
-            return verifySignatureUnavailable(artifact);
+            return verifySignatureUnavailable(artifact, keysMapMatch);
         }
         final File artifactFile = artifact.getFile();
         final File signatureFile = ascArtifact.getFile();
@@ -388,8 +497,12 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
         PGPKeyId sigKeyID = null;
         try {
             final PGPSignature pgpSignature;
-            try (FileInputStream input = new FileInputStream(signatureFile)) {
-                pgpSignature = pgpSignatureUtils.loadSignature(input);
+            if (loadedSignature != null) {
+                pgpSignature = loadedSignature;
+            } else {
+                try (FileInputStream input = new FileInputStream(signatureFile)) {
+                    pgpSignature = pgpSignatureUtils.loadSignature(input);
+                }
             }
 
             verifyWeakSignature(pgpSignature);
@@ -398,12 +511,14 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
             PGPPublicKeyRing publicKeyRing = pgpKeysCache.getKeyRing(sigKeyID);
             PGPPublicKey publicKey = sigKeyID.getKeyFromRing(publicKeyRing);
 
-            if (!keysMap.isValidKey(artifact, publicKey, publicKeyRing)) {
+            if (!keysMapMatch.isValidKey(publicKey, publicKeyRing)) {
                 String msg = String.format("%s = %s", ArtifactUtils.key(artifact),
                         PublicKeyUtils.fingerprintForMaster(publicKey, publicKeyRing));
                 String keyUrl = pgpKeysCache.getUrlForShowKey(sigKeyID);
-                LOGGER.error("Not allowed artifact {} and keyID:\n\t{}\n\t{}",
-                        artifact.getId(), msg, keyUrl);
+                String keysMapSources = keysMapMatch.getSources().isEmpty() ? ""
+                        : "\n\tkeys map: " + String.join(", ", keysMapMatch.getSources());
+                LOGGER.error("Not allowed artifact {} and keyID:\n\t{}\n\t{}{}",
+                        artifact.getId(), msg, keyUrl, keysMapSources);
                 return false;
             }
 
@@ -413,9 +528,13 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
             LOGGER.debug("signature.KeyAlgorithm: {} signature.hashAlgorithm: {}",
                     pgpSignature.getKeyAlgorithm(), pgpSignature.getHashAlgorithm());
 
-            return verifySignatureStatus(pgpSignature.verify(), artifact, publicKey, publicKeyRing);
+            return verifySignatureStatus(pgpSignature.verify(), artifact, keysMapMatch, publicKey, publicKeyRing);
+        } catch (PGPKeyUnavailable e) {
+            LOGGER.debug("{} for artifact {}", e.getMessage(), artifact.getId());
+            unavailableKeys.computeIfAbsent(String.valueOf(sigKeyID), k -> new ArrayList<>()).add(artifact.getId());
+            return false;
         } catch (PGPKeyNotFound e) {
-            if (keysMap.isKeyMissing(artifact)) {
+            if (keysMapMatch.isKeyMissing()) {
                 logWithQuiet("{} PGP key not found on keyserver, consistent with keys map.",
                         artifact::getId);
                 return true;
@@ -425,7 +544,7 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
                     pgpKeysCache.getUrlForShowKey(sigKeyID), artifact.getId());
             return false;
         } catch (PGPSignatureException e) {
-            if (keysMap.isBrokenSignature(artifact)) {
+            if (keysMapMatch.isBrokenSignature()) {
                 logWithQuiet("{} PGP Signature is broken, consistent with keys map.", artifact::getId);
                 return true;
             }
@@ -458,20 +577,21 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
      * Verify if unsigned artifact is correctly listed in keys map.
      *
      * @param artifact the artifact which is supposedly unsigned
+     * @param keysMapMatch keys map entries for artifact
      *
      * @return Returns <code>true</code> if correctly missing according to keys map, or <code>false</code> if
      * verification fails.
      */
-    private boolean verifySignatureUnavailable(Artifact artifact) {
+    private boolean verifySignatureUnavailable(Artifact artifact, KeysMapMatch keysMapMatch) {
         if (keysMap.isEmpty()) {
             LOGGER.warn("No signature for {}", artifact.getId());
             return true;
         }
-        if (keysMap.isNoSignature(artifact)) {
+        if (keysMapMatch.isNoSignature()) {
             logWithQuiet("{} PGP Signature unavailable, consistent with keys map.", artifact::getId);
             return true;
         }
-        if (keysMap.isWithKey(artifact)) {
+        if (keysMapMatch.isWithKey()) {
             LOGGER.error("Unsigned artifact is listed with key in keys map: {}", artifact.getId());
         } else {
             LOGGER.error("Unsigned artifact not listed in keys map: {}", artifact.getId());
@@ -479,7 +599,7 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
         return false;
     }
 
-    private boolean verifySignatureStatus(boolean signatureStatus, Artifact artifact,
+    private boolean verifySignatureStatus(boolean signatureStatus, Artifact artifact, KeysMapMatch keysMapMatch,
             PGPPublicKey publicKey, PGPPublicKeyRing publicKeyRing) {
 
         if (signatureStatus) {
@@ -487,7 +607,7 @@ public class PGPVerifyMojo extends AbstractPGPMojo {
                     () -> PublicKeyUtils.keyIdDescription(publicKey, publicKeyRing),
                     () -> PublicKeyUtils.getUserIDs(publicKey, publicKeyRing));
             return true;
-        } else if (keysMap.isBrokenSignature(artifact)) {
+        } else if (keysMapMatch.isBrokenSignature()) {
             logWithQuiet("{} PGP Signature is broken, consistent with keys map.", artifact::getId);
             return true;
         }
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.vavr.control.Try;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Connection socket factory which races connections to many resolved addresses of key server.
+ * <p>
+ * Connection to address chosen by route planer is started first, next addresses, alternately IPv6 and IPv4,
+ * are started after short delay or immediately after previous attempt failed. The first established connection
+ * is used, others are closed - similar to <a href="https://tools.ietf.org/html/rfc8305">Happy Eyeballs</a>.
+ *
+ * @author Slawomir Jaranowski.
+ */
+class HappyEyeballsSocketFactory implements LayeredConnectionSocketFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HappyEyeballsSocketFactory.class);
+
+    static final Duration DEFAULT_ATTEMPT_DELAY = Duration.ofMillis(250);
+    static final int MAX_ATTEMPTS = 4;
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("pgpverify-connect-%d").build());
+
+    private final ConnectionSocketFactory delegate;
+    private final KeyServerAddresses keyServerAddresses;
+    private final long attemptDelay;
+
+    HappyEyeballsSocketFactory(ConnectionSocketFactory delegate) {
+        this(delegate, KeyServerAddresses.getInstance(), DEFAULT_ATTEMPT_DELAY);
+    }
+
+    HappyEyeballsSocketFactory(ConnectionSocketFactory delegate, KeyServerAddresses keyServerAddresses,
+            Duration attemptDelay) {
+        this.delegate = delegate;
+        this.keyServerAddresses = keyServerAddresses;
+        this.attemptDelay = attemptDelay.toNanos();
+    }
+
+    @Override
+    public Socket createSocket(HttpContext context) throws IOException {
+        return delegate.createSocket(context);
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+            InetSocketAddress localAddress, HttpContext context) throws IOException {
+
+        List<InetSocketAddress> candidates = prepareCandidates(host, remoteAddress);
+        if (candidates.size() < 2) {
+            return delegate.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        }
+
+        Socket connected = race(connectTimeout, socket, candidates, localAddress, context);
+
+        if (delegate instanceof LayeredConnectionSocketFactory) {
+            try {
+                return ((LayeredConnectionSocketFactory) delegate)
+                        .createLayeredSocket(connected, host.getHostName(), remoteAddress.getPort(), context);
+            } catch (IOException e) {
+                closeQuietly(connected);
+                throw e;
+            }
+        }
+        return connected;
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+            throws IOException {
+
+        if (delegate instanceof LayeredConnectionSocketFactory) {
+            return ((LayeredConnectionSocketFactory) delegate).createLayeredSocket(socket, target, port, context);
+        }
+        return socket;
+    }
+
+    /**
+     * Prepare list of address to connect, address from route is first, next alternately from other
+     * and the same address family.
+     */
+    private List<InetSocketAddress> prepareCandidates(HttpHost host, InetSocketAddress remoteAddress) {
+
+        InetAddress routeAddress = remoteAddress.getAddress();
+        if (routeAddress == null) {
+            return Collections.singletonList(remoteAddress);
+        }
+
+        List<InetAddress> addresses = Try.of(() -> keyServerAddresses.getOrderedAddresses(host.getHostName()))
+                .getOrElseGet(e -> Collections.emptyList());
+
+        List<InetAddress> sameFamily = new ArrayList<>();
+        List<InetAddress> otherFamily = new ArrayList<>();
+        for (InetAddress address : addresses) {
+            if (!address.equals(routeAddress)) {
+                if (address.getClass().equals(routeAddress.getClass())) {
+                    sameFamily.add(address);
+                } else {
+                    otherFamily.add(address);
+                }
+            }
+        }
+
+        List<InetSocketAddress> ret = new ArrayList<>();
+        ret.add(remoteAddress);
+
+        int i = 0;
+        while (ret.size() < MAX_ATTEMPTS && (i < sameFamily.size() || i < otherFamily.size())) {
+            if (i < otherFamily.size()) {
+                ret.add(new InetSocketAddress(otherFamily.get(i), remoteAddress.getPort()));
+            }
+            if (i < sameFamily.size() && ret.size() < MAX_ATTEMPTS) {
+                ret.add(new InetSocketAddress(sameFamily.get(i), remoteAddress.getPort()));
+            }
+            i++;
+        }
+        return ret;
+    }
+
+    private Socket race(int connectTimeout, Socket firstSocket, List<InetSocketAddress> candidates,
+            InetSocketAddress localAddress, HttpContext context) throws IOException {
+
+        long deadline = connectTimeout > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeout) : Long.MAX_VALUE;
+
+        CompletionService<ConnectAttempt> completionService = new ExecutorCompletionService<>(EXECUTOR);
+        List<ConnectAttempt> attempts = new ArrayList<>();
+        ConnectAttempt winner = null;
+        IOException lastException = null;
+        int failed = 0;
+
+        try {
+            startAttempt(completionService, attempts,
+                    new ConnectAttempt(candidates.get(0), firstSocket, localAddress, deadline));
+
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new ConnectTimeoutException("Connect to " + candidates + " timed out");
+                }
+
+                boolean canStartNext = attempts.size() < candidates.size();
+                Future<ConnectAttempt> done = completionService.poll(
+                        canStartNext ? Math.min(attemptDelay, remaining) : remaining, TimeUnit.NANOSECONDS);
+
+                if (done == null) {
+                    if (canStartNext) {
+                        startAttempt(completionService, attempts,
+                                newAttempt(candidates.get(attempts.size()), firstSocket, localAddress, deadline,
+                                        context));
+                    }
+                    continue;
+                }
+
+                ConnectAttempt attempt = done.get();
+                if (attempt.exception == null) {
+                    winner = attempt;
+                    LOGGER.debug("Connected to {} from {} attempt(s)", attempt.address, attempts.size());
+                    return attempt.socket;
+                }
+
+                LOGGER.debug("Connect to {} failed: {}", attempt.address, attempt.exception.getMessage());
+                keyServerAddresses.markFailure(attempt.address.getAddress());
+                lastException = attempt.exception;
+                failed++;
+
+                if (failed == candidates.size()) {
+                    throw lastException;
+                }
+
+                if (attempts.size() < candidates.size()) {
+                    // previous attempt failed - start next immediately
+                    startAttempt(completionService, attempts,
+                            newAttempt(candidates.get(attempts.size()), firstSocket, localAddress, deadline,
+                                    context));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Connect to " + candidates + " interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            for (ConnectAttempt attempt : attempts) {
+                if (attempt != winner) {
+                    closeQuietly(attempt.socket);
+                }
+            }
+        }
+    }
+
+    private ConnectAttempt newAttempt(InetSocketAddress address, Socket firstSocket, InetSocketAddress localAddress,
+            long deadline, HttpContext context) throws IOException {
+
+        Socket socket = delegate.createSocket(context);
+        socket.setSoTimeout(firstSocket.getSoTimeout());
+        socket.setTcpNoDelay(firstSocket.getTcpNoDelay());
+        socket.setKeepAlive(firstSocket.getKeepAlive());
+        return new ConnectAttempt(address, socket, localAddress, deadline);
+    }
+
+    private static void startAttempt(CompletionService<ConnectAttempt> completionService,
+            List<ConnectAttempt> attempts, ConnectAttempt attempt) {
+        attempts.add(attempt);
+        completionService.submit(attempt::connect);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        Try.run(socket::close);
+    }
+
+    /**
+     * One connection attempt to given address.
+     */
+    private static class ConnectAttempt {
+
+        private final InetSocketAddress address;
+        private final Socket socket;
+        private final InetSocketAddress localAddress;
+        private final long deadline;
+
+        private IOException exception;
+
+        ConnectAttempt(InetSocketAddress address, Socket socket, InetSocketAddress localAddress, long deadline) {
+            this.address = address;
+            this.socket = socket;
+            this.localAddress = localAddress;
+            this.deadline = deadline;
+        }
+
+        ConnectAttempt connect() {
+            try {
+                if (localAddress != null) {
+                    socket.bind(localAddress);
+                }
+                int timeout = deadline == Long.MAX_VALUE ? 0
+                        : (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                socket.connect(address, timeout);
+            } catch (IOException e) {
+                exception = e;
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPUtil;
+import org.bouncycastle.openpgp.operator.bc.BcKeyFingerprintCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Archive with content of keys cache, used for warm-start of cache eg. on CI agents.
+ * <p>
+ * Archive is a zip file with:
+ * <ul>
+ *     <li><code>index</code> - lines with sha256 of key ring and path in cache, sorted by path</li>
+ *     <li><code>rings/&lt;sha256&gt;.pgp</code> - binary key rings, the same ring is stored once</li>
+ * </ul>
+ * Archive content depends only on keys in cache, so it can be used as CI cache artifact keyed by its hash,
+ * which is also stored next to archive in <code>.sha256</code> file.
+ */
+final class KeyCacheArchive {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyCacheArchive.class);
+
+    static final String INDEX_ENTRY = "index";
+    static final String RINGS_PREFIX = "rings/";
+    static final String RING_SUFFIX = ".pgp";
+    static final String HASH_SUFFIX = ".sha256";
+
+    static final Pattern KEY_PATH = Pattern.compile("^[0-9A-F]{2}/[0-9A-F]{2}/[0-9A-F]{16,40}\\.asc$");
+
+    // the same time for all entries - dos time is stored in local time zone
+    private static final long ENTRY_TIME = LocalDateTime.of(1980, 2, 1, 0, 0)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    private KeyCacheArchive() {
+        // No need to instantiate utility class.
+    }
+
+    /**
+     * Write all keys from cache to archive.
+     *
+     * @param cachePath keys cache directory
+     * @param archive   archive file
+     *
+     * @return number of exported keys
+     *
+     * @throws IOException in case of problem with reading cache or writing archive
+     */
+    static int exportCache(File cachePath, File archive) throws IOException {
+
+        Path cacheRoot = cachePath.toPath();
+
+        // path in cache -> ring hash, ring hash -> ring
+        Map<String, String> index = new TreeMap<>();
+        Map<String, byte[]> rings = new TreeMap<>();
+
+        try (Stream<Path> paths = Files.walk(cacheRoot)) {
+            for (Path keyFile : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String keyPath = cacheRoot.relativize(keyFile).toString().replace(File.separatorChar, '/');
+                if (KEY_PATH.matcher(keyPath).matches()) {
+                    loadKeyRings(keyFile).ifPresent(keyRings -> {
+                        String hash = Hashing.sha256().hashBytes(keyRings).toString();
+                        index.put(keyPath, hash);
+                        rings.put(hash, keyRings);
+                    });
+                }
+            }
+        }
+
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(archive.toPath()));
+             ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+
+            StringBuilder indexContent = new StringBuilder();
+            index.forEach((keyPath, hash) -> indexContent.append(hash).append(' ').append(keyPath).append('\n'));
+            writeEntry(zipOutputStream, INDEX_ENTRY, indexContent.toString().getBytes(StandardCharsets.US_ASCII));
+
+            for (Map.Entry<String, byte[]> ring : rings.entrySet()) {
+                writeEntry(zipOutputStream, RINGS_PREFIX + ring.getKey() + RING_SUFFIX, ring.getValue());
+            }
+        }
+
+        String archiveHash = com.google.common.io.Files.asByteSource(archive).hash(Hashing.sha256()).toString();
+        Files.write(hashFile(archive).toPath(),
+                (archiveHash + "  " + archive.getName() + "\n").getBytes(StandardCharsets.US_ASCII));
+
+        return index.size();
+    }
+
+    /**
+     * Restore keys from archive to cache, keys existing in cache are not replaced.
+     *
+     * @param archive   archive file
+     * @param cachePath keys cache directory
+     *
+     * @return number of restored keys
+     *
+     * @throws IOException in case of problem with reading archive or writing cache
+     */
+    static int importCache(File archive, File cachePath) throws IOException {
+
+        verifyArchiveHash(archive);
+
+        Map<String, String> index = new TreeMap<>();
+        Map<String, byte[]> rings = new HashMap<>();
+
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(archive.toPath()));
+             ZipInputStream zipInputStream = new ZipInputStream(inputStream)) {
+
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                byte[] content = ByteStreams.toByteArray(zipInputStream);
+
+                if (INDEX_ENTRY.equals(entry.getName())) {
+                    readIndex(content, index);
+                } else if (entry.getName().startsWith(RINGS_PREFIX) && entry.getName().endsWith(RING_SUFFIX)) {
+                    String hash = entry.getName().substring(RINGS_PREFIX.length(),
+                            entry.getName().length() - RING_SUFFIX.length());
+
+                    if (!hash.equals(Hashing.sha256().hashBytes(content).toString())) {
+                        throw new IOException("Invalid content of: " + entry.getName() + " in: " + archive);
+                    }
+                    rings.put(hash, content);
+                }
+            }
+        }
+
+        int imported = 0;
+        for (Map.Entry<String, String> indexEntry : index.entrySet()) {
+
+            File keyFile = new File(cachePath, indexEntry.getKey());
+            byte[] keyRings = rings.get(indexEntry.getValue());
+
+            if (keyRings == null) {
+                throw new IOException("Missing key ring for: " + indexEntry.getKey() + " in: " + archive);
+            }
+
+            if (!keyFile.exists()) {
+                PGPKeysCache.storeKeyRing(keyFile, armor(keyRings));
+                imported++;
+            }
+        }
+
+        return imported;
+    }
+
+    static File hashFile(File archive) {
+        return new File(archive.getPath() + HASH_SUFFIX);
+    }
+
+    private static void verifyArchiveHash(File archive) throws IOException {
+
+        File hashFile = hashFile(archive);
+        if (!hashFile.isFile()) {
+            return;
+        }
+
+        String expectedHash = new String(Files.readAllBytes(hashFile.toPath()), StandardCharsets.US_ASCII)
+                .trim().split("\\s+")[0];
+        String archiveHash = com.google.common.io.Files.asByteSource(archive).hash(Hashing.sha256()).toString();
+
+        if (!expectedHash.equalsIgnoreCase(archiveHash)) {
+            throw new IOException("Archive: " + archive + " hash: " + archiveHash
+                    + " not match expected: " + expectedHash);
+        }
+    }
+
+    private static void readIndex(byte[] content, Map<String, String> index) throws IOException {
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.US_ASCII))) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] items = line.trim().split(" ", 2);
+                if (items.length != 2 || !KEY_PATH.matcher(items[1]).matches()) {
+                    throw new IOException("Invalid index entry: " + line);
+                }
+                index.put(items[1], items[0]);
+            }
+        }
+    }
+
+    /**
+     * Load and normalize key rings from cache file.
+     */
+    static Optional<byte[]> loadKeyRings(Path keyFile) {
+
+        try (InputStream inputStream = PGPUtil.getDecoderStream(
+                new BufferedInputStream(Files.newInputStream(keyFile)))) {
+
+            PGPPublicKeyRingCollection keyRings =
+                    new PGPPublicKeyRingCollection(inputStream, new BcKeyFingerprintCalculator());
+
+            if (keyRings.size() == 0) {
+                LOGGER.warn("No keys in: {}", keyFile);
+                return Optional.empty();
+            }
+            return Optional.of(keyRings.getEncoded());
+        } catch (IOException | PGPException e) {
+            LOGGER.warn("Can't load keys from: {} - {}", keyFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] armor(byte[] keyRings) throws IOException {
+
+        ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new ArmoredOutputStream(keyBytes)) {
+            outputStream.write(keyRings);
+        }
+        return keyBytes.toByteArray();
+    }
+
+    private static void writeEntry(ZipOutputStream zipOutputStream, String name, byte[] content) throws IOException {
+
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        zipOutputStream.putNextEntry(entry);
+        zipOutputStream.write(content);
+        zipOutputStream.closeEntry();
+    }
+}
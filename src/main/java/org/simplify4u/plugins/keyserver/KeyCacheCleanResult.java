@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Result of keys cache cleaning.
+ */
+@Value
+@Builder
+public class KeyCacheCleanResult {
+
+    /**
+     * Number of keys not used longer than allowed age.
+     */
+    int removedExpired;
+
+    /**
+     * Number of least recently used keys removed to fit in size limit.
+     */
+    int removedOverSize;
+
+    /**
+     * Number of broken keys.
+     */
+    int removedCorrupt;
+
+    /**
+     * Number of keys left in cache.
+     */
+    int keys;
+
+    /**
+     * Size in bytes of keys left in cache.
+     */
+    long size;
+
+    @Override
+    public String toString() {
+        return String.format("removed %d expired, %d over size, %d corrupt key(s), left %d key(s), %d bytes",
+                removedExpired, removedOverSize, removedCorrupt, keys, size);
+    }
+}
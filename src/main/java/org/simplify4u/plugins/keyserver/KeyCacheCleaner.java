@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.vavr.control.Try;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remove least recently used, too old and broken keys from cache.
+ * <p>
+ * Last usage of key is tracked by modification time of key file, see {@link #touch(File, long)},
+ * so it is safe for many processes using the same cache. Expired and the least recently used keys are found
+ * by modification time and size of files only, key content is parsed only to validate keys written or used
+ * after previous cleaning.
+ * <p>
+ * Keys are stored by hash path of key id, so layout of cache is compacted by removing directories
+ * which are empty after removing keys.
+ */
+final class KeyCacheCleaner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyCacheCleaner.class);
+
+    /**
+     * Modification time of key file is updated not often than this interval.
+     */
+    static final Duration TOUCH_INTERVAL = Duration.ofDays(1);
+
+    private KeyCacheCleaner() {
+        // No need to instantiate utility class.
+    }
+
+    @Value
+    private static class KeyFile {
+        Path path;
+        long lastUsed;
+        long size;
+    }
+
+    /**
+     * Mark key file as used.
+     *
+     * @param keyFile key file
+     * @param now     current time in milliseconds
+     */
+    static void touch(File keyFile, long now) {
+        if (now - keyFile.lastModified() > TOUCH_INTERVAL.toMillis() && !keyFile.setLastModified(now)) {
+            LOGGER.debug("Can't update modification time of: {}", keyFile);
+        }
+    }
+
+    /**
+     * Clean cache, all keys are validated.
+     *
+     * @param cachePath keys cache directory
+     * @param maxAge    keys not used longer are removed, zero means no limit
+     * @param maxSize   maximum size in bytes of all keys, zero means no limit
+     * @param now       current time in milliseconds
+     *
+     * @return result of cleaning
+     *
+     * @throws IOException in case of problem with access to cache
+     */
+    static KeyCacheCleanResult clean(File cachePath, Duration maxAge, long maxSize, long now) throws IOException {
+        return clean(cachePath, maxAge, maxSize, now, 0);
+    }
+
+    /**
+     * Clean cache.
+     *
+     * @param cachePath       keys cache directory
+     * @param maxAge          keys not used longer are removed, zero means no limit
+     * @param maxSize         maximum size in bytes of all keys, zero means no limit
+     * @param now             current time in milliseconds
+     * @param validatedBefore keys not modified since this time in milliseconds were validated
+     *                        by previous cleaning, so they are not parsed again
+     *
+     * @return result of cleaning
+     *
+     * @throws IOException in case of problem with access to cache
+     */
+    static KeyCacheCleanResult clean(File cachePath, Duration maxAge, long maxSize, long now, long validatedBefore)
+            throws IOException {
+
+        Path cacheRoot = cachePath.toPath();
+
+        List<KeyFile> keyFiles = new ArrayList<>();
+        int removedCorrupt = 0;
+        int removedExpired = 0;
+
+        try (Stream<Path> paths = Files.walk(cacheRoot)) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+
+                String keyPath = cacheRoot.relativize(path).toString().replace(File.separatorChar, '/');
+                if (!KeyCacheArchive.KEY_PATH.matcher(keyPath).matches()) {
+                    continue;
+                }
+
+                KeyFile keyFile = new KeyFile(path, Files.getLastModifiedTime(path).toMillis(), Files.size(path));
+
+                if (!maxAge.isZero() && now - keyFile.getLastUsed() > maxAge.toMillis()) {
+                    removedExpired += delete(keyFile.getPath(), "expired");
+                } else if (keyFile.getSize() == 0 || keyFile.getLastUsed() >= validatedBefore
+                        && !KeyCacheArchive.loadKeyRings(path).isPresent()) {
+                    removedCorrupt += delete(keyFile.getPath(), "corrupt");
+                } else {
+                    keyFiles.add(keyFile);
+                }
+            }
+        }
+
+        // the least recently used first
+        keyFiles.sort(Comparator.comparingLong(KeyFile::getLastUsed));
+
+        long size = keyFiles.stream().mapToLong(KeyFile::getSize).sum();
+        int keys = keyFiles.size();
+        int removedOverSize = 0;
+
+        for (KeyFile keyFile : keyFiles) {
+            if (maxSize <= 0 || size <= maxSize) {
+                break;
+            }
+            if (delete(keyFile.getPath(), "over size") > 0) {
+                size -= keyFile.getSize();
+                keys--;
+                removedOverSize++;
+            }
+        }
+
+        removeEmptyDirs(cacheRoot);
+
+        return KeyCacheCleanResult.builder()
+                .removedCorrupt(removedCorrupt)
+                .removedExpired(removedExpired)
+                .removedOverSize(removedOverSize)
+                .keys(keys)
+                .size(size)
+                .build();
+    }
+
+    private static int delete(Path path, String reason) {
+        return Try.of(() -> Files.deleteIfExists(path))
+                .onSuccess(v -> LOGGER.debug("Remove {} key: {}", reason, path))
+                .onFailure(e -> LOGGER.warn("Can't delete: {} with exception: {}", path, e.getMessage()))
+                .map(deleted -> deleted ? 1 : 0)
+                .getOrElse(0);
+    }
+
+    private static void removeEmptyDirs(Path cacheRoot) throws IOException {
+
+        List<Path> dirs;
+        try (Stream<Path> paths = Files.walk(cacheRoot)) {
+            dirs = paths.filter(Files::isDirectory)
+                    .filter(dir -> !dir.equals(cacheRoot))
+                    // the deepest first
+                    .sorted(Comparator.comparingInt(Path::getNameCount).reversed())
+                    .collect(Collectors.toList());
+        }
+
+        for (Path dir : dirs) {
+            try (Stream<Path> content = Files.list(dir)) {
+                if (!content.findAny().isPresent()) {
+                    Try.run(() -> Files.delete(dir))
+                            .onFailure(e -> LOGGER.debug("Can't delete: {} with exception: {}", dir,
+                                    e.getMessage()));
+                }
+            }
+        }
+    }
+}
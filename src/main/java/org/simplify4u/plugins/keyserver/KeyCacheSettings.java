@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Configuration of PGP keys cache.
+ */
+@Value
+@Builder
+public class KeyCacheSettings {
+
+    /**
+     * The directory for storing cached PGP public keys.
+     */
+    File cachePath;
+
+    /**
+     * Read only directories with cached PGP public keys, looked up in order after {@link #cachePath}.
+     */
+    @NonNull
+    @Builder.Default
+    List<File> readOnlyCachePaths = Collections.emptyList();
+
+    /**
+     * Address of remote HTTP keys cache, looked up after local caches and before key servers.
+     */
+    URI remoteCacheUrl;
+
+    /**
+     * Keys received from key servers are stored in remote cache.
+     */
+    boolean remoteCachePush;
+
+    /**
+     * PGP public key servers address separated by comma, semicolon or whitespace.
+     */
+    String keyServers;
+
+    /**
+     * If many key server is provided, use all of them in round robin, otherwise another as fallback.
+     */
+    boolean loadBalance;
+
+    /**
+     * Keys are only taken from cache and local key servers, no network requests are made.
+     */
+    boolean offline;
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.simplify4u.plugins.utils.PGPKeyId;
+
+/**
+ * Additional storage of PGP keys consulted by {@link PGPKeysCache} after local cache and before key servers.
+ */
+interface KeyCacheTier {
+
+    /**
+     * Load key from tier.
+     *
+     * @param keyId key to load
+     *
+     * @return key ring or empty if key is not available or broken
+     *
+     * @throws IOException in case of access problem
+     */
+    Optional<PGPPublicKeyRing> loadKey(PGPKeyId keyId) throws IOException;
+
+    /**
+     * Store key received from key server, read only tier ignore it.
+     *
+     * @param keyId    stored key
+     * @param keyRing  key ring containing stored key
+     *
+     * @throws IOException in case of access problem
+     */
+    void storeKey(PGPKeyId keyId, PGPPublicKeyRing keyRing) throws IOException;
+
+    /**
+     * @return true if tier is never modified
+     */
+    boolean isReadOnly();
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.simplify4u.plugins.utils.PGPKeyId;
+import org.simplify4u.plugins.utils.PublicKeyUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read only directory with the same layout as keys cache, eg. shared volume or pre-populated cache in CI image.
+ * <p>
+ * Broken files are skipped, they are never removed.
+ */
+class KeyCacheTierDirectory implements KeyCacheTier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyCacheTierDirectory.class);
+
+    private final File cachePath;
+
+    KeyCacheTierDirectory(File cachePath) throws IOException {
+        if (!cachePath.isDirectory()) {
+            throw new IOException("PGP keys cache path not exist or is not a directory: " + cachePath);
+        }
+        this.cachePath = cachePath;
+    }
+
+    @Override
+    public Optional<PGPPublicKeyRing> loadKey(PGPKeyId keyId) throws IOException {
+
+        File keyFile = new File(cachePath, keyId.getHashPath());
+        if (!keyFile.isFile()) {
+            return Optional.empty();
+        }
+
+        try (InputStream keyFileStream = new FileInputStream(keyFile)) {
+            Optional<PGPPublicKeyRing> keyRing = PublicKeyUtils.loadPublicKeyRing(keyFileStream, keyId);
+            if (!keyRing.isPresent()) {
+                LOGGER.warn("Key {} not found in: {}", keyId, keyFile);
+            }
+            return keyRing;
+        } catch (PGPException e) {
+            LOGGER.warn("Can't load key {} from: {} - {}", keyId, keyFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void storeKey(PGPKeyId keyId, PGPPublicKeyRing keyRing) {
+        // read only
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return cachePath.toString();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.maven.settings.Proxy;
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.simplify4u.plugins.utils.PGPKeyId;
+import org.simplify4u.plugins.utils.PublicKeyUtils;
+
+/**
+ * Remote keys cache shared by many builds, eg. by all CI agents of team.
+ * <p>
+ * Cache is plain HTTP store with the same layout as local keys cache, keys are read by <code>GET</code>
+ * and stored by <code>PUT</code> requests.
+ * <p>
+ * Connections to remote cache are shared by all modules of the build. When remote cache can not be
+ * connected it is not used any more in the build.
+ */
+class KeyCacheTierHttp implements KeyCacheTier {
+
+    private static final ContentType PGP_KEYS_CONTENT_TYPE = ContentType.create("application/pgp-keys");
+
+    private static final int MAX_CONNECTIONS = 4;
+
+    private static final Map<URI, RemoteCache> REMOTE_CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * Http client and availability of one remote cache.
+     */
+    private static class RemoteCache {
+
+        private final CloseableHttpClient httpClient = HttpClients.custom()
+                .useSystemProperties()
+                .setMaxConnPerRoute(MAX_CONNECTIONS)
+                .setMaxConnTotal(MAX_CONNECTIONS)
+                .build();
+
+        private volatile boolean available = true;
+    }
+
+    private final URI cacheUri;
+    private final boolean push;
+    private final long maxKeySize;
+    private final RequestConfig requestConfig;
+    private final Proxy proxy;
+    private final RemoteCache remoteCache;
+
+    KeyCacheTierHttp(URI cacheUri, boolean push, Proxy proxy, KeyServerClientSettings settings) {
+
+        String uri = cacheUri.toString();
+        this.cacheUri = uri.endsWith("/") ? cacheUri : URI.create(uri + "/");
+        this.push = push;
+        this.maxKeySize = settings.getMaxKeySize();
+        this.proxy = proxy;
+
+        RequestConfig.Builder requestConfigBuilder = RequestConfig.custom()
+                .setConnectionRequestTimeout(settings.getConnectTimeout())
+                .setConnectTimeout(settings.getConnectTimeout())
+                .setSocketTimeout(settings.getReadTimeout());
+
+        if (proxy != null) {
+            requestConfigBuilder.setProxy(new HttpHost(proxy.getHost(), proxy.getPort()));
+        }
+
+        this.requestConfig = requestConfigBuilder.build();
+        this.remoteCache = REMOTE_CACHES.computeIfAbsent(this.cacheUri, k -> new RemoteCache());
+    }
+
+    URI getUriForKey(PGPKeyId keyId) {
+        return cacheUri.resolve(keyId.getHashPath());
+    }
+
+    @Override
+    public Optional<PGPPublicKeyRing> loadKey(PGPKeyId keyId) throws IOException {
+
+        if (!remoteCache.available) {
+            return Optional.empty();
+        }
+
+        URI keyUri = getUriForKey(keyId);
+
+        try (CloseableHttpResponse response = execute(new HttpGet(keyUri))) {
+
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == HttpStatus.SC_NOT_FOUND) {
+                return Optional.empty();
+            }
+
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new IOException("Remote keys cache returned an error: " + response.getStatusLine()
+                        + " for: " + keyUri);
+            }
+
+            try (InputStream inputStream = new SizeLimitInputStream(response.getEntity().getContent(), maxKeySize)) {
+                return PublicKeyUtils.loadPublicKeyRing(inputStream, keyId);
+            } catch (PGPException e) {
+                throw new IOException(e.getMessage() + " for: " + keyUri, e);
+            }
+        }
+    }
+
+    @Override
+    public void storeKey(PGPKeyId keyId, PGPPublicKeyRing keyRing) throws IOException {
+
+        if (!push || !remoteCache.available) {
+            return;
+        }
+
+        ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+        try (ArmoredOutputStream armoredOutputStream = new ArmoredOutputStream(keyBytes)) {
+            keyRing.encode(armoredOutputStream);
+        }
+
+        URI keyUri = getUriForKey(keyId);
+        HttpPut request = new HttpPut(keyUri);
+        request.setEntity(new ByteArrayEntity(keyBytes.toByteArray(), PGP_KEYS_CONTENT_TYPE));
+
+        try (CloseableHttpResponse response = execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode < HttpStatus.SC_OK || statusCode >= HttpStatus.SC_MULTIPLE_CHOICES) {
+                throw new IOException("Remote keys cache returned an error: " + response.getStatusLine()
+                        + " for: " + keyUri);
+            }
+        }
+    }
+
+    private CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+
+        request.setConfig(requestConfig);
+
+        HttpClientContext context = HttpClientContext.create();
+        if (proxy != null && proxy.getUsername() != null && !proxy.getUsername().isEmpty()) {
+            BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            credentialsProvider.setCredentials(new AuthScope(proxy.getHost(), proxy.getPort()),
+                    new UsernamePasswordCredentials(proxy.getUsername(), proxy.getPassword()));
+            context.setCredentialsProvider(credentialsProvider);
+        }
+
+        try {
+            return remoteCache.httpClient.execute(request, context);
+        } catch (ConnectException | ConnectTimeoutException | NoRouteToHostException | UnknownHostException e) {
+            // not available cache should not slow down build
+            remoteCache.available = false;
+            throw new IOException("Remote keys cache is not available, it will not be used any more - "
+                    + e.getMessage() + " for: " + request.getURI(), e);
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return !push;
+    }
+
+    @Override
+    public String toString() {
+        return cacheUri.toString();
+    }
+}
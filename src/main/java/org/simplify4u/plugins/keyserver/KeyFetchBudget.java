@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Budget for fetching keys from key servers shared by whole build.
+ * <p>
+ * Each retry of key request is paid from common pool of retries, after deadline no more request are done.
+ * Time for deadline is counted from first request to key server.
+ *
+ * @author Slawomir Jaranowski.
+ */
+public class KeyFetchBudget {
+
+    private static final int UNLIMITED = -1;
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final AtomicInteger retries;
+    private final long timeLimit;
+    private final AtomicLong deadline = new AtomicLong(NOT_STARTED);
+    private final LongSupplier nanoTime;
+
+    private volatile boolean retryDenied;
+
+    /**
+     * Create budget.
+     *
+     * @param maxRetries
+     *         the maximum number of retries for all keys, negative value means unlimited
+     * @param timeLimit
+     *         the time for fetching all keys counted from first request, zero means unlimited
+     */
+    public KeyFetchBudget(int maxRetries, Duration timeLimit) {
+        this(maxRetries, timeLimit, System::nanoTime);
+    }
+
+    KeyFetchBudget(int maxRetries, Duration timeLimit, LongSupplier nanoTime) {
+        this.retries = new AtomicInteger(maxRetries < 0 ? UNLIMITED : maxRetries);
+        this.nanoTime = nanoTime;
+        this.timeLimit = timeLimit.isNegative() ? 0 : timeLimit.toNanos();
+    }
+
+    /**
+     * @return budget without any limits
+     */
+    public static KeyFetchBudget unlimited() {
+        return new KeyFetchBudget(UNLIMITED, Duration.ZERO);
+    }
+
+    /**
+     * Start counting time for deadline, only first call has effect.
+     */
+    void start() {
+        if (timeLimit > 0) {
+            deadline.compareAndSet(NOT_STARTED, nanoTime.getAsLong() + timeLimit);
+        }
+    }
+
+    /**
+     * Take one retry from budget.
+     *
+     * @return true if retry is allowed
+     */
+    boolean tryAcquireRetry() {
+
+        if (isDeadlineExceeded()) {
+            return false;
+        }
+
+        int remaining = retries.getAndUpdate(r -> r > 0 ? r - 1 : r);
+        if (remaining == UNLIMITED || remaining > 0) {
+            return true;
+        }
+
+        retryDenied = true;
+        return false;
+    }
+
+    /**
+     * Check if budget is spent - retry was denied or deadline was exceeded.
+     *
+     * @return budget status
+     */
+    boolean isExhausted() {
+        return retryDenied || isDeadlineExceeded();
+    }
+
+    /**
+     * @return description why budget is exhausted
+     */
+    String getExhaustedReason() {
+        if (isDeadlineExceeded()) {
+            return "deadline for fetching keys was exceeded";
+        }
+        if (retryDenied) {
+            return "all retries for fetching keys were used";
+        }
+        return "budget is not exhausted";
+    }
+
+    /**
+     * Check if deadline will be exceeded after given time.
+     *
+     * @param nanos time from now in nanoseconds
+     *
+     * @return true if deadline is before given time
+     */
+    boolean isDeadlineExceededAfter(long nanos) {
+        long currentDeadline = deadline.get();
+        return currentDeadline != NOT_STARTED && nanoTime.getAsLong() + nanos - currentDeadline >= 0;
+    }
+
+    private boolean isDeadlineExceeded() {
+        return isDeadlineExceededAfter(0);
+    }
+}
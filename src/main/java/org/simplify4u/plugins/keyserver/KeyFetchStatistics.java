@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of keys received from key servers.
+ *
+ * @author Slawomir Jaranowski.
+ */
+public class KeyFetchStatistics {
+
+    private final AtomicLong keys = new AtomicLong();
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private final AtomicLong keyBytes = new AtomicLong();
+
+    /**
+     * Record received key.
+     *
+     * @param transferred number of bytes transferred from key server, possibly compressed
+     * @param uncompressed number of bytes of key after decompression
+     */
+    void addKey(long transferred, long uncompressed) {
+        keys.incrementAndGet();
+        transferredBytes.addAndGet(transferred);
+        keyBytes.addAndGet(uncompressed);
+    }
+
+    /**
+     * @return number of received keys
+     */
+    public long getKeys() {
+        return keys.get();
+    }
+
+    /**
+     * @return number of bytes transferred from key servers
+     */
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    /**
+     * @return number of bytes of received keys after decompression
+     */
+    public long getKeyBytes() {
+        return keyBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d key(s), %d bytes transferred, %d bytes uncompressed",
+                getKeys(), getTransferredBytes(), getKeyBytes());
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared table of resolved key servers addresses.
+ * <p>
+ * Results of DNS resolution are kept for limited time, for each address failures and response latency are
+ * remembered. All requests to the same key server in current JVM, also from next modules of the build,
+ * start from the best known address instead of the first one returned by DNS.
+ *
+ * @author Slawomir Jaranowski.
+ */
+class KeyServerAddresses {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyServerAddresses.class);
+
+    static final Duration DEFAULT_DNS_TTL = Duration.ofMinutes(5);
+    static final Duration DEFAULT_FAILURE_PENALTY = Duration.ofSeconds(30);
+
+    private static final int MAX_PENALTY_SHIFT = 6;
+
+    // weight of last measurement in latency average
+    private static final double LATENCY_ALPHA = 0.3;
+
+    private static final KeyServerAddresses INSTANCE = new KeyServerAddresses(DEFAULT_DNS_TTL,
+            DEFAULT_FAILURE_PENALTY, System::currentTimeMillis, InetAddress::getAllByName);
+
+    @FunctionalInterface
+    interface Resolver {
+        InetAddress[] resolve(String hostName) throws UnknownHostException;
+    }
+
+    private final long dnsTtl;
+    private final long failurePenalty;
+    private final LongSupplier currentTime;
+    private final Resolver resolver;
+
+    private final Map<String, ResolvedHost> resolvedHosts = new HashMap<>();
+    private final Map<InetAddress, AddressStatus> addressStatuses = new HashMap<>();
+
+    KeyServerAddresses(Duration dnsTtl, Duration failurePenalty, LongSupplier currentTime, Resolver resolver) {
+        this.dnsTtl = dnsTtl.toMillis();
+        this.failurePenalty = failurePenalty.toMillis();
+        this.currentTime = currentTime;
+        this.resolver = resolver;
+    }
+
+    /**
+     * @return instance shared by all key server clients
+     */
+    static KeyServerAddresses getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Resolve host name, result is taken from cache if not expired.
+     *
+     * @param hostName host name to resolve
+     *
+     * @return all address of host in order returned by DNS
+     *
+     * @throws UnknownHostException if host can not be resolved
+     */
+    List<InetAddress> resolve(String hostName) throws UnknownHostException {
+
+        long now = currentTime.getAsLong();
+
+        synchronized (resolvedHosts) {
+            ResolvedHost resolvedHost = resolvedHosts.get(hostName);
+            if (resolvedHost != null && resolvedHost.expireAt > now) {
+                return resolvedHost.addresses;
+            }
+        }
+
+        // resolve outside lock, DNS query can take a while
+        List<InetAddress> addresses = Collections.unmodifiableList(Arrays.asList(resolver.resolve(hostName)));
+        if (addresses.isEmpty()) {
+            throw new UnknownHostException(hostName);
+        }
+
+        LOGGER.debug("Resolved {} to {}", hostName, addresses);
+
+        synchronized (resolvedHosts) {
+            resolvedHosts.put(hostName, new ResolvedHost(addresses, now + dnsTtl));
+        }
+        return addresses;
+    }
+
+    /**
+     * Resolve host name and return address ordered from the best one.
+     * <p>
+     * Address which failed recently are moved to the end of list,
+     * address with known latency are preferred and sorted by latency,
+     * other keep order from DNS.
+     *
+     * @param hostName host name to resolve
+     *
+     * @return all address of host, the best first
+     *
+     * @throws UnknownHostException if host can not be resolved
+     */
+    List<InetAddress> getOrderedAddresses(String hostName) throws UnknownHostException {
+
+        List<InetAddress> addresses = new ArrayList<>(resolve(hostName));
+        long now = currentTime.getAsLong();
+
+        synchronized (addressStatuses) {
+            addresses.sort(Comparator
+                    .comparing((InetAddress address) -> statusFor(address).isPenalized(now, failurePenalty))
+                    .thenComparing(address -> !statusFor(address).hasLatency())
+                    .thenComparingDouble(address -> statusFor(address).latency));
+        }
+        return addresses;
+    }
+
+    /**
+     * Remember that request to address failed.
+     *
+     * @param address failed address
+     */
+    void markFailure(InetAddress address) {
+        if (address == null) {
+            return;
+        }
+
+        synchronized (addressStatuses) {
+            AddressStatus status = addressStatuses.computeIfAbsent(address, a -> new AddressStatus());
+            status.failures++;
+            status.lastFailure = currentTime.getAsLong();
+        }
+    }
+
+    /**
+     * Remember that request to address was success.
+     *
+     * @param address address
+     * @param latency time to response
+     */
+    void markSuccess(InetAddress address, Duration latency) {
+        if (address == null) {
+            return;
+        }
+
+        synchronized (addressStatuses) {
+            AddressStatus status = addressStatuses.computeIfAbsent(address, a -> new AddressStatus());
+            status.failures = 0;
+            long millis = latency.toMillis();
+            status.latency = status.hasLatency() ? LATENCY_ALPHA * millis + (1 - LATENCY_ALPHA) * status.latency
+                    : millis;
+        }
+    }
+
+    private AddressStatus statusFor(InetAddress address) {
+        return addressStatuses.getOrDefault(address, AddressStatus.UNKNOWN);
+    }
+
+    private static class ResolvedHost {
+        private final List<InetAddress> addresses;
+        private final long expireAt;
+
+        ResolvedHost(List<InetAddress> addresses, long expireAt) {
+            this.addresses = addresses;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static class AddressStatus {
+
+        private static final AddressStatus UNKNOWN = new AddressStatus();
+
+        private int failures;
+        private long lastFailure;
+        private double latency = Double.NaN;
+
+        boolean hasLatency() {
+            return !Double.isNaN(latency);
+        }
+
+        /**
+         * Address is penalized after failure, each next failure in sequence doubles penalty time.
+         */
+        boolean isPenalized(long now, long failurePenalty) {
+            if (failures == 0) {
+                return false;
+            }
+            long penalty = failurePenalty << Math.min(failures - 1, MAX_PENALTY_SHIFT);
+            return now - lastFailure < penalty;
+        }
+    }
+}
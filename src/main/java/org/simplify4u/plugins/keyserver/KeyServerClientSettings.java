@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Configuration of key server clients.
+ */
+@Value
+@Builder
+public class KeyServerClientSettings {
+
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    public static final int DEFAULT_READ_TIMEOUT = 20000;
+    public static final int DEFAULT_MAX_RETRIES = 10;
+    public static final double DEFAULT_RATE_LIMIT = 10.0;
+    public static final long DEFAULT_MAX_KEY_SIZE = 2L * 1024 * 1024;
+
+    /**
+     * Id of proxy from Maven settings.
+     */
+    String proxyName;
+
+    /**
+     * The timeout (in milliseconds) that the client should wait to establish a connection to the PGP server.
+     */
+    @Builder.Default
+    int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+    /**
+     * The timeout (in milliseconds) that the client should wait for data from the PGP server.
+     */
+    @Builder.Default
+    int readTimeout = DEFAULT_READ_TIMEOUT;
+
+    /**
+     * The maximum number of automatically retry request by client.
+     */
+    @Builder.Default
+    int maxAttempts = DEFAULT_MAX_RETRIES;
+
+    /**
+     * The maximum number of requests per second sent to one key server, zero or negative means no limit.
+     */
+    @Builder.Default
+    double rateLimit = DEFAULT_RATE_LIMIT;
+
+    /**
+     * The maximum size (in bytes) of key server response.
+     */
+    @Builder.Default
+    long maxKeySize = DEFAULT_MAX_KEY_SIZE;
+
+    /**
+     * Budget for retries shared by all clients.
+     */
+    @NonNull
+    @Builder.Default
+    KeyFetchBudget fetchBudget = KeyFetchBudget.unlimited();
+
+    /**
+     * Statistics of received keys.
+     */
+    @NonNull
+    @Builder.Default
+    KeyFetchStatistics fetchStatistics = new KeyFetchStatistics();
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.http.client.utils.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token bucket rate limiter for requests to one key server.
+ * <p>
+ * One instance is shared by all clients of the same key server, so concurrent requests
+ * also from next modules of the build are limited together.
+ * Key server can also pause requests by <code>Retry-After</code> header.
+ * <p>
+ * Waiting for permit can be interrupted and is not started when it would exceed the deadline
+ * of fetch budget.
+ *
+ * @author Slawomir Jaranowski.
+ */
+class KeyServerRateLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyServerRateLimiter.class);
+
+    static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(5);
+
+    private static final long NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Map<String, KeyServerRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+    private static final Map<String, Double> RATES = new ConcurrentHashMap<>();
+
+    /**
+     * Sleep for given time.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    private final double permitsPerSecond;
+    private final double maxPermits;
+    private final LongSupplier nanoTime;
+    private final Sleeper sleeper;
+
+    private double storedPermits;
+    private long lastRefill;
+    private long blockedUntil;
+
+    KeyServerRateLimiter(double permitsPerSecond, LongSupplier nanoTime, Sleeper sleeper) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = Math.max(1.0, permitsPerSecond);
+        this.nanoTime = nanoTime;
+        this.sleeper = sleeper;
+        this.storedPermits = maxPermits;
+        this.lastRefill = nanoTime.getAsLong();
+        this.blockedUntil = lastRefill;
+    }
+
+    /**
+     * Return rate limiter for given key server.
+     * <p>
+     * Modules which use the same key server with different limits have own rate limiters.
+     *
+     * @param keyServer        key server address
+     * @param permitsPerSecond maximum number of request per second, zero or negative means no limit
+     *
+     * @return rate limiter shared by all clients of key server with the same limit
+     */
+    static KeyServerRateLimiter forKeyServer(URI keyServer, double permitsPerSecond) {
+
+        String server = keyServer.getHost() + ":" + keyServer.getPort();
+        double rate = Math.max(0, permitsPerSecond);
+
+        return LIMITERS.computeIfAbsent(server + "/" + rate, k -> {
+            Double registeredRate = RATES.putIfAbsent(server, rate);
+            if (registeredRate != null && registeredRate != rate) {
+                LOGGER.warn("Key server {} is used with different rate limits: {} and {} requests per second, "
+                        + "each limit is applied separately", server, registeredRate, rate);
+            }
+            return new KeyServerRateLimiter(rate, System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+        });
+    }
+
+    /**
+     * Wait for permit to next request.
+     *
+     * @param fetchBudget budget of current fetching
+     *
+     * @return time spent on waiting
+     *
+     * @throws PGPKeyUnavailable if budget is exhausted or waiting would exceed its deadline
+     * @throws InterruptedIOException if waiting was interrupted
+     */
+    Duration acquire(KeyFetchBudget fetchBudget) throws IOException {
+
+        long waitNanos;
+        synchronized (this) {
+            long now = nanoTime.getAsLong();
+
+            waitNanos = Math.max(0, blockedUntil - now);
+
+            double permits = storedPermits;
+            if (permitsPerSecond > 0) {
+                permits = Math.min(maxPermits, permits + (now - lastRefill) * permitsPerSecond / NANOS_IN_SECOND);
+
+                // permit can be reserved in future
+                permits -= 1;
+                if (permits < 0) {
+                    waitNanos = Math.max(waitNanos, (long) (-permits * NANOS_IN_SECOND / permitsPerSecond));
+                }
+            }
+
+            if (waitNanos > 0 && (fetchBudget.isExhausted() || fetchBudget.isDeadlineExceededAfter(waitNanos))) {
+                // permit is not reserved
+                throw new PGPKeyUnavailable(String.format("Key server requests wait %s, but %s",
+                        Duration.ofNanos(waitNanos), fetchBudget.isExhausted() ? fetchBudget.getExhaustedReason()
+                                : "deadline for fetching keys would be exceeded"));
+            }
+
+            if (permitsPerSecond > 0) {
+                storedPermits = permits;
+                lastRefill = now;
+            }
+        }
+
+        if (waitNanos > 0) {
+            LOGGER.debug("Wait {} for next request", Duration.ofNanos(waitNanos));
+            try {
+                sleeper.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Waiting for next request to key server was interrupted");
+            }
+        }
+        return Duration.ofNanos(waitNanos);
+    }
+
+    /**
+     * Pause all request to key server.
+     *
+     * @param duration time of pause
+     */
+    void pauseFor(Duration duration) {
+
+        Duration pause = duration.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : duration;
+        LOGGER.debug("Key server requested pause for {}", pause);
+
+        synchronized (this) {
+            blockedUntil = Math.max(blockedUntil, nanoTime.getAsLong() + pause.toNanos());
+        }
+    }
+
+    /**
+     * Parse value of <code>Retry-After</code> header.
+     *
+     * @param retryAfter  header value - delay in seconds or http date
+     * @param currentTime current time in milliseconds
+     *
+     * @return delay requested by server
+     */
+    static Optional<Duration> parseRetryAfter(String retryAfter, long currentTime) {
+
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return Optional.empty();
+        }
+
+        String value = retryAfter.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds >= 0 ? Optional.of(Duration.ofSeconds(seconds)) : Optional.empty();
+        } catch (NumberFormatException e) {
+            // not a number - try http date
+        }
+
+        Date date = DateUtils.parseDate(value);
+        if (date == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(Duration.ofMillis(Math.max(0, date.getTime() - currentTime)));
+    }
+}
@@ -17,11 +17,13 @@
 package org.simplify4u.plugins.keyserver;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.URI;
 import java.nio.file.FileSystemException;
@@ -31,8 +33,15 @@ import java.security.SecureRandom;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -42,9 +51,14 @@ import javax.inject.Named;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static org.simplify4u.plugins.utils.ExceptionUtils.getMessage;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.vavr.control.Try;
+import org.bouncycastle.bcpg.ArmoredOutputStream;
 import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.simplify4u.plugins.keyserver.PGPKeysProvider.KeyStreamProcessor;
 import org.simplify4u.plugins.utils.MavenProxy;
 import org.simplify4u.plugins.utils.PGPKeyId;
 import org.simplify4u.plugins.utils.PublicKeyUtils;
@@ -68,28 +82,118 @@ public class PGPKeysCache {
 
     private File cachePath;
     private KeyServerList keyServerList;
+    private KeyServerList offlineKeyServerList;
+    private boolean offline;
+    private KeyFetchBudget fetchBudget;
+    private KeyFetchStatistics fetchStatistics = new KeyFetchStatistics();
+    private List<KeyCacheTier> cacheTiers = Collections.emptyList();
 
+    /**
+     * Keys which were not received in batch, by key id, they are not requested again in current session.
+     */
+    private final Map<String, IOException> notReceivedKeys = new ConcurrentHashMap<>();
 
     private static final Object LOCK = new Object();
 
+    private static final String LAST_CLEAN_FILE = ".last-clean";
+    private static final Duration AUTO_CLEAN_INTERVAL = Duration.ofDays(1);
+
+    private static final Executor PREWARM_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("pgpverify-prewarm-%d").build());
+
     @Inject
     PGPKeysCache(MavenProxy mavenProxy) {
         this.mavenProxy = mavenProxy;
     }
 
-    public void init(File cachePath, String keyServers, boolean loadBalance, String proxyName)
+    public void init(KeyCacheSettings cacheSettings, KeyServerClientSettings clientSettings)
             throws IOException {
-        init(cachePath, prepareClients(keyServers, proxyName), loadBalance);
+        init(cacheSettings.getCachePath(), prepareClients(cacheSettings.getKeyServers(), clientSettings),
+                cacheSettings.isLoadBalance(), clientSettings.getFetchBudget(), cacheSettings.isOffline(),
+                prepareCacheTiers(cacheSettings, clientSettings));
+        this.fetchStatistics = clientSettings.getFetchStatistics();
+    }
+
+    private List<KeyCacheTier> prepareCacheTiers(KeyCacheSettings cacheSettings,
+            KeyServerClientSettings clientSettings) throws IOException {
+
+        List<KeyCacheTier> tiers = new ArrayList<>();
+        for (File readOnlyPath : cacheSettings.getReadOnlyCachePaths()) {
+            tiers.add(new KeyCacheTierDirectory(readOnlyPath));
+        }
+
+        if (cacheSettings.getRemoteCacheUrl() != null && !cacheSettings.isOffline()) {
+            tiers.add(new KeyCacheTierHttp(cacheSettings.getRemoteCacheUrl(), cacheSettings.isRemoteCachePush(),
+                    mavenProxy.getProxyByName(clientSettings.getProxyName()), clientSettings));
+        }
+        return tiers;
     }
 
     // used by test
-    void init(File cachePath, List<PGPKeysServerClient> pgpKeysServerClients, boolean loadBalance) throws IOException {
+    void init(File cachePath, List<PGPKeysProvider> pgpKeysServerClients, boolean loadBalance) throws IOException {
+        init(cachePath, pgpKeysServerClients, loadBalance, KeyFetchBudget.unlimited());
+    }
+
+    void init(File cachePath, List<PGPKeysProvider> pgpKeysServerClients, boolean loadBalance,
+            KeyFetchBudget fetchBudget) throws IOException {
+        init(cachePath, pgpKeysServerClients, loadBalance, fetchBudget, false);
+    }
+
+    void init(File cachePath, List<PGPKeysProvider> pgpKeysServerClients, boolean loadBalance,
+            KeyFetchBudget fetchBudget, boolean offline) throws IOException {
+        init(cachePath, pgpKeysServerClients, loadBalance, fetchBudget, offline, Collections.emptyList());
+    }
+
+    void init(File cachePath, List<PGPKeysProvider> pgpKeysServerClients, boolean loadBalance,
+            KeyFetchBudget fetchBudget, boolean offline, List<KeyCacheTier> cacheTiers) throws IOException {
 
         this.cachePath = cachePath;
+        this.cacheTiers = cacheTiers;
         this.keyServerList = createKeyServerList(pgpKeysServerClients, loadBalance);
+        this.fetchBudget = fetchBudget;
+        this.offline = offline;
+        this.notReceivedKeys.clear();
+
+        if (offline) {
+            // in offline mode only local key servers can be used
+            List<PGPKeysProvider> localClients = pgpKeysServerClients.stream()
+                    .filter(PGPKeysServerClientFile.class::isInstance)
+                    .collect(Collectors.toList());
 
-        LOGGER.info("Key server(s) - {}", keyServerList);
+            this.offlineKeyServerList = localClients.isEmpty() ? null
+                    : createKeyServerList(localClients, loadBalance);
+
+            LOGGER.info("Offline mode - local key server(s) - {}",
+                    offlineKeyServerList != null ? offlineKeyServerList : "none");
+        } else {
+            this.offlineKeyServerList = null;
+            LOGGER.info("Key server(s) - {}", keyServerList);
+        }
 
+        if (!cacheTiers.isEmpty()) {
+            LOGGER.info("Additional keys cache(s) - {}", cacheTiers);
+        }
+
+        prepareCachePath();
+    }
+
+    /**
+     * Initialize only cache directory, for maintenance of cache without access to key servers.
+     *
+     * @param cachePath keys cache directory
+     *
+     * @throws IOException if cache directory can not be created
+     */
+    public void init(File cachePath) throws IOException {
+        this.cachePath = cachePath;
+        this.cacheTiers = Collections.emptyList();
+        this.keyServerList = null;
+        this.offlineKeyServerList = null;
+        this.notReceivedKeys.clear();
+        prepareCachePath();
+    }
+
+    private void prepareCachePath() throws IOException {
         synchronized (LOCK) {
             if (this.cachePath.exists()) {
                 if (!this.cachePath.isDirectory()) {
@@ -105,7 +209,7 @@ public class PGPKeysCache {
         }
     }
 
-    List<PGPKeysServerClient> prepareClients(String keyServers, String proxyName) {
+    List<PGPKeysProvider> prepareClients(String keyServers, KeyServerClientSettings clientSettings) {
 
         List<String> keyServersList = Arrays.stream(KEY_SERVERS_SPLIT_PATTERN.split(keyServers))
                 .map(String::trim)
@@ -114,11 +218,12 @@ public class PGPKeysCache {
 
         return keyServersList.stream()
                 .map(keyserver -> Try.of(() ->
-                        PGPKeysServerClient.getClient(keyserver, mavenProxy.getProxyByName(proxyName))).get())
+                        PGPKeysProvider.getProvider(keyserver,
+                                mavenProxy.getProxyByName(clientSettings.getProxyName()), clientSettings)).get())
                 .collect(Collectors.toList());
     }
 
-    static KeyServerList createKeyServerList(List<PGPKeysServerClient> pgpKeysServerClients, boolean loadBalance) {
+    static KeyServerList createKeyServerList(List<PGPKeysProvider> pgpKeysServerClients, boolean loadBalance) {
 
         if (pgpKeysServerClients == null || pgpKeysServerClients.isEmpty()) {
             throw new IllegalArgumentException("Not allowed empty key server clients list ");
@@ -138,6 +243,227 @@ public class PGPKeysCache {
         return ret.withClients(pgpKeysServerClients);
     }
 
+    /**
+     * Statistics of keys received from key servers.
+     *
+     * @return statistics for current configuration
+     */
+    public KeyFetchStatistics getFetchStatistics() {
+        return fetchStatistics;
+    }
+
+    /**
+     * Receive keys which are not in cache from key server in one batch.
+     * <p>
+     * Keys which can not be received from the last used key server are requested from next key servers.
+     * Keys which can not be received from any key server are remembered, so {@link #getKeyRing(PGPKeyId)}
+     * does not request them again.
+     *
+     * @param keyIds keys which will be needed
+     */
+    public void prefetchKeyRings(Collection<PGPKeyId> keyIds) {
+
+        // PGPKeyId has no equals, so string representation is used
+        Map<String, PGPKeyId> notCachedKeys = new LinkedHashMap<>();
+        synchronized (LOCK) {
+            for (PGPKeyId keyId : keyIds) {
+                if (!new File(cachePath, keyId.getHashPath()).exists()) {
+                    notCachedKeys.putIfAbsent(keyId.toString(), keyId);
+                }
+            }
+        }
+
+        // remote caches are asked without lock, so other modules are not blocked by network requests
+        Map<String, PGPKeyId> missingKeys = new LinkedHashMap<>();
+        notCachedKeys.forEach((name, keyId) -> {
+            File keyFile = new File(cachePath, keyId.getHashPath());
+            if (!notReceivedKeys.containsKey(name) && !loadKeyFromCacheTiers(keyFile, keyId).isPresent()
+                    && Try.run(() -> prepareKeyDir(keyFile)).isSuccess()) {
+                missingKeys.put(name, keyId);
+            }
+        });
+
+        if (missingKeys.isEmpty() || offline || fetchBudget.isExhausted()) {
+            return;
+        }
+
+        // the last problem for each key which was requested and not received
+        Map<String, IOException> failedKeys = new LinkedHashMap<>();
+
+        // keys are received without lock, received key file is replaced under lock
+        for (PGPKeysProvider client : keyServerList.getClientsForBatch()) {
+            if (missingKeys.isEmpty() || fetchBudget.isExhausted()) {
+                break;
+            }
+
+            LOGGER.info("Receive {} key(s) from {}", missingKeys.size(), client);
+
+            client.fetchKeys(new ArrayList<>(missingKeys.values()),
+                    keyId -> keyFileWriter(new File(cachePath, keyId.getHashPath()), keyId), PGPKeysCache::onRetry)
+                    .forEach((keyId, result) -> result
+                            .onSuccess(keyRing -> {
+                                if (keyRing.isPresent()) {
+                                    LOGGER.info("Receive key: {}{}\tto {}", client.getUriForGetKey(keyId), NL,
+                                            new File(cachePath, keyId.getHashPath()));
+                                    storeKeyInCacheTiers(keyId, keyRing.get());
+                                    missingKeys.remove(keyId.toString());
+                                    failedKeys.remove(keyId.toString());
+                                } else {
+                                    LOGGER.info("Key {} not found in data received from {}", keyId, client);
+                                    failedKeys.put(keyId.toString(), new PGPKeyNotFound(String.format(
+                                            "Can't find public key %s in data received from %s", keyId, client)));
+                                }
+                            })
+                            .onFailure(e -> {
+                                if (e instanceof PGPKeyNotFound) {
+                                    LOGGER.info("Key {} not found on {}", keyId, client);
+                                    failedKeys.put(keyId.toString(), (PGPKeyNotFound) e);
+                                } else {
+                                    LOGGER.warn("Receive key {} in batch from {} failed: {}",
+                                            keyId, client, getMessage(e));
+                                    failedKeys.put(keyId.toString(), new PGPKeyUnavailable(String.format(
+                                            "PGP key %s not fetched - %s", keyId, getMessage(e)), e));
+                                }
+                            }));
+        }
+
+        notReceivedKeys.putAll(failedKeys);
+    }
+
+    /**
+     * Import all keys from given stream, eg. from exported keyring, to cache.
+     * <p>
+     * Each key ring is validated once and stored for all its keys, both by key id and by fingerprint.
+     * Existing keys in cache are replaced.
+     *
+     * @param keyRingsStream stream with public keys
+     *
+     * @return number of imported key rings
+     *
+     * @throws IOException in case of problem with reading keys or writing to cache
+     */
+    public int importKeyRings(InputStream keyRingsStream) throws IOException {
+
+        List<PGPPublicKeyRing> keyRings;
+        try {
+            keyRings = PublicKeyUtils.loadPublicKeyRings(keyRingsStream);
+        } catch (PGPException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        synchronized (LOCK) {
+            for (PGPPublicKeyRing keyRing : keyRings) {
+                byte[] keyRingBytes = encodeKeyRing(keyRing);
+                for (PGPPublicKey publicKey : keyRing) {
+                    for (PGPKeyId keyId : Arrays.asList(PGPKeyId.from(publicKey.getKeyID()),
+                            PGPKeyId.from(publicKey.getFingerprint()))) {
+                        File keyFile = new File(cachePath, keyId.getHashPath());
+                        storeKeyRing(keyFile, keyRingBytes);
+                        LOGGER.debug("Import key: {} to {}", keyId, keyFile);
+                    }
+                }
+            }
+        }
+
+        return keyRings.size();
+    }
+
+    /**
+     * Write all keys from cache to one archive.
+     * <p>
+     * Archive content depends only on keys in cache, its sha256 is stored next to archive in <code>.sha256</code> file.
+     *
+     * @param archive archive file
+     *
+     * @return number of exported keys
+     *
+     * @throws IOException in case of problem with reading cache or writing archive
+     */
+    public int exportCache(File archive) throws IOException {
+        synchronized (LOCK) {
+            return KeyCacheArchive.exportCache(cachePath, archive);
+        }
+    }
+
+    /**
+     * Restore keys from archive created by {@link #exportCache(File)}, keys existing in cache are not replaced.
+     *
+     * @param archive archive file
+     *
+     * @return number of restored keys
+     *
+     * @throws IOException in case of problem with reading archive or writing cache
+     */
+    public int importCache(File archive) throws IOException {
+        synchronized (LOCK) {
+            return KeyCacheArchive.importCache(archive, cachePath);
+        }
+    }
+
+    /**
+     * Remove from cache keys not used longer than given age, broken keys and the least recently used keys
+     * above size limit. Only keys written or used after previous cleaning are checked if they are broken.
+     *
+     * @param maxAge  keys not used longer are removed, zero means no limit
+     * @param maxSize maximum size in bytes of all keys, zero means no limit
+     *
+     * @return result of cleaning
+     *
+     * @throws IOException in case of problem with access to cache
+     */
+    public KeyCacheCleanResult cleanCache(Duration maxAge, long maxSize) throws IOException {
+        synchronized (LOCK) {
+            long now = System.currentTimeMillis();
+            File lastCleanFile = new File(cachePath, LAST_CLEAN_FILE);
+            // keys not changed since last cleaning are already validated, zero if cache was never cleaned
+            KeyCacheCleanResult result = KeyCacheCleaner.clean(cachePath, maxAge, maxSize, now,
+                    lastCleanFile.lastModified());
+            Files.write(lastCleanFile.toPath(), new byte[0]);
+            return result;
+        }
+    }
+
+    /**
+     * Clean cache like {@link #cleanCache(Duration, long)} but not often than once a day.
+     *
+     * @param maxAge  keys not used longer are removed, zero means no limit
+     * @param maxSize maximum size in bytes of all keys, zero means no limit
+     *
+     * @return result of cleaning or empty if cleaning was not needed
+     *
+     * @throws IOException in case of problem with access to cache
+     */
+    public Optional<KeyCacheCleanResult> autoCleanCache(Duration maxAge, long maxSize) throws IOException {
+        // check and clean under the same lock, so parallel modules do not clean cache twice
+        synchronized (LOCK) {
+            File lastCleanFile = new File(cachePath, LAST_CLEAN_FILE);
+            if (System.currentTimeMillis() - lastCleanFile.lastModified() < AUTO_CLEAN_INTERVAL.toMillis()) {
+                return Optional.empty();
+            }
+            return Optional.of(cleanCache(maxAge, maxSize));
+        }
+    }
+
+    /**
+     * Start connecting to all configured key servers in background.
+     * <p>
+     * Connections are kept in pool and used by first requests for keys.
+     */
+    public void prewarm() {
+
+        if (offline) {
+            return;
+        }
+
+        for (PGPKeysProvider client : keyServerList.keysServerClients) {
+            PREWARM_EXECUTOR.execute(() ->
+                    Try.run(client::prewarm)
+                            .onSuccess(v -> LOGGER.debug("Prewarm connection to {} done", client))
+                            .onFailure(e -> LOGGER.debug("Prewarm connection to {} failed: {}", client,
+                                    getMessage(e))));
+        }
+    }
+
     /**
      * URL where PGP key can be watched.
      *
@@ -149,24 +475,119 @@ public class PGPKeysCache {
         return keyServerList.getUriForShowKey(keyID).toString();
     }
 
+    /**
+     * Load key from cache, additional caches or key servers.
+     * <p>
+     * Only access to local cache is done under lock, additional caches and key servers are asked without lock,
+     * so other modules are not blocked by network requests. Received key file is replaced under lock.
+     *
+     * @param keyID given keyId
+     *
+     * @return key ring with given key
+     *
+     * @throws IOException in case of problem with receiving key
+     */
     public PGPPublicKeyRing getKeyRing(PGPKeyId keyID) throws IOException {
 
-
         String path = keyID.getHashPath();
         File keyFile = new File(cachePath, path);
 
         synchronized (LOCK) {
-
             if (keyFile.exists()) {
                 // load from cache
                 Optional<PGPPublicKeyRing> keyRing = loadKeyFromFile(keyFile, keyID);
                 if (keyRing.isPresent()) {
+                    KeyCacheCleaner.touch(keyFile, System.currentTimeMillis());
                     return keyRing.get();
                 }
             }
+        }
 
-            // key not exists in cache or something wrong with cache, so receive from servers
+        IOException notReceived = notReceivedKeys.get(keyID.toString());
+        if (notReceived != null) {
+            // key was already requested from all key servers in current session
+            throw notReceived;
+        }
+
+        Optional<PGPPublicKeyRing> keyRing = loadKeyFromCacheTiers(keyFile, keyID);
+        if (keyRing.isPresent()) {
+            return keyRing.get();
+        }
+
+        // key not exists in cache or something wrong with cache, so receive from servers
+        PGPPublicKeyRing receivedKeyRing = receiveKeyWithBudget(keyFile, keyID);
+        storeKeyInCacheTiers(keyID, receivedKeyRing);
+        return receivedKeyRing;
+    }
+
+    /**
+     * Look up additional caches in order, found key is promoted to local cache.
+     */
+    private Optional<PGPPublicKeyRing> loadKeyFromCacheTiers(File keyFile, PGPKeyId keyID) {
+
+        for (KeyCacheTier tier : cacheTiers) {
+            Optional<PGPPublicKeyRing> keyRing = Try.of(() -> tier.loadKey(keyID))
+                    .onFailure(e -> LOGGER.warn("Load key {} from {} failed: {}", keyID, tier, getMessage(e)))
+                    .getOrElse(Optional.empty());
+
+            if (keyRing.isPresent()) {
+                LOGGER.debug("Key {} found in {}", keyID, tier);
+                synchronized (LOCK) {
+                    Try.run(() -> storeKeyRing(keyFile, encodeKeyRing(keyRing.get())))
+                            .onFailure(e -> LOGGER.warn("Can't store key {} in: {} - {}", keyID, keyFile,
+                                    getMessage(e)));
+                }
+                return keyRing;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void storeKeyInCacheTiers(PGPKeyId keyID, PGPPublicKeyRing keyRing) {
+
+        for (KeyCacheTier tier : cacheTiers) {
+            if (!tier.isReadOnly()) {
+                Try.run(() -> tier.storeKey(keyID, keyRing))
+                        .onFailure(e -> LOGGER.warn("Store key {} in {} failed: {}", keyID, tier, getMessage(e)));
+            }
+        }
+    }
+
+    private PGPPublicKeyRing receiveKeyWithBudget(File keyFile, PGPKeyId keyID) throws IOException {
+
+        if (offline) {
+            return receiveKeyOffline(keyFile, keyID);
+        }
+
+        if (fetchBudget.isExhausted()) {
+            throw new PGPKeyUnavailable(String.format("PGP key %s not fetched - %s",
+                    keyID, fetchBudget.getExhaustedReason()));
+        }
+
+        try {
             return keyServerList.execute(keysServerClient -> receiveKey(keyFile, keyID, keysServerClient));
+        } catch (PGPKeyNotFound e) {
+            throw e;
+        } catch (IOException e) {
+            if (fetchBudget.isExhausted()) {
+                throw new PGPKeyUnavailable(String.format("PGP key %s not fetched - %s",
+                        keyID, fetchBudget.getExhaustedReason()), e);
+            }
+            throw e;
+        }
+    }
+
+    private PGPPublicKeyRing receiveKeyOffline(File keyFile, PGPKeyId keyID) throws IOException {
+
+        if (offlineKeyServerList == null) {
+            throw new PGPKeyUnavailable(String.format("PGP key %s not found in cache - offline mode", keyID));
+        }
+
+        try {
+            return offlineKeyServerList.execute(keysServerClient -> receiveKey(keyFile, keyID, keysServerClient));
+        } catch (IOException e) {
+            throw new PGPKeyUnavailable(String.format("PGP key %s not found in cache and local key servers "
+                    + "- offline mode", keyID), e);
         }
     }
 
@@ -185,8 +606,45 @@ public class PGPKeysCache {
         return keyRing;
     }
 
-    private static PGPPublicKeyRing receiveKey(File keyFile, PGPKeyId keyId, PGPKeysServerClient keysServerClient)
+    private static byte[] encodeKeyRing(PGPPublicKeyRing keyRing) throws IOException {
+
+        ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new ArmoredOutputStream(keyBytes)) {
+            keyRing.encode(outputStream);
+        }
+        return keyBytes.toByteArray();
+    }
+
+    static void storeKeyRing(File keyFile, byte[] keyRingBytes) throws IOException {
+
+        prepareKeyDir(keyFile);
+
+        File partFile = File.createTempFile(keyFile.getName(), "pgp-public-key");
+        try {
+            Files.write(partFile.toPath(), keyRingBytes);
+            moveFile(partFile, keyFile);
+        } finally {
+            deleteFile(partFile);
+        }
+    }
+
+    private static PGPPublicKeyRing receiveKey(File keyFile, PGPKeyId keyId, PGPKeysProvider keysServerClient)
             throws IOException {
+
+        prepareKeyDir(keyFile);
+
+        // key file is replaced only by received key, so nothing to remove on error
+        PGPPublicKeyRing keyRing = keysServerClient.fetchKey(keyId, keyFileWriter(keyFile, keyId),
+                PGPKeysCache::onRetry)
+                .orElseThrow(() -> new IOException(String.format("Can't find public key %s in download file: %s",
+                        keyId, keyFile)));
+
+        LOGGER.info("Receive key: {}{}\tto {}", keysServerClient.getUriForGetKey(keyId), NL, keyFile);
+
+        return keyRing;
+    }
+
+    private static void prepareKeyDir(File keyFile) throws IOException {
         File dir = keyFile.getParentFile();
 
         if (dir == null) {
@@ -201,28 +659,36 @@ public class PGPKeysCache {
         // in multi process mode it can happen that two process check for existing directory
         // in the same time, one create it
         dir.mkdirs();
+    }
 
-        File partFile = File.createTempFile(String.valueOf(keyId), "pgp-public-key");
-
-        try {
-            try (BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(partFile))) {
-                keysServerClient.copyKeyToOutputStream(keyId, outputStream, PGPKeysCache::onRetry);
-            }
-            moveFile(partFile, keyFile);
-        } catch (IOException e) {
-            // if error try remove file
-            deleteFile(keyFile);
-            deleteFile(partFile);
-            throw e;
-        }
+    /**
+     * Processor which parses received key while it is written to cache, so file is not read again.
+     * Key file is replaced only when received data contain requested key.
+     */
+    private static KeyStreamProcessor<Optional<PGPPublicKeyRing>> keyFileWriter(File keyFile, PGPKeyId keyId) {
 
-        LOGGER.info("Receive key: {}{}\tto {}", keysServerClient.getUriForGetKey(keyId), NL, keyFile);
+        return inputStream -> {
+            File partFile = File.createTempFile(String.valueOf(keyId), "pgp-public-key");
+            try {
+                Optional<PGPPublicKeyRing> ret;
+                try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(partFile))) {
+                    InputStream teeInputStream = new TeeInputStream(inputStream, outputStream);
+                    ret = PublicKeyUtils.loadPublicKeyRing(teeInputStream, keyId);
+                    // store also rest of response
+                    ByteStreams.exhaust(teeInputStream);
+                }
 
-        // try load key
-        return loadKeyFromFile(keyFile, keyId)
-                .orElseThrow(() ->
-                        new IOException(String.format("Can't find public key %s in download file: %s",
-                                keyId, keyFile)));
+                if (ret.isPresent()) {
+                    synchronized (LOCK) {
+                        prepareKeyDir(keyFile);
+                        moveFile(partFile, keyFile);
+                    }
+                }
+                return ret;
+            } finally {
+                deleteFile(partFile);
+            }
+        };
     }
 
     private static void onRetry(InetAddress address, int numberOfRetryAttempts, Duration waitInterval,
@@ -257,7 +723,7 @@ public class PGPKeysCache {
 
     @FunctionalInterface
     interface KeyServerExecutor {
-        PGPPublicKeyRing run(PGPKeysServerClient client) throws IOException;
+        PGPPublicKeyRing run(PGPKeysProvider client) throws IOException;
     }
 
     /**
@@ -265,11 +731,11 @@ public class PGPKeysCache {
      */
     abstract static class KeyServerList {
 
-        protected List<PGPKeysServerClient> keysServerClients = new ArrayList<>();
-        protected PGPKeysServerClient lastClient;
+        protected List<PGPKeysProvider> keysServerClients = new ArrayList<>();
+        protected PGPKeysProvider lastClient;
         protected IOException lastException;
 
-        KeyServerList withClients(List<PGPKeysServerClient> keysServerClients) {
+        KeyServerList withClients(List<PGPKeysProvider> keysServerClients) {
             this.keysServerClients = keysServerClients;
             this.lastClient = keysServerClients.get(0);
             return this;
@@ -279,7 +745,18 @@ public class PGPKeysCache {
             return lastClient.getUriForShowKey(keyID);
         }
 
-        protected Optional<PGPPublicKeyRing> executeWithClient(KeyServerExecutor executor, PGPKeysServerClient client) {
+        /**
+         * Clients used for receiving keys in batch, the last used client is first, next are fallback
+         * for keys which were not received.
+         */
+        List<PGPKeysProvider> getClientsForBatch() {
+            List<PGPKeysProvider> ret = new ArrayList<>(keysServerClients.size());
+            ret.add(lastClient);
+            keysServerClients.stream().filter(client -> client != lastClient).forEach(ret::add);
+            return ret;
+        }
+
+        protected Optional<PGPPublicKeyRing> executeWithClient(KeyServerExecutor executor, PGPKeysProvider client) {
             try {
                 Optional<PGPPublicKeyRing> ret = Optional.of(executor.run(client));
                 lastClient = client;
@@ -335,7 +812,7 @@ public class PGPKeysCache {
         @Override
         PGPPublicKeyRing execute(KeyServerExecutor executor) throws IOException {
 
-            for (PGPKeysServerClient client : keysServerClients) {
+            for (PGPKeysProvider client : keysServerClients) {
                 Optional<PGPPublicKeyRing> pgpPublicKeys = executeWithClient(executor, client);
                 if (pgpPublicKeys.isPresent()) {
                     return pgpPublicKeys.get();
@@ -364,7 +841,7 @@ public class PGPKeysCache {
 
             for (int i = 0; i < keysServerClients.size(); i++) {
 
-                PGPKeysServerClient client = keysServerClients.get(lastIndex);
+                PGPKeysProvider client = keysServerClients.get(lastIndex);
                 lastIndex = (lastIndex + 1) % keysServerClients.size();
                 Optional<PGPPublicKeyRing> pgpPublicKeys = executeWithClient(executor, client);
                 if (pgpPublicKeys.isPresent()) {
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.google.common.io.ByteStreams;
+import io.vavr.control.Try;
+import org.apache.maven.settings.Proxy;
+import org.bouncycastle.openpgp.PGPException;
+import org.simplify4u.plugins.utils.PGPKeyId;
+
+/**
+ * Source of PGP keys - remote key server or local keys mirror.
+ *
+ * @author Slawomir Jaranowski.
+ */
+interface PGPKeysProvider {
+
+    @FunctionalInterface
+    interface OnRetryConsumer {
+        void onRetry(InetAddress address, int numberOfRetryAttempts, Duration waitInterval, Throwable lastThrowable);
+    }
+
+    /**
+     * Processor of key response body.
+     *
+     * @param <T> type of processing result
+     */
+    @FunctionalInterface
+    interface KeyStreamProcessor<T> {
+        T process(InputStream inputStream) throws IOException, PGPException;
+    }
+
+    /**
+     * Create a PGP keys provider for a given URL.
+     *
+     * @param keyServer
+     *         The key server address / URL.
+     * @param proxy
+     *         the proxy server to use (if any)
+     *
+     * @return The right PGP keys provider for the given address.
+     *
+     * @throws IOException
+     *         If some problem during provider create.
+     */
+    static PGPKeysProvider getProvider(String keyServer, Proxy proxy) throws IOException {
+        return getProvider(keyServer, proxy, KeyServerClientSettings.builder().build());
+    }
+
+    /**
+     * Create a PGP keys provider for a given URL.
+     *
+     * @param keyServer
+     *         The key server address / URL.
+     * @param proxy
+     *         proxy server config
+     * @param settings
+     *         The client configuration - timeouts and retries.
+     *
+     * @return The right PGP keys provider for the given address.
+     *
+     * @throws IOException
+     *         If some problem during provider create.
+     */
+    static PGPKeysProvider getProvider(String keyServer, Proxy proxy, KeyServerClientSettings settings)
+            throws IOException {
+        final URI uri = Try.of(() -> new URI(keyServer))
+                .getOrElseThrow((Function<Throwable, IOException>) IOException::new);
+
+        final String protocol = uri.getScheme().toLowerCase(Locale.ROOT);
+
+        switch (protocol) {
+            case "hkp":
+            case "http":
+                return new PGPKeysServerClientHttp(uri, proxy, settings);
+
+            case "hkps":
+            case "https":
+                return new PGPKeysServerClientHttps(uri, proxy, settings);
+
+            case "vks":
+            case "vks+http":
+                return new PGPKeysServerClientVks(uri, proxy, settings);
+
+            case "file":
+                return new PGPKeysServerClientFile(uri, settings);
+
+            default:
+                throw new IOException("Unsupported protocol: " + protocol);
+        }
+    }
+
+    /**
+     * Create URI for key download.
+     *
+     * @param keyID
+     *         key ID
+     *
+     * @return URI with given key
+     */
+    URI getUriForGetKey(PGPKeyId keyID);
+
+    /**
+     * Create URI for key lookup.
+     *
+     * @param keyID
+     *         key ID
+     *
+     * @return URI with given key
+     */
+    URI getUriForShowKey(PGPKeyId keyID);
+
+    /**
+     * Requests the PGP key with the specified key ID and pass its content to processor.
+     *
+     * <p>Content is limited to configured maximum key size. Processor can be called many times
+     * when request is retried, so it should start processing from beginning on each call.
+     *
+     * @param keyId
+     *         The ID of the key to request.
+     * @param processor
+     *         The processor of key content.
+     * @param onRetryConsumer
+     *         The consumer which will be call on retry occurs
+     * @param <T>
+     *         type of processing result
+     *
+     * @return result of processor
+     *
+     * @throws IOException
+     *         If the request fails, or the key cannot be processed.
+     */
+    <T> T fetchKey(PGPKeyId keyId, KeyStreamProcessor<T> processor, OnRetryConsumer onRetryConsumer)
+            throws IOException;
+
+    /**
+     * Requests many keys, each received key is passed to processor created for it.
+     * Failure of one key does not break others.
+     *
+     * @param keyIds
+     *         The IDs of the keys to request.
+     * @param processors
+     *         Factory of processor for content of each key.
+     * @param onRetryConsumer
+     *         The consumer which will be call on retry occurs
+     * @param <T>
+     *         type of processing result
+     *
+     * @return result of processing or failure for each requested key, in order of requested keys
+     */
+    <T> Map<PGPKeyId, Try<T>> fetchKeys(Collection<PGPKeyId> keyIds,
+            Function<PGPKeyId, KeyStreamProcessor<T>> processors, OnRetryConsumer onRetryConsumer);
+
+    /**
+     * Prepare provider for next requests, eg. open connection to key server.
+     *
+     * @throws IOException
+     *         If provider can not be prepared.
+     */
+    void prewarm() throws IOException;
+
+    /**
+     * Requests the PGP key with the specified key ID and copies it to the specified output stream.
+     *
+     * @param keyId
+     *         The ID of the key to request.
+     * @param outputStream
+     *         The output stream to which the key will be written.
+     * @param onRetryConsumer
+     *         The consumer which will be call on retry occurs
+     *
+     * @throws IOException
+     *         If the request fails, or the key cannot be written to the output stream.
+     */
+    default void copyKeyToOutputStream(PGPKeyId keyId, OutputStream outputStream, OnRetryConsumer onRetryConsumer)
+            throws IOException {
+
+        fetchKey(keyId, inputStream -> ByteStreams.copy(inputStream, outputStream), onRetryConsumer);
+    }
+}
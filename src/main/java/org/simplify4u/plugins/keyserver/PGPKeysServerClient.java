@@ -17,145 +17,133 @@ package org.simplify4u.plugins.keyserver;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
-import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import io.github.resilience4j.core.IntervalFunction;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
 import io.github.resilience4j.retry.event.RetryEvent;
-import io.vavr.CheckedRunnable;
+import io.vavr.CheckedFunction0;
 import io.vavr.control.Try;
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpInetConnection;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateInputStream;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.ProxyAuthenticationStrategy;
 import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.maven.settings.Proxy;
+import org.bouncycastle.openpgp.PGPException;
 import org.simplify4u.plugins.utils.ExceptionUtils;
 import org.simplify4u.plugins.utils.PGPKeyId;
 
 /**
  * Abstract base client for requesting keys from PGP key servers over HKP/HTTP and HKPS/HTTPS.
  */
-abstract class PGPKeysServerClient {
+abstract class PGPKeysServerClient implements PGPKeysProvider {
 
     private final Proxy proxy;
 
-    @FunctionalInterface
-    public interface OnRetryConsumer {
-        void onRetry(InetAddress address, int numberOfRetryAttempts, Duration waitInterval, Throwable lastThrowable);
-    }
+    private static final Duration CONNECTION_TIME_TO_LIVE = Duration.ofMinutes(2);
+    private static final Duration CONNECTION_VALIDATE_AFTER_INACTIVITY = Duration.ofSeconds(2);
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 4;
+
+    private static final Map<List<Object>, HttpClientConnectionManager> CONNECTION_MANAGERS = new HashMap<>();
+
+    // concurrent requests are limited by number of connections to one server
+    private static final ExecutorService BATCH_EXECUTOR = Executors.newFixedThreadPool(MAX_CONNECTIONS_PER_ROUTE,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("pgpverify-fetch-%d").build());
+
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
 
-    private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
-    private static final int DEFAULT_READ_TIMEOUT = 20000;
-    public static final int DEFAULT_MAX_RETRIES = 10;
+    // not defined in HttpStatus
+    private static final int SC_TOO_MANY_REQUESTS = 429;
 
     private static final List<Class<? extends Throwable>> IGNORE_EXCEPTION_FOR_RETRY =
-            Arrays.asList(PGPKeyNotFound.class, UnknownHostException.class);
+            Arrays.asList(PGPKeyNotFound.class, PGPKeyTooLarge.class, PGPException.class,
+                    UnknownHostException.class, PGPKeyUnavailable.class, InterruptedIOException.class);
 
     private final URI keyserver;
     private final int connectTimeout;
     private final int readTimeout;
     private final int maxAttempts;
+    private final long maxKeySize;
+    private final KeyFetchBudget fetchBudget;
+    private final KeyFetchStatistics fetchStatistics;
+    private final KeyServerRateLimiter rateLimiter;
+
+    private volatile HttpClientConnectionManager connectionManager;
 
     /**
      * Protected constructor for {@code PGPKeysServerClient}.
      *
      * @param keyserver
      *         The URI of the target key server.
-     * @param connectTimeout
-     *         The timeout (in milliseconds) that the client should wait to establish a connection to
-     *         the PGP server.
-     * @param readTimeout
-     *         The timeout (in milliseconds) that the client should wait for data from the PGP server.
-     * @param maxAttempts
-     *         The maximum number of automatically retry request by client
-     *
-     * @see #getClient(String, Proxy)
-     * @see #getClient(String, Proxy, int, int, int)
+     * @param proxy
+     *         The proxy server to use (if any)
+     * @param settings
+     *         The client configuration - timeouts and retries.
+     *
+     * @see PGPKeysProvider#getProvider(String, Proxy, KeyServerClientSettings)
      */
-    protected PGPKeysServerClient(URI keyserver, int connectTimeout, int readTimeout, int maxAttempts, Proxy proxy) {
+    protected PGPKeysServerClient(URI keyserver, Proxy proxy, KeyServerClientSettings settings) {
         this.keyserver = keyserver;
-        this.connectTimeout = connectTimeout;
-        this.readTimeout = readTimeout;
-        this.maxAttempts = maxAttempts;
+        this.connectTimeout = settings.getConnectTimeout();
+        this.readTimeout = settings.getReadTimeout();
+        this.maxAttempts = settings.getMaxAttempts();
+        this.maxKeySize = settings.getMaxKeySize();
+        this.fetchBudget = settings.getFetchBudget();
+        this.fetchStatistics = settings.getFetchStatistics();
+        this.rateLimiter = KeyServerRateLimiter.forKeyServer(keyserver, settings.getRateLimit());
         this.proxy = proxy;
     }
 
-    /**
-     * Create a PGP key server client for a given URL.
-     *
-     * @param keyServer
-     *         The key server address / URL.
-     *
-     * @param proxy the proxy server to use (if any)
-     * @return The right PGP client for the given address.
-     */
-    static PGPKeysServerClient getClient(String keyServer, Proxy proxy) throws IOException {
-        return getClient(keyServer, proxy, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_MAX_RETRIES);
-    }
-
-    /**
-     * Create a PGP key server for a given URL.
-     *
-     * @param keyServer
-     *         The key server address / URL.
-     * @param proxy proxy server config
-     * @param connectTimeout
-     *         The timeout (in milliseconds) that the client should wait to establish a connection to
-     *         the PGP server.
-     * @param readTimeout
-     *         The timeout (in milliseconds) that the client should wait for data from the PGP server.
-     * @param maxAttempts
-     *         The maximum number of automatically retry request by client
-     *
-     * @return The right PGP client for the given address.
-     *
-     * @throws IOException
-     *         If some problem during client create.
-     */
-    static PGPKeysServerClient getClient(String keyServer, Proxy proxy,
-            int connectTimeout, int readTimeout, int maxAttempts) throws IOException {
-        final URI uri = Try.of(() -> new URI(keyServer))
-                .getOrElseThrow((Function<Throwable, IOException>) IOException::new);
-
-        final String protocol = uri.getScheme().toLowerCase(Locale.ROOT);
-
-        switch (protocol) {
-            case "hkp":
-            case "http":
-                return new PGPKeysServerClientHttp(uri, connectTimeout, readTimeout, maxAttempts, proxy);
-
-            case "hkps":
-            case "https":
-                return new PGPKeysServerClientHttps(uri, connectTimeout, readTimeout, maxAttempts, proxy);
-
-            default:
-                throw new IOException("Unsupported protocol: " + protocol);
-        }
-    }
-
     private static String getQueryStringForGetKey(PGPKeyId keyID) {
         return String.format("op=get&options=mr&search=%s", keyID);
     }
@@ -168,10 +156,9 @@ abstract class PGPKeysServerClient {
      *
      * @return URI with given key
      */
-    URI getUriForGetKey(PGPKeyId keyID) {
-        return Try.of(() -> new URI(keyserver.getScheme(), keyserver.getUserInfo(),
-                keyserver.getHost(), keyserver.getPort(),
-                "/pks/lookup", getQueryStringForGetKey(keyID), null)).get();
+    @Override
+    public URI getUriForGetKey(PGPKeyId keyID) {
+        return getUri("/pks/lookup", getQueryStringForGetKey(keyID));
     }
 
     private static String getQueryStringForShowKey(PGPKeyId keyID) {
@@ -186,35 +173,56 @@ abstract class PGPKeysServerClient {
      *
      * @return URI with given key
      */
-    URI getUriForShowKey(PGPKeyId keyID) {
+    @Override
+    public URI getUriForShowKey(PGPKeyId keyID) {
+        return getUri("/pks/lookup", getQueryStringForShowKey(keyID));
+    }
+
+    /**
+     * Create URI on key server.
+     *
+     * @param path
+     *         path on server
+     * @param query
+     *         query string, can be null
+     *
+     * @return URI on current key server
+     */
+    protected URI getUri(String path, String query) {
         return Try.of(() -> new URI(keyserver.getScheme(), keyserver.getUserInfo(),
-                keyserver.getHost(), keyserver.getPort(),
-                "/pks/lookup", getQueryStringForShowKey(keyID), null)).get();
+                keyserver.getHost(), keyserver.getPort(), path, query, null)).get();
     }
 
     /**
-     * Requests the PGP key with the specified key ID from the server and copies it to the specified
-     * output stream.
+     * Requests the PGP key with the specified key ID from the server and pass response body to processor.
      *
-     * <p>If the request fails due to connectivity issues or server load, the request will be
-     * retried automatically according to the configuration of the provided retry handler. If the
-     * request still fails after exhausting retries, the final exception will be re-thrown.
+     * <p>Response body is limited to configured maximum key size. Processor can be called many times
+     * when request is retried, so it should start processing from beginning on each call.
      *
      * @param keyId
      *         The ID of the key to request from the server.
-     * @param outputStream
-     *         The output stream to which the key will be written.
+     * @param processor
+     *         The processor of response body.
      * @param onRetryConsumer
      *         The consumer which will be call on retry occurs
+     * @param <T>
+     *         type of processing result
+     *
+     * @return result of processor
      *
      * @throws IOException
-     *         If the request fails, or the key cannot be written to the output stream.
+     *         If the request fails, or the key cannot be processed.
      */
-    void copyKeyToOutputStream(PGPKeyId keyId, OutputStream outputStream, OnRetryConsumer onRetryConsumer)
+    @Override
+    public <T> T fetchKey(PGPKeyId keyId, KeyStreamProcessor<T> processor, OnRetryConsumer onRetryConsumer)
             throws IOException {
 
+        fetchBudget.start();
+
         final URI keyUri = getUriForGetKey(keyId);
         final HttpUriRequest request = new HttpGet(keyUri);
+        // armored keys are text - compression is handled by us in order to count transferred bytes
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
 
         // use one instance of planer in order to remember failed hosts
         final HttpRoutePlanner planer = proxy == null ? new RoundRobinRouterPlaner() : getNewProxyRoutePlanner();
@@ -223,7 +231,7 @@ abstract class PGPKeysServerClient {
                 .maxAttempts(maxAttempts)
                 .waitDuration(Duration.ofMillis(500))
                 .intervalFunction(IntervalFunction.ofExponentialBackoff())
-                .retryOnException(PGPKeysServerClient::shouldRetryOnException)
+                .retryOnException(e -> shouldRetryOnException(e) && fetchBudget.tryAcquireRetry())
                 .build();
 
         Retry retry = Retry.of("id", config);
@@ -232,22 +240,115 @@ abstract class PGPKeysServerClient {
                 .onRetry(event -> processOnRetry(event, event.getWaitInterval(), planer, onRetryConsumer))
                 .onError(event -> processOnRetry(event, Duration.ZERO, planer, onRetryConsumer));
 
-        CheckedRunnable checkedRunnable = Retry.decorateCheckedRunnable(retry, () -> {
+        CheckedFunction0<T> checkedSupplier = Retry.decorateCheckedSupplier(retry, () -> {
+            rateLimiter.acquire(fetchBudget);
+            final HttpClientContext context = HttpClientContext.create();
+            long requestStart = System.nanoTime();
             try (final CloseableHttpClient client = this.buildClient(planer);
-                 final CloseableHttpResponse response = client.execute(request)) {
-                processKeyResponse(response, outputStream);
+                 final CloseableHttpResponse response = client.execute(request, context)) {
+                processOnResponse(planer, context, Duration.ofNanos(System.nanoTime() - requestStart));
+                return processKeyResponse(response, processor);
             }
         });
 
         try {
-            checkedRunnable.run();
+            return checkedSupplier.apply();
         } catch (PGPKeyNotFound e) {
             throw new PGPKeyNotFound("PGP server returned an error: HTTP/1.1 404 Not Found for: " + keyUri);
+        } catch (PGPKeyUnavailable e) {
+            throw new PGPKeyUnavailable(e.getMessage() + " for: " + keyUri, e);
         } catch (Throwable e) {
             throw new IOException(ExceptionUtils.getMessage(e) + " for: " + keyUri, e);
         }
     }
 
+    /**
+     * Requests many keys from the server, each received key is passed to processor created for it.
+     *
+     * <p>Default implementation uses single lookup for each key, lookups are executed concurrently
+     * on pooled connections. Clients for servers which support bulk requests can override it.
+     * Failure of one key does not break others.
+     *
+     * @param keyIds
+     *         The IDs of the keys to request from the server.
+     * @param processors
+     *         Factory of processor for response body of each key.
+     * @param onRetryConsumer
+     *         The consumer which will be call on retry occurs
+     * @param <T>
+     *         type of processing result
+     *
+     * @return result of processing or failure for each requested key, in order of requested keys
+     */
+    @Override
+    public <T> Map<PGPKeyId, Try<T>> fetchKeys(Collection<PGPKeyId> keyIds,
+            Function<PGPKeyId, KeyStreamProcessor<T>> processors, OnRetryConsumer onRetryConsumer) {
+
+        Map<PGPKeyId, Future<T>> futures = new LinkedHashMap<>();
+        for (PGPKeyId keyId : keyIds) {
+            futures.put(keyId, BATCH_EXECUTOR.submit(() ->
+                    fetchKey(keyId, processors.apply(keyId), onRetryConsumer)));
+        }
+
+        Map<PGPKeyId, Try<T>> ret = new LinkedHashMap<>();
+        futures.forEach((keyId, future) -> ret.put(keyId, Try.of(() -> Uninterruptibles.getUninterruptibly(future))
+                .recoverWith(ExecutionException.class, e -> Try.failure(e.getCause()))));
+        return ret;
+    }
+
+    /**
+     * Open connection to key server and keep it in connection pool for next requests.
+     * <p>
+     * Key server address is resolved, connection with TLS handshake is established and connect time
+     * is remembered as initial latency of address. Nothing is done when proxy is used.
+     *
+     * @throws IOException
+     *         If connection can not be established.
+     */
+    @Override
+    public void prewarm() throws IOException {
+
+        if (proxy != null) {
+            return;
+        }
+
+        HttpClientConnectionManager manager = getConnectionManager();
+
+        RoundRobinRouterPlaner planer = new RoundRobinRouterPlaner();
+        HttpClientContext context = HttpClientContext.create();
+
+        try {
+            HttpRoute route = planer.determineRoute(URIUtils.extractHost(keyserver), null, context);
+
+            long connectStart = System.nanoTime();
+            HttpClientConnection connection = manager.requestConnection(route, null)
+                    .get(connectTimeout, TimeUnit.MILLISECONDS);
+            boolean reusable = false;
+            try {
+                if (!connection.isOpen()) {
+                    manager.connect(connection, route, connectTimeout, context);
+                    manager.routeComplete(connection, route, context);
+                }
+
+                InetAddress remoteAddress = connection instanceof HttpInetConnection
+                        ? ((HttpInetConnection) connection).getRemoteAddress() : null;
+                planer.lastRouteSuccess(remoteAddress, Duration.ofNanos(System.nanoTime() - connectStart));
+                reusable = true;
+            } finally {
+                if (!reusable) {
+                    Try.run(connection::close);
+                }
+                manager.releaseConnection(connection, null,
+                        CONNECTION_TIME_TO_LIVE.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (HttpException | ExecutionException e) {
+            throw new IOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Prewarm of " + keyserver + " was interrupted");
+        }
+    }
+
     private HttpRoutePlanner getNewProxyRoutePlanner() {
         HttpHost httpHost = new HttpHost(proxy.getHost(), proxy.getPort());
         return new DefaultProxyRoutePlanner(httpHost);
@@ -284,31 +385,55 @@ abstract class PGPKeysServerClient {
         }
     }
 
+    private static void processOnResponse(HttpRoutePlanner planer, HttpClientContext context, Duration latency) {
+        if (planer instanceof RoundRobinRouterPlaner) {
+            // connection can be established to other address than planed on route
+            InetAddress remoteAddress = Try.of(() -> context.getConnection(HttpInetConnection.class).getRemoteAddress())
+                    .getOrElse((InetAddress) null);
+
+            // inform planer about response time on last route
+            ((RoundRobinRouterPlaner) planer).lastRouteSuccess(remoteAddress, latency);
+        }
+    }
+
     protected abstract HttpClientBuilder createClientBuilder();
 
     // abstract methods to implemented in child class.
 
 
     /**
-     * Verify that the provided response was successful, and then copy the response to the given
-     * output buffer.
+     * Verify that the provided response was successful, and then pass the decompressed response body,
+     * limited to maximum key size, to the given processor.
      *
      * <p>If the response was not successful (e.g. not a "200 OK") status code, or the response
      * payload was empty, an {@link IOException} will be thrown.
      *
+     * <p>When server is overloaded ("429 Too Many Requests" or "503 Service Unavailable") next requests
+     * to the server are paused for time from <code>Retry-After</code> header.
+     *
      * @param response
      *         A representation of the response from the server.
-     * @param outputStream
-     *         The stream to which the response data will be written.
+     * @param processor
+     *         The processor of response data.
+     *
+     * @return result of processor
      *
      * @throws IOException
-     *         If the response was unsuccessful, did not contain any data, or could not be written
-     *         completely to the target output stream.
+     *         If the response was unsuccessful, did not contain any data, was too large
+     *         or could not be processed.
      */
-    private static void processKeyResponse(CloseableHttpResponse response, OutputStream outputStream)
-            throws IOException {
+    private <T> T processKeyResponse(CloseableHttpResponse response, KeyStreamProcessor<T> processor)
+            throws IOException, PGPException {
         final StatusLine statusLine = response.getStatusLine();
 
+        if (statusLine.getStatusCode() == SC_TOO_MANY_REQUESTS
+                || statusLine.getStatusCode() == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+            Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+            KeyServerRateLimiter.parseRetryAfter(retryAfter != null ? retryAfter.getValue() : null,
+                    System.currentTimeMillis())
+                    .ifPresent(rateLimiter::pauseFor);
+        }
+
         if (statusLine.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
             throw new PGPKeyNotFound();
         }
@@ -318,16 +443,66 @@ abstract class PGPKeysServerClient {
 
             if (responseEntity == null) {
                 throw new IOException("No response body returned.");
-            } else {
-                try (InputStream inputStream = responseEntity.getContent()) {
-                    ByteStreams.copy(inputStream, outputStream);
-                }
+            }
+
+            if (responseEntity.getContentLength() > maxKeySize) {
+                throw new PGPKeyTooLarge("Key server response size: " + responseEntity.getContentLength()
+                        + " exceeds maximum allowed size: " + maxKeySize + " bytes");
+            }
+
+            CountingInputStream transferredStream = new CountingInputStream(
+                    new SizeLimitInputStream(responseEntity.getContent(), maxKeySize));
+
+            try (CountingInputStream keyStream = new CountingInputStream(new SizeLimitInputStream(
+                    decodeContent(transferredStream, responseEntity.getContentEncoding()), maxKeySize))) {
+
+                T ret = processor.process(keyStream);
+                fetchStatistics.addKey(transferredStream.getCount(), keyStream.getCount());
+                return ret;
             }
         } else {
             throw new IOException("PGP server returned an error: " + statusLine);
         }
     }
 
+    /**
+     * Wrap response stream by decompressing stream according to content encoding.
+     *
+     * @param inputStream
+     *         The response stream.
+     * @param contentEncoding
+     *         The content encoding header of response, can be null.
+     *
+     * @return stream with decoded content
+     *
+     * @throws IOException
+     *         If content encoding is not supported or stream can not be read.
+     */
+    static InputStream decodeContent(InputStream inputStream, Header contentEncoding) throws IOException {
+
+        if (contentEncoding == null) {
+            return inputStream;
+        }
+
+        String encoding = contentEncoding.getValue().trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "":
+            case "identity":
+                return inputStream;
+
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(inputStream);
+
+            case "deflate":
+                // handle both zlib and raw deflate streams
+                return new DeflateInputStream(inputStream);
+
+            default:
+                throw new IOException("Unsupported content encoding: " + encoding);
+        }
+    }
+
     /**
      * Build an HTTP client with the given router planer.
      *
@@ -343,6 +518,7 @@ abstract class PGPKeysServerClient {
 
         this.applyTimeouts(clientBuilder);
         clientBuilder.setRoutePlanner(planer);
+        clientBuilder.disableContentCompression();
 
         return clientBuilder.build();
     }
@@ -365,6 +541,76 @@ abstract class PGPKeysServerClient {
         builder.setDefaultRequestConfig(requestConfig);
     }
 
+    /**
+     * Socket factory used for secure connections, also for redirects from plain http.
+     *
+     * @return socket factory for https connections
+     */
+    protected abstract LayeredConnectionSocketFactory getSecureSocketFactory();
+
+    /**
+     * Connection manager for this client, created on first usage.
+     * <p>
+     * Connection manager is shared by all clients with the same socket factories, so connections
+     * and TLS sessions are reused by next requests also from next modules of the build.
+     * When proxy is not used connections are raced to many addresses of key server.
+     *
+     * @return shared connection manager
+     */
+    protected HttpClientConnectionManager getConnectionManager() {
+
+        HttpClientConnectionManager ret = connectionManager;
+        if (ret == null) {
+            LayeredConnectionSocketFactory sslSocketFactory = getSecureSocketFactory();
+            synchronized (CONNECTION_MANAGERS) {
+                ret = CONNECTION_MANAGERS.computeIfAbsent(
+                        Arrays.asList(sslSocketFactory, this.proxy == null),
+                        k -> createConnectionManager(sslSocketFactory, this.proxy == null));
+            }
+            connectionManager = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Setup shared connection manager for this client.
+     *
+     * @param clientBuilder
+     *         The client builder to which connection manager will be applied.
+     *
+     * @return the same client builder
+     *
+     * @see #getConnectionManager()
+     */
+    protected HttpClientBuilder setupConnectionManager(HttpClientBuilder clientBuilder) {
+        return clientBuilder
+                .setConnectionManager(getConnectionManager())
+                .setConnectionManagerShared(true);
+    }
+
+    private static HttpClientConnectionManager createConnectionManager(
+            LayeredConnectionSocketFactory sslSocketFactory, boolean raceConnections) {
+
+        ConnectionSocketFactory plainSocketFactory = PlainConnectionSocketFactory.getSocketFactory();
+        ConnectionSocketFactory secureSocketFactory = sslSocketFactory;
+
+        if (raceConnections) {
+            plainSocketFactory = new HappyEyeballsSocketFactory(plainSocketFactory);
+            secureSocketFactory = new HappyEyeballsSocketFactory(secureSocketFactory);
+        }
+
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", plainSocketFactory)
+                .register("https", secureSocketFactory)
+                .build();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                socketFactoryRegistry, null, null, null, CONNECTION_TIME_TO_LIVE.toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        connectionManager.setValidateAfterInactivity((int) CONNECTION_VALIDATE_AFTER_INACTIVITY.toMillis());
+        return connectionManager;
+    }
+
     protected HttpClientBuilder setupProxy(HttpClientBuilder clientBuilder) {
         if (this.proxy == null) {
             return clientBuilder;
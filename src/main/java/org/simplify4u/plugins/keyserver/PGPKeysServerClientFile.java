@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import io.vavr.control.Try;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPUtil;
+import org.bouncycastle.openpgp.operator.bc.BcKeyFingerprintCalculator;
+import org.simplify4u.plugins.utils.PGPKeyId;
+
+/**
+ * Implementation of a client for reading keys from local file system.
+ * <p>
+ * Uri can point to:
+ * <ul>
+ *     <li>directory - mirror of keys with the same layout as keys cache</li>
+ *     <li>file - exported keyring with many keys</li>
+ * </ul>
+ */
+class PGPKeysServerClientFile implements PGPKeysProvider {
+
+    private final File keysPath;
+    private final long maxKeySize;
+
+    private PGPPublicKeyRingCollection keyRingCollection;
+
+    PGPKeysServerClientFile(URI uri, KeyServerClientSettings settings) throws IOException {
+
+        this.keysPath = Try.of(() -> new File(uri))
+                .getOrElseThrow(e -> new IOException("Wrong path for key server: " + uri, e));
+        this.maxKeySize = settings.getMaxKeySize();
+
+        if (!keysPath.exists()) {
+            throw new IOException("Path for key server not exist: " + keysPath);
+        }
+    }
+
+    @Override
+    public URI getUriForGetKey(PGPKeyId keyID) {
+        if (keysPath.isDirectory()) {
+            return new File(keysPath, keyID.getHashPath()).toURI();
+        }
+        return keysPath.toURI();
+    }
+
+    @Override
+    public URI getUriForShowKey(PGPKeyId keyID) {
+        return getUriForGetKey(keyID);
+    }
+
+    @Override
+    public <T> T fetchKey(PGPKeyId keyId, KeyStreamProcessor<T> processor, OnRetryConsumer onRetryConsumer)
+            throws IOException {
+
+        try (InputStream inputStream = new SizeLimitInputStream(openKey(keyId), maxKeySize)) {
+            return processor.process(inputStream);
+        } catch (PGPKeyNotFound e) {
+            throw new PGPKeyNotFound("PGP key not found for: " + getUriForGetKey(keyId));
+        } catch (PGPException e) {
+            throw new IOException(e.getMessage() + " for: " + getUriForGetKey(keyId), e);
+        }
+    }
+
+    /**
+     * Keyring file is read once for all requested keys, keys from mirror directory are read one by one,
+     * there are no benefits from concurrent access to local files.
+     */
+    @Override
+    public <T> Map<PGPKeyId, Try<T>> fetchKeys(Collection<PGPKeyId> keyIds,
+            Function<PGPKeyId, KeyStreamProcessor<T>> processors, OnRetryConsumer onRetryConsumer) {
+
+        Map<PGPKeyId, Try<T>> ret = new LinkedHashMap<>();
+
+        if (!keysPath.isDirectory()) {
+            Try<PGPPublicKeyRingCollection> collection = Try.of(this::getKeyRingCollection);
+            if (collection.isFailure()) {
+                IOException e = new IOException(collection.getCause().getMessage() + " for: " + keysPath.toURI(),
+                        collection.getCause());
+                keyIds.forEach(keyId -> ret.put(keyId, Try.failure(e)));
+                return ret;
+            }
+        }
+
+        for (PGPKeyId keyId : keyIds) {
+            ret.put(keyId, Try.of(() -> fetchKey(keyId, processors.apply(keyId), onRetryConsumer)));
+        }
+        return ret;
+    }
+
+    @Override
+    public void prewarm() {
+        // nothing to do for local files
+    }
+
+    private InputStream openKey(PGPKeyId keyId) throws IOException, PGPException {
+
+        if (keysPath.isDirectory()) {
+            File keyFile = new File(keysPath, keyId.getHashPath());
+            if (!keyFile.isFile()) {
+                throw new PGPKeyNotFound();
+            }
+            return new FileInputStream(keyFile);
+        }
+
+        PGPPublicKeyRing keyRing = keyId.getKeyRingFromRingCollection(getKeyRingCollection());
+        if (keyRing == null) {
+            throw new PGPKeyNotFound();
+        }
+
+        return new ByteArrayInputStream(keyRing.getEncoded());
+    }
+
+    private synchronized PGPPublicKeyRingCollection getKeyRingCollection() throws IOException, PGPException {
+
+        // keyring is read only once
+        if (keyRingCollection == null) {
+            try (InputStream keyRingStream = PGPUtil.getDecoderStream(new FileInputStream(keysPath))) {
+                keyRingCollection = new PGPPublicKeyRingCollection(keyRingStream, new BcKeyFingerprintCalculator());
+            }
+        }
+        return keyRingCollection;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + keysPath.toURI() + "}";
+    }
+}
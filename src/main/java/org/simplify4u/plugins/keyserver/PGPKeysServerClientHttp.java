@@ -20,6 +20,8 @@ import java.net.URI;
 import java.util.function.Function;
 
 import io.vavr.control.Try;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.maven.settings.Proxy;
 
@@ -28,10 +30,15 @@ import org.apache.maven.settings.Proxy;
  */
 class PGPKeysServerClientHttp extends PGPKeysServerClient {
 
-    protected PGPKeysServerClientHttp(URI keyserver, int connectTimeout, int readTimeout, int maxAttempts, Proxy proxy)
+    private final SSLConnectionSocketFactory sslSocketFactory;
+
+    protected PGPKeysServerClientHttp(URI keyserver, Proxy proxy, KeyServerClientSettings settings)
             throws IOException {
 
-        super(prepareKeyServerURI(keyserver), connectTimeout, readTimeout, maxAttempts, proxy);
+        super(prepareKeyServerURI(keyserver), proxy, settings);
+        // used only for redirects to secure connections
+        this.sslSocketFactory = PGPKeysServerClientHttps.getSslSocketFactory(
+                PGPKeysServerClientHttps.TrustConfig.SYSTEM);
     }
 
     private static URI prepareKeyServerURI(URI keyServer) throws IOException {
@@ -51,8 +58,13 @@ class PGPKeysServerClientHttp extends PGPKeysServerClient {
                 .getOrElseThrow((Function<Throwable, IOException>) IOException::new);
     }
 
+    @Override
+    protected LayeredConnectionSocketFactory getSecureSocketFactory() {
+        return sslSocketFactory;
+    }
+
     @Override
     protected HttpClientBuilder createClientBuilder() {
-        return setupProxy(HttpClientBuilder.create());
+        return setupProxy(setupConnectionManager(HttpClientBuilder.create()));
     }
 }
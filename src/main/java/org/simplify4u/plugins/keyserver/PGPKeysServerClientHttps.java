@@ -16,6 +16,7 @@
 package org.simplify4u.plugins.keyserver;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
@@ -24,11 +25,14 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
+import java.util.EnumMap;
 import java.util.Locale;
+import java.util.Map;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManagerFactory;
 
 import io.vavr.control.Try;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
@@ -38,37 +42,79 @@ import org.apache.maven.settings.Proxy;
  * Implementation of a client for requesting keys from PGP key servers over HKPS/HTTPS.
  */
 class PGPKeysServerClientHttps extends PGPKeysServerClient {
+
+    /**
+     * Trust configurations used by clients.
+     */
+    enum TrustConfig {
+        SYSTEM,
+        SKS_KEYSERVERS
+    }
+
+    // SSL context is created once per JVM, so TLS sessions can be resumed by next connections
+    private static final Map<TrustConfig, SSLConnectionSocketFactory> SSL_SOCKET_FACTORIES =
+            new EnumMap<>(TrustConfig.class);
+
     private final SSLConnectionSocketFactory sslSocketFactory;
 
-    protected PGPKeysServerClientHttps(URI uri, int connectTimeout, int readTimeout, int maxAttempts, Proxy proxy)
+    protected PGPKeysServerClientHttps(URI uri, Proxy proxy, KeyServerClientSettings settings)
             throws IOException {
 
-        super(prepareKeyServerURI(uri), connectTimeout, readTimeout, maxAttempts, proxy);
+        super(prepareKeyServerURI(uri), proxy, settings);
+
+        if (uri.getHost().toLowerCase(Locale.ROOT).endsWith("sks-keyservers.net")) {
+            this.sslSocketFactory = getSslSocketFactory(TrustConfig.SKS_KEYSERVERS);
+        } else {
+            this.sslSocketFactory = getSslSocketFactory(TrustConfig.SYSTEM);
+        }
+    }
+
+    /**
+     * Return socket factory for given trust configuration, shared by all clients.
+     *
+     * @param trustConfig trust configuration
+     *
+     * @return socket factory for secure connections
+     *
+     * @throws IOException if socket factory can not be created
+     */
+    static SSLConnectionSocketFactory getSslSocketFactory(TrustConfig trustConfig) throws IOException {
+
+        synchronized (SSL_SOCKET_FACTORIES) {
+            SSLConnectionSocketFactory socketFactory = SSL_SOCKET_FACTORIES.get(trustConfig);
+            if (socketFactory == null) {
+                socketFactory = createSslSocketFactory(trustConfig);
+                SSL_SOCKET_FACTORIES.put(trustConfig, socketFactory);
+            }
+            return socketFactory;
+        }
+    }
+
+    private static SSLConnectionSocketFactory createSslSocketFactory(TrustConfig trustConfig) throws IOException {
 
-        try {
-            if (uri.getHost().toLowerCase(Locale.ROOT).endsWith("sks-keyservers.net")) {
-                final CertificateFactory cf = CertificateFactory.getInstance("X.509");
-                final Certificate ca = cf.generateCertificate(
-                        getClass().getClassLoader().getResourceAsStream("sks-keyservers.netCA.pem"));
+        if (trustConfig == TrustConfig.SYSTEM) {
+            return SSLConnectionSocketFactory.getSystemSocketFactory();
+        }
 
-                final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (InputStream caStream = PGPKeysServerClientHttps.class.getClassLoader()
+                .getResourceAsStream("sks-keyservers.netCA.pem")) {
 
-                keyStore.load(null, null);
-                keyStore.setCertificateEntry("ca", ca);
+            final CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            final Certificate ca = cf.generateCertificate(caStream);
 
-                final TrustManagerFactory tmf
-                        = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-                tmf.init(keyStore);
+            final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
 
-                final SSLContext context = SSLContext.getInstance("TLS");
-                context.init(null, tmf.getTrustManagers(), null);
+            keyStore.load(null, null);
+            keyStore.setCertificateEntry("ca", ca);
 
-                this.sslSocketFactory
-                        = new SSLConnectionSocketFactory(
-                        context, SSLConnectionSocketFactory.getDefaultHostnameVerifier());
-            } else {
-                this.sslSocketFactory = SSLConnectionSocketFactory.getSystemSocketFactory();
-            }
+            final TrustManagerFactory tmf
+                    = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            tmf.init(keyStore);
+
+            final SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, tmf.getTrustManagers(), null);
+
+            return new SSLConnectionSocketFactory(context, SSLConnectionSocketFactory.getDefaultHostnameVerifier());
         } catch (CertificateException | KeyStoreException | NoSuchAlgorithmException | KeyManagementException e) {
             throw new IOException(e);
         }
@@ -81,8 +127,13 @@ class PGPKeysServerClientHttps extends PGPKeysServerClient {
                         null, null, null)).get();
     }
 
+    @Override
+    protected LayeredConnectionSocketFactory getSecureSocketFactory() {
+        return sslSocketFactory;
+    }
+
     @Override
     protected HttpClientBuilder createClientBuilder() {
-        return setupProxy(HttpClients.custom().setSSLSocketFactory(this.sslSocketFactory));
+        return setupProxy(setupConnectionManager(HttpClients.custom()));
     }
 }
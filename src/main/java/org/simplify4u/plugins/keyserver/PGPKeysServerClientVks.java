@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.function.Function;
+
+import io.vavr.control.Try;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.maven.settings.Proxy;
+import org.simplify4u.plugins.keyserver.PGPKeysServerClientHttps.TrustConfig;
+import org.simplify4u.plugins.utils.PGPKeyId;
+import org.simplify4u.plugins.utils.PGPKeyId.PGPKeyIdFingerprint;
+
+/**
+ * Implementation of a client for requesting keys from
+ * <a href="https://keys.openpgp.org/about/api">Verifying Keyserver (VKS)</a> interface, like keys.openpgp.org.
+ * <p>
+ * Key is requested by fingerprint if it is known, VKS servers return keys without third-party signatures,
+ * so received keys are smaller than from HKP servers.
+ * <p>
+ * Address with <code>vks</code> scheme is accessed over https, <code>vks+http</code> over http.
+ */
+class PGPKeysServerClientVks extends PGPKeysServerClient {
+
+    private static final String VKS_PATH = "/vks/v1/";
+
+    private final SSLConnectionSocketFactory sslSocketFactory;
+
+    protected PGPKeysServerClientVks(URI uri, Proxy proxy, KeyServerClientSettings settings) throws IOException {
+
+        super(prepareKeyServerURI(uri), proxy, settings);
+        this.sslSocketFactory = PGPKeysServerClientHttps.getSslSocketFactory(TrustConfig.SYSTEM);
+    }
+
+    private static URI prepareKeyServerURI(URI keyServer) throws IOException {
+
+        String scheme = "vks+http".equals(keyServer.getScheme().toLowerCase(Locale.ROOT)) ? "http" : "https";
+
+        return Try.of(() -> new URI(scheme, keyServer.getUserInfo(), keyServer.getHost(), keyServer.getPort(),
+                null, null, null))
+                .getOrElseThrow((Function<Throwable, IOException>) IOException::new);
+    }
+
+    @Override
+    public URI getUriForGetKey(PGPKeyId keyID) {
+
+        String path = keyID instanceof PGPKeyIdFingerprint ? "by-fingerprint/" : "by-keyid/";
+        return getUri(VKS_PATH + path + keyIdToHex(keyID), null);
+    }
+
+    @Override
+    public URI getUriForShowKey(PGPKeyId keyID) {
+        return getUri("/search", "q=" + keyIdToHex(keyID));
+    }
+
+    private static String keyIdToHex(PGPKeyId keyID) {
+        // VKS expects hex without prefix
+        return keyID.toString().substring(2);
+    }
+
+    @Override
+    protected LayeredConnectionSocketFactory getSecureSocketFactory() {
+        return sslSocketFactory;
+    }
+
+    @Override
+    protected HttpClientBuilder createClientBuilder() {
+        return setupProxy(setupConnectionManager(HttpClients.custom()));
+    }
+}
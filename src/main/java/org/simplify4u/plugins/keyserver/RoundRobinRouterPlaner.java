@@ -16,8 +16,8 @@
 package org.simplify4u.plugins.keyserver;
 
 import java.net.InetAddress;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,20 +29,32 @@ import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.routing.HttpRoutePlanner;
 import org.apache.http.protocol.HttpContext;
 
+/**
+ * Route planer which choose address of key server from all resolved.
+ * <p>
+ * Addresses failed during current request are skipped,
+ * state of addresses from previous requests is kept in shared {@link KeyServerAddresses}.
+ */
 class RoundRobinRouterPlaner implements HttpRoutePlanner {
 
+    private final KeyServerAddresses keyServerAddresses;
+
     private HttpRoute lastRoute;
     private List<InetAddress> errorAddresses = new ArrayList<>();
 
     public RoundRobinRouterPlaner() {
-        // default constructor
+        this(KeyServerAddresses.getInstance());
+    }
+
+    RoundRobinRouterPlaner(KeyServerAddresses keyServerAddresses) {
+        this.keyServerAddresses = keyServerAddresses;
     }
 
     @Override
     public HttpRoute determineRoute(HttpHost target, HttpRequest request, HttpContext context) throws HttpException {
 
         if (lastRoute == null || !lastRoute.getTargetHost().getHostName().equals(target.getHostName())) {
-            // resolve IPs
+            // resolve IPs, the best first
             List<InetAddress> resolvedAddresses = resolve(target.getHostName());
 
             // filter failed IP
@@ -72,9 +84,9 @@ class RoundRobinRouterPlaner implements HttpRoutePlanner {
      *
      * @return arrays of IP address
      */
-    private static List<InetAddress> resolve(String hostName) throws HttpException {
+    private List<InetAddress> resolve(String hostName) throws HttpException {
 
-        return Try.of(() -> Arrays.asList(InetAddress.getAllByName(hostName)))
+        return Try.of(() -> keyServerAddresses.getOrderedAddresses(hostName))
                 .getOrElseThrow(e -> new HttpException("UnknownHostException: " + hostName, e));
     }
 
@@ -86,9 +98,25 @@ class RoundRobinRouterPlaner implements HttpRoutePlanner {
     public HttpRoute lastRouteCauseError() {
         HttpRoute ret = lastRoute;
         if (lastRoute != null) {
-            errorAddresses.add(lastRoute.getTargetHost().getAddress());
+            InetAddress address = lastRoute.getTargetHost().getAddress();
+            errorAddresses.add(address);
+            keyServerAddresses.markFailure(address);
             lastRoute = null;
         }
         return ret;
     }
+
+    /**
+     * Inform that last route was success.
+     *
+     * @param remoteAddress address to which connection was established, if null address from last route is used
+     * @param latency time to response on last route
+     */
+    public void lastRouteSuccess(InetAddress remoteAddress, Duration latency) {
+        if (remoteAddress != null) {
+            keyServerAddresses.markSuccess(remoteAddress, latency);
+        } else if (lastRoute != null) {
+            keyServerAddresses.markSuccess(lastRoute.getTargetHost().getAddress(), latency);
+        }
+    }
 }
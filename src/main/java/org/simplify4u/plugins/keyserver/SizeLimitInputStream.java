@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream which fails when more than allowed number of bytes is read.
+ * <p>
+ * In opposite to {@link com.google.common.io.ByteStreams#limit(InputStream, long)}
+ * data are not silently truncated.
+ *
+ * @author Slawomir Jaranowski.
+ */
+public class SizeLimitInputStream extends FilterInputStream {
+
+    private final long maxSize;
+    private final String name;
+    private long count;
+
+    SizeLimitInputStream(InputStream in, long maxSize) {
+        this(in, maxSize, null);
+    }
+
+    /**
+     * Create stream for other content than keys.
+     *
+     * @param in      underlying input stream
+     * @param maxSize maximum allowed size in bytes
+     * @param name    description of content used in error message, <code>null</code> for key server response
+     */
+    public SizeLimitInputStream(InputStream in, long maxSize, String name) {
+        super(in);
+        this.maxSize = maxSize;
+        this.name = name;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int ret = super.read();
+        if (ret != -1) {
+            count(1);
+        }
+        return ret;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int ret = super.read(b, off, len);
+        if (ret > 0) {
+            count(ret);
+        }
+        return ret;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long ret = super.skip(n);
+        count(ret);
+        return ret;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) throws IOException {
+        count += n;
+        if (count > maxSize) {
+            if (name == null) {
+                throw new PGPKeyTooLarge("Key server response exceeds maximum allowed size: " + maxSize + " bytes");
+            }
+            throw new IOException(name + " exceeds maximum allowed size: " + maxSize + " bytes");
+        }
+    }
+}
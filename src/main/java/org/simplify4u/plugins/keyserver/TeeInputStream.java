@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Input stream which copies all read bytes to given output stream.
+ *
+ * @author Slawomir Jaranowski.
+ */
+class TeeInputStream extends FilterInputStream {
+
+    private final OutputStream outputStream;
+
+    TeeInputStream(InputStream in, OutputStream outputStream) {
+        super(in);
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int ret = super.read();
+        if (ret != -1) {
+            outputStream.write(ret);
+        }
+        return ret;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int ret = super.read(b, off, len);
+        if (ret > 0) {
+            outputStream.write(b, off, ret);
+        }
+        return ret;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // skipped bytes must be also copied
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        int ret = read(buffer, 0, buffer.length);
+        return Math.max(ret, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
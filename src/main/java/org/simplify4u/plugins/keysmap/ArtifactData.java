@@ -17,7 +17,12 @@ package org.simplify4u.plugins.keysmap;
 
 import java.util.Locale;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 
 /**
  * Store normalized data about artifact.
@@ -28,10 +33,20 @@ import org.apache.maven.artifact.Artifact;
  */
 class ArtifactData {
 
+    private static final int MAX_CACHED_VERSIONS = 10_000;
+
+    /**
+     * Parsed versions shared by all artifacts, the same versions are used by many artifacts.
+     */
+    private static final LoadingCache<String, ArtifactVersion> ARTIFACT_VERSIONS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_VERSIONS)
+            .build(CacheLoader.from(DefaultArtifactVersion::new));
+
     private final String groupId;
     private final String artifactId;
     private final String type;
     private final String version;
+    private ArtifactVersion artifactVersion;
 
     ArtifactData(Artifact artifact) {
 
@@ -56,4 +71,16 @@ class ArtifactData {
     public String getVersion() {
         return version;
     }
+
+    /**
+     * Parsed version of artifact, it is parsed only once for each distinct version.
+     *
+     * @return parsed version
+     */
+    public ArtifactVersion getArtifactVersion() {
+        if (artifactVersion == null) {
+            artifactVersion = ARTIFACT_VERSIONS.getUnchecked(version);
+        }
+        return artifactVersion;
+    }
 }
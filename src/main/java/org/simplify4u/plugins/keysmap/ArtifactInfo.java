@@ -16,16 +16,10 @@
 package org.simplify4u.plugins.keysmap;
 
 import java.util.Locale;
-import java.util.function.Function;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
-import org.apache.maven.artifact.versioning.VersionRange;
-import org.bouncycastle.openpgp.PGPPublicKey;
-import org.bouncycastle.openpgp.PGPPublicKeyRing;
 
 /**
  * Store information about artifact definition from KeysMap file.
@@ -36,13 +30,13 @@ class ArtifactInfo {
 
     private final KeyInfo keyInfo;
 
-    private final Pattern groupIdPattern;
-    private final Pattern artifactIdPattern;
-    private final Pattern packagingPattern;
-    private final Function<String, Boolean> versionMatch;
+    private final String spec;
+    private final String groupIdSpec;
+    private final PatternMatcher groupIdMatch;
+    private final PatternMatcher artifactIdMatch;
+    private final PatternMatcher packagingMatch;
+    private final VersionMatcher versionMatch;
 
-    private static final Pattern DOT_REPLACE = Pattern.compile("\\.");
-    private static final Pattern STAR_REPLACE = Pattern.compile("\\*");
     private static final Pattern PACKAGING = Pattern.compile("^[a-zA-Z]+$");
 
     public ArtifactInfo(String strArtifact, KeyInfo keyInfo) {
@@ -70,85 +64,79 @@ class ArtifactInfo {
 
 
         try {
-            groupIdPattern = Pattern.compile(patternPrepare(groupId));
-            artifactIdPattern = Pattern.compile(patternPrepare(artifactId));
-            packagingPattern = Pattern.compile(patternPrepare(packaging));
-            versionMatch = versionMatchPrepare(version);
+            groupIdMatch = PatternMatcher.compile(groupId);
+            artifactIdMatch = PatternMatcher.compile(artifactId);
+            packagingMatch = PatternMatcher.compile(packaging);
+            versionMatch = VersionMatcher.compile(version);
         } catch (InvalidVersionSpecificationException | PatternSyntaxException e) {
             throw new IllegalArgumentException("Invalid artifact definition: " + strArtifact, e);
         }
         this.keyInfo = keyInfo;
+        this.spec = strArtifact;
+        this.groupIdSpec = groupId;
     }
 
-    private static String patternPrepare(String str) {
-
-        if (str.length() == 0) {
-            return ".*";
-        }
-
-        String ret;
-        if (str.endsWith(".*")) {
-            ret = str.substring(0, str.length() - 2) + "(\\..+)?$";
-        } else {
-            ret = DOT_REPLACE.matcher(str).replaceAll("\\\\.");
-            ret = STAR_REPLACE.matcher(ret).replaceAll(".*");
-        }
-        return ret;
+    /**
+     * Create artifact definition from already compiled matchers.
+     */
+    ArtifactInfo(String spec, String groupIdSpec, PatternMatcher groupIdMatch, PatternMatcher artifactIdMatch,
+            PatternMatcher packagingMatch, VersionMatcher versionMatch, KeyInfo keyInfo) {
+        this.keyInfo = keyInfo;
+        this.spec = spec;
+        this.groupIdSpec = groupIdSpec;
+        this.groupIdMatch = groupIdMatch;
+        this.artifactIdMatch = artifactIdMatch;
+        this.packagingMatch = packagingMatch;
+        this.versionMatch = versionMatch;
     }
 
-    private static Function<String, Boolean> versionMatchPrepare(String versionToPrepare)
-            throws InvalidVersionSpecificationException {
-
-        String versionSpec = versionSpecPrepare(versionToPrepare);
+    /**
+     * @return artifact definition from keysMap
+     */
+    String getSpec() {
+        return spec;
+    }
 
-        if (versionSpec == null) {
-            // special case - always true - the most common case
-            // fix for https://github.com/s4u/pgpverify-maven-plugin/issues/135
-            return version -> true;
-        }
+    /**
+     * @return keys definition from keysMap
+     */
+    KeyInfo getKeyInfo() {
+        return keyInfo;
+    }
 
-        VersionRange versionRange = VersionRange.createFromVersionSpec(versionSpec);
-        if (versionRange.hasRestrictions()) {
-            // check version in range
-            return version -> {
-                DefaultArtifactVersion artifactVersion = new DefaultArtifactVersion(version);
-                return versionRange.containsVersion(artifactVersion);
-            };
-        } else {
-            // only specific version to compare
-            return versionSpec::equals;
-        }
+    /**
+     * @return groupId from definition, used for indexing entries
+     */
+    String getGroupIdSpec() {
+        return groupIdSpec;
     }
 
-    private static String versionSpecPrepare(String versionSpec) throws InvalidVersionSpecificationException {
+    PatternMatcher getGroupIdMatch() {
+        return groupIdMatch;
+    }
 
-        if (versionSpec.length() == 0 || "*".equals(versionSpec)) {
-            // any version
-            return null;
-        }
+    PatternMatcher getArtifactIdMatch() {
+        return artifactIdMatch;
+    }
 
-        if (versionSpec.contains("*")) {
-            throw new InvalidVersionSpecificationException("Invalid maven version range: " + versionSpec);
-        }
+    PatternMatcher getPackagingMatch() {
+        return packagingMatch;
+    }
 
-        return versionSpec;
+    VersionMatcher getVersionMatch() {
+        return versionMatch;
     }
 
     public boolean isMatch(ArtifactData artifact) {
 
-        return isMatchPattern(groupIdPattern, artifact.getGroupId())
-                && isMatchPattern(artifactIdPattern, artifact.getArtifactId())
-                && isMatchPattern(packagingPattern, artifact.getType())
-                && versionMatch.apply(artifact.getVersion());
-    }
-
-    private static boolean isMatchPattern(Pattern pattern, String str) {
-        Matcher m = pattern.matcher(str);
-        return m.matches();
+        return groupIdMatch.test(artifact.getGroupId())
+                && artifactIdMatch.test(artifact.getArtifactId())
+                && packagingMatch.test(artifact.getType())
+                && versionMatch.test(artifact);
     }
 
-    public boolean isKeyMatch(PGPPublicKey key, PGPPublicKeyRing keyRing) {
-        return keyInfo.isKeyMatch(key, keyRing);
+    boolean isKeyMatch(byte[] fingerprint) {
+        return keyInfo.isKeyMatch(fingerprint);
     }
 
     public boolean isNoSignature() {
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of keys fingerprints from one keysMap entry.
+ * <p>
+ * Keys are indexed by the last 64 bits of fingerprint in open addressing hash table of primitive longs,
+ * so checking of fingerprint is one hash probe. Only for keys longer than 64 bits, with the same suffix,
+ * the rest of fingerprint is compared.
+ *
+ * @author Slawomir Jaranowski.
+ */
+final class KeyFingerprints {
+
+    private static final int SUFFIX_BYTES = 8;
+
+    private final List<byte[]> keys;
+
+    private final long[] suffixes;
+    private final boolean[] used;
+    private final boolean[] shortKeys;
+    private final byte[][][] longKeys;
+    private final int mask;
+
+    /**
+     * Create index of keys.
+     *
+     * @param keys keys fingerprints, at least 64 bits long
+     */
+    KeyFingerprints(List<byte[]> keys) {
+
+        this.keys = new ArrayList<>(keys);
+
+        int capacity = 2;
+        while (capacity < keys.size() * 2) {
+            capacity <<= 1;
+        }
+
+        suffixes = new long[capacity];
+        used = new boolean[capacity];
+        shortKeys = new boolean[capacity];
+        longKeys = new byte[capacity][][];
+        mask = capacity - 1;
+
+        for (byte[] key : keys) {
+            if (key.length < SUFFIX_BYTES) {
+                throw new IllegalArgumentException("Key should have at least 64 bits");
+            }
+
+            long suffix = suffix(key);
+            int slot = slot(suffix);
+            while (used[slot] && suffixes[slot] != suffix) {
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            suffixes[slot] = suffix;
+
+            if (key.length == SUFFIX_BYTES) {
+                shortKeys[slot] = true;
+            } else if (longKeys[slot] == null) {
+                longKeys[slot] = new byte[][]{key};
+            } else {
+                byte[][] slotKeys = Arrays.copyOf(longKeys[slot], longKeys[slot].length + 1);
+                slotKeys[slotKeys.length - 1] = key;
+                longKeys[slot] = slotKeys;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    /**
+     * Check if fingerprint match any key. Key match when it is equal to the tail of fingerprint.
+     *
+     * @param fingerprint fingerprint to check
+     *
+     * @return match status
+     */
+    boolean contains(byte[] fingerprint) {
+
+        if (keys.isEmpty()) {
+            return false;
+        }
+
+        if (fingerprint.length < SUFFIX_BYTES) {
+            // not real fingerprint, compare with all keys
+            return keys.stream().anyMatch(key -> tailEquals(key, fingerprint));
+        }
+
+        long suffix = suffix(fingerprint);
+        int slot = slot(suffix);
+        while (used[slot]) {
+            if (suffixes[slot] == suffix) {
+                return shortKeys[slot] || longKeysMatch(longKeys[slot], fingerprint);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static boolean longKeysMatch(byte[][] slotKeys, byte[] fingerprint) {
+        if (slotKeys == null) {
+            return false;
+        }
+        for (byte[] key : slotKeys) {
+            if (tailEquals(key, fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int slot(long suffix) {
+        long hash = suffix * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long suffix(byte[] bytes) {
+        long ret = 0;
+        for (int i = bytes.length - SUFFIX_BYTES; i < bytes.length; i++) {
+            ret = (ret << 8) | (bytes[i] & 0xffL);
+        }
+        return ret;
+    }
+
+    private static boolean tailEquals(byte[] keyBytes, byte[] fingerprint) {
+
+        for (int i = 1; i <= keyBytes.length && i <= fingerprint.length; i++) {
+            if (keyBytes[keyBytes.length - i] != fingerprint[fingerprint.length - i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
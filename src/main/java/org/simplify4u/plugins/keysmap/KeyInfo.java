@@ -18,6 +18,7 @@ package org.simplify4u.plugins.keysmap;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -25,9 +26,6 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.bouncycastle.openpgp.PGPPublicKey;
-import org.bouncycastle.openpgp.PGPPublicKeyRing;
-
 /**
  * Store info about key numbers.
  *
@@ -43,10 +41,32 @@ class KeyInfo {
             new SimpleEntry<>("noSig", new KeyInfoItemNoSig())
     ).collect(Collectors.toMap(Entry::getKey, Entry::getValue));
 
-    private final List<KeyInfoItem> keys = new ArrayList<>();
+    private final List<KeyInfoItem> keys;
 
+    private final boolean anyKey;
+    private final KeyFingerprints fingerprints;
 
     public KeyInfo(String strKeys) {
+        this(parseKeys(strKeys));
+    }
+
+    /**
+     * Create keys info from already parsed items.
+     *
+     * @param keys keys items in order from keysMap
+     */
+    KeyInfo(List<KeyInfoItem> keys) {
+
+        this.keys = new ArrayList<>(keys);
+
+        anyKey = keys.stream().anyMatch(KeyInfoItemAnyKey.class::isInstance);
+        fingerprints = new KeyFingerprints(keys.stream()
+                .filter(KeyInfoItemKey.class::isInstance)
+                .map(keyInfoItem -> ((KeyInfoItemKey) keyInfoItem).getFingerprint())
+                .collect(Collectors.toList()));
+    }
+
+    private static List<KeyInfoItem> parseKeys(String strKeys) {
 
         if (strKeys == null) {
             throw new IllegalArgumentException("null key not allowed");
@@ -54,31 +74,46 @@ class KeyInfo {
 
         // compatibility behavior
         if (strKeys.trim().isEmpty()) {
-            keys.add(new KeyInfoItemNoSig());
-            return;
+            return Collections.singletonList(new KeyInfoItemNoSig());
         }
 
+        List<KeyInfoItem> ret = new ArrayList<>();
         Arrays.stream(strKeys.split(","))
                 .map(String::trim)
                 .forEach(key -> {
 
                     if (key.startsWith("0x")) {
-                        keys.add(new KeyInfoItemKey(key));
+                        ret.add(new KeyInfoItemKey(key));
                     } else {
 
                         Optional<KeyInfoItem> keyInfoItem = SPECIAL_KEYS.entrySet().stream()
                                 .filter(entry -> entry.getKey().equalsIgnoreCase(key))
                                 .map(Entry::getValue)
                                 .findFirst();
-                        keys.add(keyInfoItem.orElseThrow(()
+                        ret.add(keyInfoItem.orElseThrow(()
                                 -> new IllegalArgumentException("Invalid keyID " + key + " must start with 0x "
                                 + "or be any of " + SPECIAL_KEYS.keySet())));
                     }
                 });
+        return ret;
+    }
+
+    /**
+     * @return keys items in order from keysMap
+     */
+    List<KeyInfoItem> getKeys() {
+        return Collections.unmodifiableList(keys);
     }
 
-    public boolean isKeyMatch(PGPPublicKey pgpPublicKey, PGPPublicKeyRing pgpPublicKeyRing) {
-        return keys.stream().anyMatch(keyInfoItem -> keyInfoItem.isKeyMatch(pgpPublicKey, pgpPublicKeyRing));
+    /**
+     * Check if key with given fingerprint match, master key is resolved by {@link KeysMapMatch}.
+     *
+     * @param fingerprint key fingerprint
+     *
+     * @return key matching status
+     */
+    boolean isKeyMatch(byte[] fingerprint) {
+        return anyKey || fingerprints.contains(fingerprint);
     }
 
     public boolean isNoSignature() {
@@ -15,9 +15,6 @@
  */
 package org.simplify4u.plugins.keysmap;
 
-import org.bouncycastle.openpgp.PGPPublicKey;
-import org.bouncycastle.openpgp.PGPPublicKeyRing;
-
 public interface KeyInfoItem {
 
     /**
@@ -46,16 +43,4 @@ public interface KeyInfoItem {
     default boolean isKeyMissing() {
         return false;
     }
-
-    /**
-     * Check if current key mach with given key.
-     *
-     * @param pgpPublicKey key to test
-     * @param pgpPublicKeyRing keys ring to find master key
-     *
-     * @return key matching status
-     */
-    default boolean isKeyMatch(PGPPublicKey pgpPublicKey, PGPPublicKeyRing pgpPublicKeyRing) {
-        return false;
-    }
 }
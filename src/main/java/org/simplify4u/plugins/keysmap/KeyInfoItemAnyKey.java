@@ -15,13 +15,5 @@
  */
 package org.simplify4u.plugins.keysmap;
 
-import org.bouncycastle.openpgp.PGPPublicKey;
-import org.bouncycastle.openpgp.PGPPublicKeyRing;
-
 public class KeyInfoItemAnyKey implements KeyInfoItem {
-
-    @Override
-    public boolean isKeyMatch(PGPPublicKey pgpPublicKey, PGPPublicKeyRing pgpPublicKeyRing) {
-        return true;
-    }
 }
@@ -15,12 +15,7 @@
  */
 package org.simplify4u.plugins.keysmap;
 
-import java.util.Optional;
-
-import org.bouncycastle.openpgp.PGPPublicKey;
-import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.util.encoders.Hex;
-import org.simplify4u.plugins.utils.PublicKeyUtils;
 
 public class KeyInfoItemKey implements KeyInfoItem {
 
@@ -30,36 +25,34 @@ public class KeyInfoItemKey implements KeyInfoItem {
         fingerPrint = strKeyToBytes(key.substring(2).replace(" ", ""));
     }
 
-    @Override
-    public boolean isKeyMatch(PGPPublicKey pgpPublicKey, PGPPublicKeyRing pgpPublicKeyRing) {
-
-        if (compareArrays(fingerPrint, pgpPublicKey.getFingerprint())) {
-            return true;
-        }
+    /**
+     * Create key item from already decoded fingerprint.
+     *
+     * @param fingerPrint key fingerprint or its tail
+     */
+    KeyInfoItemKey(byte[] fingerPrint) {
+        checkLength(Hex.toHexString(fingerPrint), fingerPrint);
+        this.fingerPrint = fingerPrint.clone();
+    }
 
-        Optional<PGPPublicKey> masterKey = PublicKeyUtils.getMasterKey(pgpPublicKey, pgpPublicKeyRing);
-        return masterKey.filter(publicKey -> isKeyMatch(publicKey, pgpPublicKeyRing)).isPresent();
+    /**
+     * @return key fingerprint or its tail from keysMap
+     */
+    byte[] getFingerprint() {
+        return fingerPrint;
     }
 
     private static byte[] strKeyToBytes(String key) {
         byte[] bytes = Hex.decode(key);
+        checkLength(key, bytes);
+        return bytes;
+    }
 
+    private static void checkLength(String key, byte[] bytes) {
         if (bytes.length < 8 || bytes.length > 20) {
             throw new IllegalArgumentException(
                     String.format("Key length for = 0x%s is %d bits, should be between 64 and 160 bits",
                             key, bytes.length * 8));
         }
-
-        return bytes;
-    }
-
-    private static boolean compareArrays(byte[] keyBytes, byte[] fingerprint) {
-
-        for (int i = 1; i <= keyBytes.length && i <= fingerprint.length; i++) {
-            if (keyBytes[keyBytes.length - i] != fingerprint[fingerprint.length - i]) {
-                return false;
-            }
-        }
-        return true;
     }
 }
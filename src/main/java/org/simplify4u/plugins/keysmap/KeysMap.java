@@ -17,14 +17,34 @@
 package org.simplify4u.plugins.keysmap;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.maven.artifact.Artifact;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
@@ -41,9 +61,34 @@ public class KeysMap {
 
     private static final Logger LOG = LoggerFactory.getLogger(KeysMap.class);
 
+    private static final int MAX_PARSED_KEYS_MAPS = 32;
+    private static final int MAX_LOADED_KEYS_MAPS = 8;
+
+    /**
+     * Parsed and indexed keysMaps by SHA-256 of content, shared by all executions in the same JVM,
+     * so keysMap used by many modules in reactor is parsed only once.
+     */
+    private static final Cache<String, KeysMapIndex> PARSED_KEYS_MAPS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PARSED_KEYS_MAPS)
+            .build();
+
+    /**
+     * Merged and indexed keysMaps by locations and content, shared by all executions in the same JVM.
+     */
+    private static final Cache<String, KeysMapIndex> LOADED_KEYS_MAPS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_LOADED_KEYS_MAPS)
+            .build();
+
+    /**
+     * KeysMaps fetched from http(s) locations, shared by all executions in the same JVM.
+     */
+    private static final Map<String, KeysMapHttpLoader.FetchedKeysMap> FETCHED_KEYS_MAPS = new ConcurrentHashMap<>();
+
+    private static final int MAX_PARALLEL_LOAD = 4;
+
     private ResourceManager resourceManager;
 
-    private final ArrayList<ArtifactInfo> keysMapList = new ArrayList<>();
+    private KeysMapIndex keysMapIndex = new KeysMapIndex(Collections.emptyList());
 
     @Inject
     KeysMap(ResourceManager resourceManager) {
@@ -51,12 +96,46 @@ public class KeysMap {
     }
 
     public void load(String locale) throws ResourceNotFoundException, IOException {
-        if (locale != null && !locale.trim().isEmpty()) {
-            try (final InputStream inputStream = resourceManager.getResourceAsInputStream(locale)) {
-                loadKeysMap(inputStream);
+        load(locale, KeysMapSettings.builder().build());
+    }
+
+    public void load(String locale, KeysMapSettings settings) throws ResourceNotFoundException, IOException {
+        load(Collections.singletonList(locale), settings);
+    }
+
+    /**
+     * Load keysMaps from given locations and merge them in one keysMap.
+     * <p>
+     * KeysMaps are loaded in parallel, entries are merged in order of locations.
+     * KeysMap from http(s) location is cached on disk and revalidated by conditional request.
+     * Parsed and indexed keysMaps are cached on disk by SHA-256 of content.
+     *
+     * @param locations keysMap locations in order of precedence
+     * @param settings  keysMap loading configuration
+     *
+     * @throws ResourceNotFoundException if keysMap not found
+     * @throws IOException               in case of problem with reading keysMap
+     */
+    public void load(List<String> locations, KeysMapSettings settings) throws ResourceNotFoundException, IOException {
+
+        List<String> validLocations = locations.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(location -> !location.isEmpty())
+                .collect(Collectors.toList());
+
+        if (!validLocations.isEmpty()) {
+            List<byte[]> contents = loadContents(validLocations, settings);
+            KeysMapIndex loaded = loadKeysMaps(validLocations, contents, settings);
+
+            if (keysMapIndex.isEmpty()) {
+                keysMapIndex = loaded;
+            } else {
+                keysMapIndex = KeysMapIndex.merge(Arrays.asList(keysMapIndex, loaded));
             }
         }
-        if (keysMapList.isEmpty()) {
+
+        if (keysMapIndex.isEmpty()) {
             LOG.warn("No keysmap specified in configuration or keysmap contains no entries. PGPVerify will only " +
                     "check artifacts against their signature. File corruption will be detected. However, without a " +
                     "keysmap as a reference for trust, valid signatures of any public key will be accepted.");
@@ -69,7 +148,20 @@ public class KeysMap {
      * @return Returns true iff at least one entry exists in the keysmap, or false otherwise.
      */
     public boolean isEmpty() {
-        return keysMapList.isEmpty();
+        return keysMapIndex.isEmpty();
+    }
+
+    /**
+     * Find all keysMap entries for artifact at once.
+     * <p>
+     * Result is remembered for artifact coordinates, so next calls for the same artifact are cheap.
+     *
+     * @param artifact artifact to resolve
+     *
+     * @return result of matching artifact to keysMap
+     */
+    public KeysMapMatch resolve(Artifact artifact) {
+        return keysMapIndex.resolve(new ArtifactData(artifact));
     }
 
     /**
@@ -80,12 +172,7 @@ public class KeysMap {
      * @return signature status
      */
     public boolean isNoSignature(Artifact artifact) {
-
-        ArtifactData artifactData = new ArtifactData(artifact);
-
-        return keysMapList.stream()
-                .filter(artifactInfo -> artifactInfo.isMatch(artifactData))
-                .anyMatch(ArtifactInfo::isNoSignature);
+        return resolve(artifact).isNoSignature();
     }
 
     /**
@@ -96,12 +183,7 @@ public class KeysMap {
      * @return broken signature status
      */
     public boolean isBrokenSignature(Artifact artifact) {
-
-        ArtifactData artifactData = new ArtifactData(artifact);
-
-        return keysMapList.stream()
-                .filter(artifactInfo -> artifactInfo.isMatch(artifactData))
-                .anyMatch(ArtifactInfo::isBrokenSignature);
+        return resolve(artifact).isBrokenSignature();
     }
 
     /**
@@ -112,48 +194,140 @@ public class KeysMap {
      * @return key missing status
      */
     public boolean isKeyMissing(Artifact artifact) {
+        return resolve(artifact).isKeyMissing();
+    }
 
-        ArtifactData artifactData = new ArtifactData(artifact);
+    public boolean isWithKey(Artifact artifact) {
+        return resolve(artifact).isWithKey();
+    }
 
-        return keysMapList.stream()
-                .filter(artifactInfo -> artifactInfo.isMatch(artifactData))
-                .anyMatch(ArtifactInfo::isKeyMissing);
+    public boolean isValidKey(Artifact artifact, PGPPublicKey key, PGPPublicKeyRing keyRing) {
+        return resolve(artifact).isValidKey(key, keyRing);
     }
 
-    public boolean isWithKey(Artifact artifact) {
+    private List<byte[]> loadContents(List<String> locations, KeysMapSettings settings)
+            throws ResourceNotFoundException, IOException {
 
-        ArtifactData artifactData = new ArtifactData(artifact);
+        if (locations.size() == 1) {
+            return Collections.singletonList(loadContent(locations.get(0), settings));
+        }
 
-        for (ArtifactInfo artifactInfo : keysMapList) {
-            if (artifactInfo.isMatch(artifactData)) {
-                return !artifactInfo.isNoSignature();
+        // resources are loaded by context class loader of current plugin realm
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        ExecutorService loadExecutor = Executors.newFixedThreadPool(Math.min(locations.size(), MAX_PARALLEL_LOAD),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("pgpverify-keysmap-%d").build());
+        try {
+            List<Future<byte[]>> futures = locations.stream()
+                    .map(location -> loadExecutor.submit(() -> {
+                        Thread currentThread = Thread.currentThread();
+                        ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+                        currentThread.setContextClassLoader(contextClassLoader);
+                        try {
+                            return loadContent(location, settings);
+                        } finally {
+                            currentThread.setContextClassLoader(previousClassLoader);
+                        }
+                    }))
+                    .collect(Collectors.toList());
+
+            List<byte[]> ret = new ArrayList<>(futures.size());
+            for (Future<byte[]> future : futures) {
+                try {
+                    ret.add(Uninterruptibles.getUninterruptibly(future));
+                } catch (ExecutionException e) {
+                    Throwables.throwIfInstanceOf(e.getCause(), ResourceNotFoundException.class);
+                    Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw new IOException(e.getCause());
+                }
             }
+            return ret;
+        } finally {
+            loadExecutor.shutdownNow();
         }
-        return false;
     }
 
-    public boolean isValidKey(Artifact artifact, PGPPublicKey key, PGPPublicKeyRing keyRing) {
+    private byte[] loadContent(String location, KeysMapSettings settings)
+            throws ResourceNotFoundException, IOException {
+
+        if (KeysMapHttpLoader.isHttpLocation(location)) {
+            return new KeysMapHttpLoader(FETCHED_KEYS_MAPS, settings).load(location);
+        }
+
+        try (final InputStream inputStream = resourceManager.getResourceAsInputStream(location)) {
+            return ByteStreams.toByteArray(inputStream);
+        }
+    }
+
+    private static KeysMapIndex loadKeysMaps(List<String> locations, List<byte[]> contents,
+            KeysMapSettings settings) throws IOException {
+
+        List<String> hashes = new ArrayList<>(contents.size());
+        StringBuilder loadedKey = new StringBuilder();
+        for (int i = 0; i < contents.size(); i++) {
+            String hash = Hashing.sha256().hashBytes(contents.get(i)).toString();
+            hashes.add(hash);
+            loadedKey.append(locations.get(i)).append('\n').append(hash).append('\n');
+        }
 
-        if (keysMapList.isEmpty()) {
-            return true;
+        KeysMapIndex loaded = LOADED_KEYS_MAPS.getIfPresent(loadedKey.toString());
+        if (loaded != null) {
+            LOG.debug("Reuse already loaded keysMaps: {}", locations);
+            return loaded;
         }
 
-        ArtifactData artifactData = new ArtifactData(artifact);
+        KeysMapBinaryCache binaryCache = Optional.ofNullable(settings.getCachePath())
+                .map(KeysMapBinaryCache::new)
+                .orElse(null);
+
+        List<KeysMapIndex> indexes = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            indexes.add(parseKeysMap(hashes.get(i), contents.get(i), binaryCache).withSource(locations.get(i)));
+        }
+
+        loaded = KeysMapIndex.merge(indexes);
+        KeysMapIndex previous = LOADED_KEYS_MAPS.asMap().putIfAbsent(loadedKey.toString(), loaded);
+        return previous != null ? previous : loaded;
+    }
+
+    private static KeysMapIndex parseKeysMap(String hash, byte[] content, KeysMapBinaryCache binaryCache)
+            throws IOException {
+
+        KeysMapIndex parsed = PARSED_KEYS_MAPS.getIfPresent(hash);
+        if (parsed != null) {
+            LOG.debug("Reuse already parsed keysMap sha256: {}", hash);
+            return parsed;
+        }
+
+        Optional<KeysMapIndex> cached = Optional.ofNullable(binaryCache)
+                .flatMap(cache -> cache.load(hash));
+
+        if (cached.isPresent()) {
+            LOG.debug("Load parsed keysMap sha256: {} from cache", hash);
+            parsed = cached.get();
+        } else {
+            parsed = new KeysMapIndex(parseKeysMap(new ByteArrayInputStream(content)));
+            if (binaryCache != null) {
+                binaryCache.store(hash, parsed);
+            }
+        }
 
-        return keysMapList.stream()
-                .filter(artifactInfo -> artifactInfo.isMatch(artifactData))
-                .anyMatch(artifactInfo -> artifactInfo.isKeyMatch(key, keyRing));
+        KeysMapIndex previous = PARSED_KEYS_MAPS.asMap().putIfAbsent(hash, parsed);
+        return previous != null ? previous : parsed;
     }
 
-    private void loadKeysMap(final InputStream inputStream) throws IOException {
+    private static List<ArtifactInfo> parseKeysMap(final InputStream inputStream) throws IOException {
         BufferedReader mapReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
         String currentLine;
 
+        List<ArtifactInfo> ret = new ArrayList<>();
         while ((currentLine = getNextLine(mapReader)) != null) {
             String[] parts = currentLine.split("=", 2);
             ArtifactInfo artifactInfo = createArtifactInfo(parts[0], parts.length == 1 ? "" : parts[1]);
-            keysMapList.add(artifactInfo);
+            ret.add(artifactInfo);
         }
+        return ret;
     }
 
     private static String getNextLine(BufferedReader mapReader) throws IOException {
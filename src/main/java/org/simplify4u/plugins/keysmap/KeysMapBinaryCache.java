@@ -0,0 +1,343 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.Restriction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disk cache of parsed and indexed keysMaps, stored in binary form by SHA-256 of keysMap content.
+ * <p>
+ * Binary form keeps for each entry compiled matchers - kind of pattern with its literals, version
+ * or range restrictions - and decoded keys, next index buckets by groupId. Loading it skips reading keysMap
+ * lines, classification of patterns, parsing of version ranges, hex decoding of keys and building index.
+ * Only patterns with regular expressions are compiled again.
+ * Cached keysMaps are reused by next builds and by modules executed in separate JVMs.
+ *
+ * @author Slawomir Jaranowski.
+ */
+final class KeysMapBinaryCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeysMapBinaryCache.class);
+
+    private static final int MAGIC = 0x504b4d02;
+
+    private static final byte ITEM_KEY = 0;
+    private static final byte ITEM_ANY_KEY = 1;
+    private static final byte ITEM_BROKEN_SIG = 2;
+    private static final byte ITEM_NO_KEY = 3;
+    private static final byte ITEM_NO_SIG = 4;
+
+    private final Path cachePath;
+
+    KeysMapBinaryCache(File cachePath) {
+        this.cachePath = cachePath.toPath();
+    }
+
+    /**
+     * Load parsed keysMap.
+     *
+     * @param hash SHA-256 of keysMap content
+     *
+     * @return parsed keysMap index or empty if keysMap is not cached or cached file is not valid
+     */
+    Optional<KeysMapIndex> load(String hash) {
+
+        Path cacheFile = getCacheFile(hash);
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+
+            if (inputStream.readInt() != MAGIC || !hash.equals(inputStream.readUTF())) {
+                LOG.debug("Not valid keysMap cache: {}", cacheFile);
+                return Optional.empty();
+            }
+
+            int entriesCount = readCount(inputStream);
+            List<ArtifactInfo> entries = new ArrayList<>(entriesCount);
+            for (int i = 0; i < entriesCount; i++) {
+                entries.add(readArtifactInfo(inputStream));
+            }
+
+            Map<String, int[]> exactGroups = readGroups(inputStream);
+            Map<String, int[]> prefixGroups = readGroups(inputStream);
+            int[] otherEntries = readIndexes(inputStream);
+
+            return Optional.of(new KeysMapIndex(entries, exactGroups, prefixGroups, otherEntries));
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Load keysMap from cache: {} failed - {}", cacheFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store parsed keysMap.
+     *
+     * @param hash    SHA-256 of keysMap content
+     * @param keysMap parsed keysMap index
+     */
+    void store(String hash, KeysMapIndex keysMap) {
+
+        Path cacheFile = getCacheFile(hash);
+
+        try {
+            Files.createDirectories(cachePath);
+
+            Path partFile = Files.createTempFile(cachePath, cacheFile.getFileName().toString(), ".part");
+            try {
+                try (DataOutputStream outputStream = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(partFile)))) {
+
+                    outputStream.writeInt(MAGIC);
+                    outputStream.writeUTF(hash);
+
+                    List<ArtifactInfo> entries = keysMap.getEntries();
+                    outputStream.writeInt(entries.size());
+                    for (ArtifactInfo entry : entries) {
+                        writeArtifactInfo(outputStream, entry);
+                    }
+
+                    writeGroups(outputStream, keysMap.getExactGroups());
+                    writeGroups(outputStream, keysMap.getPrefixGroups());
+                    writeIndexes(outputStream, keysMap.getOtherEntries());
+                }
+                Files.move(partFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partFile);
+            }
+        } catch (IOException e) {
+            // keysMap is parsed, so problem with cache is not fatal
+            LOG.warn("Store keysMap in cache: {} failed - {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private Path getCacheFile(String hash) {
+        return cachePath.resolve(hash + ".bin");
+    }
+
+    private static void writeArtifactInfo(DataOutputStream outputStream, ArtifactInfo entry) throws IOException {
+        outputStream.writeUTF(entry.getSpec());
+        outputStream.writeUTF(entry.getGroupIdSpec());
+        writePatternMatcher(outputStream, entry.getGroupIdMatch());
+        writePatternMatcher(outputStream, entry.getArtifactIdMatch());
+        writePatternMatcher(outputStream, entry.getPackagingMatch());
+        writeVersionMatcher(outputStream, entry.getVersionMatch());
+        writeKeyInfo(outputStream, entry.getKeyInfo());
+    }
+
+    private static ArtifactInfo readArtifactInfo(DataInputStream inputStream) throws IOException {
+        String spec = inputStream.readUTF();
+        String groupIdSpec = inputStream.readUTF();
+        PatternMatcher groupIdMatch = readPatternMatcher(inputStream);
+        PatternMatcher artifactIdMatch = readPatternMatcher(inputStream);
+        PatternMatcher packagingMatch = readPatternMatcher(inputStream);
+        VersionMatcher versionMatch = readVersionMatcher(inputStream);
+        KeyInfo keyInfo = readKeyInfo(inputStream);
+        return new ArtifactInfo(spec, groupIdSpec, groupIdMatch, artifactIdMatch, packagingMatch, versionMatch,
+                keyInfo);
+    }
+
+    private static void writePatternMatcher(DataOutputStream outputStream, PatternMatcher matcher)
+            throws IOException {
+        outputStream.writeByte(matcher.getKind().ordinal());
+        String[] literals = matcher.getLiterals();
+        outputStream.writeInt(literals.length);
+        for (String literal : literals) {
+            outputStream.writeUTF(literal);
+        }
+    }
+
+    private static PatternMatcher readPatternMatcher(DataInputStream inputStream) throws IOException {
+        PatternMatcher.Kind kind = readKind(inputStream, PatternMatcher.Kind.values());
+        String[] literals = new String[readCount(inputStream)];
+        for (int i = 0; i < literals.length; i++) {
+            literals[i] = inputStream.readUTF();
+        }
+        return PatternMatcher.of(kind, literals);
+    }
+
+    private static void writeVersionMatcher(DataOutputStream outputStream, VersionMatcher matcher)
+            throws IOException {
+        outputStream.writeByte(matcher.getKind().ordinal());
+        outputStream.writeUTF(matcher.getVersion());
+        List<Restriction> restrictions = matcher.getRestrictions();
+        outputStream.writeInt(restrictions.size());
+        for (Restriction restriction : restrictions) {
+            writeVersion(outputStream, restriction.getLowerBound());
+            outputStream.writeBoolean(restriction.isLowerBoundInclusive());
+            writeVersion(outputStream, restriction.getUpperBound());
+            outputStream.writeBoolean(restriction.isUpperBoundInclusive());
+        }
+    }
+
+    private static VersionMatcher readVersionMatcher(DataInputStream inputStream) throws IOException {
+        VersionMatcher.Kind kind = readKind(inputStream, VersionMatcher.Kind.values());
+        String version = inputStream.readUTF();
+        int restrictionsCount = readCount(inputStream);
+        List<Restriction> restrictions = new ArrayList<>(restrictionsCount);
+        for (int i = 0; i < restrictionsCount; i++) {
+            ArtifactVersion lowerBound = readVersion(inputStream);
+            boolean lowerBoundInclusive = inputStream.readBoolean();
+            ArtifactVersion upperBound = readVersion(inputStream);
+            boolean upperBoundInclusive = inputStream.readBoolean();
+            restrictions.add(new Restriction(lowerBound, lowerBoundInclusive, upperBound, upperBoundInclusive));
+        }
+
+        switch (kind) {
+            case ANY:
+                return VersionMatcher.any();
+            case EXACT:
+                return VersionMatcher.exact(version);
+            default:
+                return VersionMatcher.range(restrictions);
+        }
+    }
+
+    private static void writeVersion(DataOutputStream outputStream, ArtifactVersion version) throws IOException {
+        outputStream.writeBoolean(version != null);
+        if (version != null) {
+            outputStream.writeUTF(version.toString());
+        }
+    }
+
+    private static ArtifactVersion readVersion(DataInputStream inputStream) throws IOException {
+        return inputStream.readBoolean() ? new DefaultArtifactVersion(inputStream.readUTF()) : null;
+    }
+
+    private static <T> T readKind(DataInputStream inputStream, T[] kinds) throws IOException {
+        int kind = inputStream.readUnsignedByte();
+        if (kind >= kinds.length) {
+            throw new IOException("Unsupported matcher kind: " + kind);
+        }
+        return kinds[kind];
+    }
+
+    private static void writeGroups(DataOutputStream outputStream, Map<String, int[]> groups) throws IOException {
+        outputStream.writeInt(groups.size());
+        for (Map.Entry<String, int[]> group : groups.entrySet()) {
+            outputStream.writeUTF(group.getKey());
+            writeIndexes(outputStream, group.getValue());
+        }
+    }
+
+    private static Map<String, int[]> readGroups(DataInputStream inputStream) throws IOException {
+        int groupsCount = readCount(inputStream);
+        Map<String, int[]> groups = new HashMap<>(groupsCount * 2);
+        for (int i = 0; i < groupsCount; i++) {
+            groups.put(inputStream.readUTF(), readIndexes(inputStream));
+        }
+        return groups;
+    }
+
+    private static void writeIndexes(DataOutputStream outputStream, int[] indexes) throws IOException {
+        outputStream.writeInt(indexes.length);
+        for (int index : indexes) {
+            outputStream.writeInt(index);
+        }
+    }
+
+    private static int[] readIndexes(DataInputStream inputStream) throws IOException {
+        int[] indexes = new int[readCount(inputStream)];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = inputStream.readInt();
+        }
+        return indexes;
+    }
+
+    private static int readCount(DataInputStream inputStream) throws IOException {
+        int count = inputStream.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid items count: " + count);
+        }
+        return count;
+    }
+
+    private static void writeKeyInfo(DataOutputStream outputStream, KeyInfo keyInfo) throws IOException {
+
+        List<KeyInfoItem> keys = keyInfo.getKeys();
+        outputStream.writeInt(keys.size());
+        for (KeyInfoItem key : keys) {
+            if (key instanceof KeyInfoItemKey) {
+                byte[] fingerprint = ((KeyInfoItemKey) key).getFingerprint();
+                outputStream.writeByte(ITEM_KEY);
+                outputStream.writeByte(fingerprint.length);
+                outputStream.write(fingerprint);
+            } else if (key instanceof KeyInfoItemAnyKey) {
+                outputStream.writeByte(ITEM_ANY_KEY);
+            } else if (key instanceof KeyInfoItemBrokenSig) {
+                outputStream.writeByte(ITEM_BROKEN_SIG);
+            } else if (key instanceof KeyInfoItemNoKey) {
+                outputStream.writeByte(ITEM_NO_KEY);
+            } else if (key instanceof KeyInfoItemNoSig) {
+                outputStream.writeByte(ITEM_NO_SIG);
+            } else {
+                throw new IOException("Unsupported keysMap item: " + key.getClass().getName());
+            }
+        }
+    }
+
+    private static KeyInfo readKeyInfo(DataInputStream inputStream) throws IOException {
+
+        int keysCount = readCount(inputStream);
+        List<KeyInfoItem> keys = new ArrayList<>(keysCount);
+        for (int i = 0; i < keysCount; i++) {
+            byte type = inputStream.readByte();
+            switch (type) {
+                case ITEM_KEY:
+                    byte[] fingerprint = new byte[inputStream.readUnsignedByte()];
+                    inputStream.readFully(fingerprint);
+                    keys.add(new KeyInfoItemKey(fingerprint));
+                    break;
+                case ITEM_ANY_KEY:
+                    keys.add(new KeyInfoItemAnyKey());
+                    break;
+                case ITEM_BROKEN_SIG:
+                    keys.add(new KeyInfoItemBrokenSig());
+                    break;
+                case ITEM_NO_KEY:
+                    keys.add(new KeyInfoItemNoKey());
+                    break;
+                case ITEM_NO_SIG:
+                    keys.add(new KeyInfoItemNoSig());
+                    break;
+                default:
+                    throw new IOException("Unsupported keysMap item type: " + type);
+            }
+        }
+        return new KeyInfo(keys);
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import lombok.Value;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.maven.settings.Proxy;
+import org.simplify4u.plugins.keyserver.SizeLimitInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load keysMap from http(s) location.
+ * <p>
+ * Fetched keysMap is stored in disk cache in one file together with <code>ETag</code>
+ * and <code>Last-Modified</code> headers, next fetch is a conditional request, so not changed keysMap
+ * is not downloaded again. Fetched content is also shared by all modules in reactor for a short time,
+ * so keysMap is requested only once per build.
+ *
+ * @author Slawomir Jaranowski.
+ */
+class KeysMapHttpLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeysMapHttpLoader.class);
+
+    static final Duration SHARED_MAX_AGE = Duration.ofMinutes(10);
+
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int READ_TIMEOUT = 20000;
+
+    private static final int CACHE_MAGIC = 0x504b4c01;
+
+    private static final Map<String, Object> FETCH_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * Http client shared by all executions in the same JVM, proxy from Maven settings is set per request.
+     */
+    private static final CloseableHttpClient HTTP_CLIENT = HttpClients.custom()
+            .useSystemProperties()
+            .build();
+
+    private final Map<String, FetchedKeysMap> fetchedKeysMaps;
+    private final File cachePath;
+    private final boolean offline;
+    private final Proxy proxy;
+    private final long maxSize;
+    private final RequestConfig requestConfig;
+
+    @Value
+    static class FetchedKeysMap {
+        byte[] content;
+        long fetchTime;
+    }
+
+    @Value
+    private static class CachedKeysMap {
+        byte[] content;
+        String etag;
+        String lastModified;
+    }
+
+    KeysMapHttpLoader(Map<String, FetchedKeysMap> fetchedKeysMaps, KeysMapSettings settings) {
+        this.fetchedKeysMaps = fetchedKeysMaps;
+        this.cachePath = settings.getCachePath();
+        this.offline = settings.isOffline();
+        this.proxy = settings.getProxy();
+        this.maxSize = settings.getMaxSize();
+
+        RequestConfig.Builder requestConfigBuilder = RequestConfig.custom()
+                .setConnectionRequestTimeout(CONNECT_TIMEOUT)
+                .setConnectTimeout(CONNECT_TIMEOUT)
+                .setSocketTimeout(READ_TIMEOUT);
+
+        if (proxy != null) {
+            requestConfigBuilder.setProxy(new HttpHost(proxy.getHost(), proxy.getPort()));
+        }
+
+        this.requestConfig = requestConfigBuilder.build();
+    }
+
+    static boolean isHttpLocation(String location) {
+        String lowerLocation = location.toLowerCase(Locale.US);
+        return lowerLocation.startsWith("http://") || lowerLocation.startsWith("https://");
+    }
+
+    /**
+     * Load keysMap content.
+     *
+     * @param location keysMap address
+     *
+     * @return keysMap content
+     *
+     * @throws IOException in case of problem with fetching keysMap and no cached copy
+     */
+    byte[] load(String location) throws IOException {
+
+        long now = System.currentTimeMillis();
+
+        FetchedKeysMap fetched = fetchedKeysMaps.get(location);
+        if (fetched != null && now - fetched.getFetchTime() < SHARED_MAX_AGE.toMillis()) {
+            return fetched.getContent();
+        }
+
+        synchronized (FETCH_LOCKS.computeIfAbsent(location, k -> new Object())) {
+            // other thread can fetch it in meantime
+            fetched = fetchedKeysMaps.get(location);
+            if (fetched != null && now - fetched.getFetchTime() < SHARED_MAX_AGE.toMillis()) {
+                return fetched.getContent();
+            }
+
+            byte[] content = fetch(location);
+            fetchedKeysMaps.put(location, new FetchedKeysMap(content, now));
+            return content;
+        }
+    }
+
+    private byte[] fetch(String location) throws IOException {
+
+        String cacheName = Hashing.sha256().hashString(location, StandardCharsets.UTF_8).toString();
+        Path cacheFile = cachePath != null ? cachePath.toPath().resolve(cacheName + ".keysmap") : null;
+
+        CachedKeysMap cached = cacheFile != null ? readCache(cacheFile, location) : null;
+
+        if (offline) {
+            if (cached != null) {
+                LOG.debug("Offline mode - use cached keysMap: {}", location);
+                return cached.getContent();
+            }
+            throw new IOException("KeysMap: " + location + " is not available in offline mode");
+        }
+
+        HttpGet request = new HttpGet(location);
+        if (cached != null) {
+            Optional.ofNullable(cached.getEtag())
+                    .ifPresent(etag -> request.setHeader(HttpHeaders.IF_NONE_MATCH, etag));
+            Optional.ofNullable(cached.getLastModified())
+                    .ifPresent(lastModified -> request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified));
+        }
+
+        try {
+            return execute(request, cached, cacheFile);
+        } catch (IOException e) {
+            if (cached == null) {
+                throw e;
+            }
+            LOG.warn("Fetch keysMap: {} failed - {}, cached copy will be used", location, e.getMessage());
+            return cached.getContent();
+        }
+    }
+
+    private byte[] execute(HttpGet request, CachedKeysMap cached, Path cacheFile) throws IOException {
+
+        request.setConfig(requestConfig);
+
+        HttpClientContext context = HttpClientContext.create();
+        if (proxy != null && proxy.getUsername() != null && !proxy.getUsername().isEmpty()) {
+            BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            credentialsProvider.setCredentials(new AuthScope(proxy.getHost(), proxy.getPort()),
+                    new UsernamePasswordCredentials(proxy.getUsername(), proxy.getPassword()));
+            context.setCredentialsProvider(credentialsProvider);
+        }
+
+        try (CloseableHttpResponse response = HTTP_CLIENT.execute(request, context)) {
+
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                LOG.debug("KeysMap: {} not modified", request.getURI());
+                return cached.getContent();
+            }
+
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new IOException("Fetch keysMap returned an error: " + response.getStatusLine()
+                        + " for: " + request.getURI());
+            }
+
+            byte[] content = readContent(response.getEntity(), request);
+
+            if (cacheFile != null) {
+                storeCache(cacheFile, request.getURI().toString(), new CachedKeysMap(content,
+                        Optional.ofNullable(response.getFirstHeader(HttpHeaders.ETAG))
+                                .map(Header::getValue).orElse(null),
+                        Optional.ofNullable(response.getFirstHeader(HttpHeaders.LAST_MODIFIED))
+                                .map(Header::getValue).orElse(null)));
+            }
+
+            return content;
+        }
+    }
+
+    private byte[] readContent(HttpEntity entity, HttpGet request) throws IOException {
+
+        if (entity == null) {
+            throw new IOException("No response body returned for: " + request.getURI());
+        }
+
+        if (entity.getContentLength() > maxSize) {
+            throw new IOException("KeysMap size: " + entity.getContentLength()
+                    + " exceeds maximum allowed size: " + maxSize + " bytes for: " + request.getURI());
+        }
+
+        InputStream inputStream = new SizeLimitInputStream(entity.getContent(), maxSize,
+                "KeysMap: " + request.getURI());
+        try {
+            return ByteStreams.toByteArray(inputStream);
+        } catch (IOException e) {
+            // closing stream would read rest of too large body
+            request.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Read cached keysMap, content and validators are stored in one file, so they always match.
+     */
+    private static CachedKeysMap readCache(Path cacheFile, String location) {
+
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+
+            if (inputStream.readInt() != CACHE_MAGIC || !location.equals(inputStream.readUTF())) {
+                LOG.debug("Not valid keysMap cache: {}", cacheFile);
+                return null;
+            }
+
+            String etag = Strings.emptyToNull(inputStream.readUTF());
+            String lastModified = Strings.emptyToNull(inputStream.readUTF());
+            byte[] content = new byte[inputStream.readInt()];
+            inputStream.readFully(content);
+
+            return new CachedKeysMap(content, etag, lastModified);
+        } catch (IOException e) {
+            LOG.warn("Read keysMap from cache: {} failed - {}", cacheFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void storeCache(Path cacheFile, String location, CachedKeysMap cached) {
+
+        try {
+            Files.createDirectories(cacheFile.getParent());
+
+            Path partFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".part");
+            try {
+                try (DataOutputStream outputStream = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(partFile)))) {
+                    outputStream.writeInt(CACHE_MAGIC);
+                    outputStream.writeUTF(location);
+                    outputStream.writeUTF(Strings.nullToEmpty(cached.getEtag()));
+                    outputStream.writeUTF(Strings.nullToEmpty(cached.getLastModified()));
+                    outputStream.writeInt(cached.getContent().length);
+                    outputStream.write(cached.getContent());
+                }
+                Files.move(partFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partFile);
+            }
+        } catch (IOException e) {
+            // keysMap was fetched, so problem with cache is not fatal
+            LOG.warn("Store keysMap in cache: {} failed - {}", cacheFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Index of keysMap entries by groupId.
+ * <p>
+ * Entries with exact groupId are kept in hash buckets, entries with <code>group.*</code> pattern are kept
+ * by group prefix, so for artifact only entries for its groupId and groupId prefixes are checked.
+ * Rest of entries, with other wildcards, are always checked.
+ * <p>
+ * Entries from many keysMaps are merged in one index, for each entry location of keysMap is remembered.
+ * Buckets of index are merged with entries, so index of keysMap is built only once when keysMap is parsed.
+ *
+ * @author Slawomir Jaranowski.
+ */
+class KeysMapIndex {
+
+    private static final Pattern SIMPLE_GROUP_ID = Pattern.compile("^[a-z0-9_\\-]+(\\.[a-z0-9_\\-]+)*$");
+    private static final String PREFIX_SUFFIX = ".*";
+    private static final int MAX_RESOLVED = 20_000;
+
+    private final List<ArtifactInfo> entries;
+    private final List<String> sources;
+
+    private final Map<String, int[]> exactGroups;
+    private final Map<String, int[]> prefixGroups;
+    private final int[] otherEntries;
+
+    private final Cache<String, KeysMapMatch> resolved = CacheBuilder.newBuilder()
+            .maximumSize(MAX_RESOLVED)
+            .build();
+
+    KeysMapIndex(List<ArtifactInfo> entries) {
+        this(entries, Collections.nCopies(entries.size(), ""));
+    }
+
+    /**
+     * Create index.
+     *
+     * @param entries keysMap entries in order of precedence
+     * @param sources keysMap location for each entry
+     */
+    KeysMapIndex(List<ArtifactInfo> entries, List<String> sources) {
+
+        if (entries.size() != sources.size()) {
+            throw new IllegalArgumentException("Each keysMap entry should have a source");
+        }
+
+        this.entries = new ArrayList<>(entries);
+        this.sources = new ArrayList<>(sources);
+
+        Map<String, List<Integer>> exact = new HashMap<>();
+        Map<String, List<Integer>> prefix = new HashMap<>();
+        List<Integer> other = new ArrayList<>();
+
+        for (int i = 0; i < entries.size(); i++) {
+            String groupId = entries.get(i).getGroupIdSpec();
+
+            if (SIMPLE_GROUP_ID.matcher(groupId).matches()) {
+                exact.computeIfAbsent(groupId, k -> new ArrayList<>()).add(i);
+            } else if (groupId.endsWith(PREFIX_SUFFIX) && SIMPLE_GROUP_ID.matcher(
+                    groupId.substring(0, groupId.length() - PREFIX_SUFFIX.length())).matches()) {
+                prefix.computeIfAbsent(groupId.substring(0, groupId.length() - PREFIX_SUFFIX.length()),
+                        k -> new ArrayList<>()).add(i);
+            } else {
+                other.add(i);
+            }
+        }
+
+        this.exactGroups = toArrays(exact);
+        this.prefixGroups = toArrays(prefix);
+        this.otherEntries = toArray(other);
+    }
+
+    /**
+     * Create index from already built buckets.
+     *
+     * @param entries      keysMap entries in order of precedence
+     * @param exactGroups  indexes of entries by exact groupId
+     * @param prefixGroups indexes of entries by groupId prefix
+     * @param otherEntries indexes of entries always checked
+     */
+    KeysMapIndex(List<ArtifactInfo> entries, Map<String, int[]> exactGroups, Map<String, int[]> prefixGroups,
+            int[] otherEntries) {
+        this(entries, Collections.nCopies(entries.size(), ""), exactGroups, prefixGroups, otherEntries);
+    }
+
+    private KeysMapIndex(List<ArtifactInfo> entries, List<String> sources, Map<String, int[]> exactGroups,
+            Map<String, int[]> prefixGroups, int[] otherEntries) {
+
+        checkIndexes(entries.size(), otherEntries);
+        exactGroups.values().forEach(indexes -> checkIndexes(entries.size(), indexes));
+        prefixGroups.values().forEach(indexes -> checkIndexes(entries.size(), indexes));
+
+        this.entries = entries;
+        this.sources = sources;
+        this.exactGroups = exactGroups;
+        this.prefixGroups = prefixGroups;
+        this.otherEntries = otherEntries;
+    }
+
+    private static void checkIndexes(int size, int[] indexes) {
+        for (int i : indexes) {
+            if (i < 0 || i >= size) {
+                throw new IllegalArgumentException("Index of keysMap entry: " + i + " out of range: " + size);
+            }
+        }
+    }
+
+    /**
+     * Create index with the same entries and buckets for given keysMap location.
+     *
+     * @param source keysMap location for all entries
+     *
+     * @return index with source
+     */
+    KeysMapIndex withSource(String source) {
+        return new KeysMapIndex(entries, Collections.nCopies(entries.size(), source),
+                exactGroups, prefixGroups, otherEntries);
+    }
+
+    /**
+     * Merge indexes, buckets are merged without classification of entries.
+     *
+     * @param indexes indexes in order of precedence
+     *
+     * @return merged index
+     */
+    static KeysMapIndex merge(List<KeysMapIndex> indexes) {
+
+        if (indexes.size() == 1) {
+            return indexes.get(0);
+        }
+
+        List<ArtifactInfo> entries = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        Map<String, int[]> exact = new HashMap<>();
+        Map<String, int[]> prefix = new HashMap<>();
+        int[] other = new int[0];
+
+        for (KeysMapIndex index : indexes) {
+            int offset = entries.size();
+            entries.addAll(index.entries);
+            sources.addAll(index.sources);
+            index.exactGroups.forEach((k, v) -> exact.merge(k, shift(v, offset), KeysMapIndex::concat));
+            index.prefixGroups.forEach((k, v) -> prefix.merge(k, shift(v, offset), KeysMapIndex::concat));
+            other = concat(other, shift(index.otherEntries, offset));
+        }
+
+        return new KeysMapIndex(entries, sources, exact, prefix, other);
+    }
+
+    private static int[] shift(int[] indexes, int offset) {
+        return Arrays.stream(indexes).map(i -> i + offset).toArray();
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] ret = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, ret, first.length, second.length);
+        return ret;
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> map) {
+        Map<String, int[]> ret = new HashMap<>(map.size() * 2);
+        map.forEach((k, v) -> ret.put(k, toArray(v)));
+        return ret;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    List<ArtifactInfo> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    List<String> getSources() {
+        return Collections.unmodifiableList(sources);
+    }
+
+    Map<String, int[]> getExactGroups() {
+        return Collections.unmodifiableMap(exactGroups);
+    }
+
+    Map<String, int[]> getPrefixGroups() {
+        return Collections.unmodifiableMap(prefixGroups);
+    }
+
+    int[] getOtherEntries() {
+        return otherEntries.clone();
+    }
+
+    /**
+     * Resolve keysMap for given artifact, result is remembered for artifact coordinates.
+     *
+     * @param artifactData artifact to resolve
+     *
+     * @return matching result
+     */
+    KeysMapMatch resolve(ArtifactData artifactData) {
+        String key = String.join(":", artifactData.getGroupId(), artifactData.getArtifactId(),
+                artifactData.getType(), artifactData.getVersion());
+        return resolved.asMap().computeIfAbsent(key, k -> {
+            int[] matching = getMatchingIndexes(artifactData);
+            List<ArtifactInfo> matchingEntries = new ArrayList<>(matching.length);
+            List<String> matchingSources = new ArrayList<>(matching.length);
+            for (int i : matching) {
+                matchingEntries.add(entries.get(i));
+                matchingSources.add(sources.get(i));
+            }
+            return new KeysMapMatch(entries.isEmpty(), matchingEntries, matchingSources);
+        });
+    }
+
+    /**
+     * Find entries matching to given artifact.
+     *
+     * @param artifactData artifact to match
+     *
+     * @return matching entries in order from keysMap
+     */
+    List<ArtifactInfo> getMatching(ArtifactData artifactData) {
+
+        int[] matching = getMatchingIndexes(artifactData);
+
+        List<ArtifactInfo> ret = new ArrayList<>(matching.length);
+        for (int i : matching) {
+            ret.add(entries.get(i));
+        }
+        return ret;
+    }
+
+    private int[] getMatchingIndexes(ArtifactData artifactData) {
+
+        if (entries.isEmpty()) {
+            return new int[0];
+        }
+
+        int[] candidates = getCandidates(artifactData.getGroupId());
+
+        return Arrays.stream(candidates)
+                .filter(candidate -> entries.get(candidate).isMatch(artifactData))
+                .toArray();
+    }
+
+    private int[] getCandidates(String groupId) {
+
+        List<int[]> candidates = new ArrayList<>();
+        addCandidates(candidates, exactGroups.get(groupId));
+
+        // pattern group.* match group and all subgroups
+        addCandidates(candidates, prefixGroups.get(groupId));
+        int dotIndex = groupId.indexOf('.');
+        while (dotIndex > 0) {
+            addCandidates(candidates, prefixGroups.get(groupId.substring(0, dotIndex)));
+            dotIndex = groupId.indexOf('.', dotIndex + 1);
+        }
+
+        addCandidates(candidates, otherEntries);
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        // keep order from keysMap
+        int[] ret = candidates.stream().flatMapToInt(Arrays::stream).toArray();
+        Arrays.sort(ret);
+        return ret;
+    }
+
+    private static void addCandidates(List<int[]> candidates, int[] items) {
+        if (items != null && items.length > 0) {
+            candidates.add(items);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.util.encoders.Hex;
+import org.simplify4u.plugins.utils.PublicKeyUtils;
+
+/**
+ * Result of keysMap resolution for one artifact.
+ * <p>
+ * Matching keysMap entries are found once, all checks for artifact are answered from them.
+ *
+ * @author Slawomir Jaranowski.
+ */
+public final class KeysMapMatch {
+
+    private static final int MAX_CACHED_MASTER_KEYS = 1_000;
+
+    /**
+     * Master key fingerprints by sub key fingerprint, master key is resolved once for each sub key
+     * and not for each checked artifact, also when keys ring is loaded again from cache.
+     */
+    private static final Cache<String, byte[]> MASTER_FINGERPRINTS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_MASTER_KEYS)
+            .build();
+
+    private final boolean keysMapEmpty;
+    private final List<ArtifactInfo> matching;
+    private final List<String> sources;
+
+    private final boolean noSignature;
+    private final boolean brokenSignature;
+    private final boolean keyMissing;
+    private final boolean withKey;
+
+    KeysMapMatch(boolean keysMapEmpty, List<ArtifactInfo> matching, List<String> sources) {
+        this.keysMapEmpty = keysMapEmpty;
+        this.matching = Collections.unmodifiableList(new ArrayList<>(matching));
+        this.sources = Collections.unmodifiableList(sources.stream()
+                .filter(source -> !source.isEmpty())
+                .distinct()
+                .collect(Collectors.toList()));
+
+        this.noSignature = matching.stream().anyMatch(ArtifactInfo::isNoSignature);
+        this.brokenSignature = matching.stream().anyMatch(ArtifactInfo::isBrokenSignature);
+        this.keyMissing = matching.stream().anyMatch(ArtifactInfo::isKeyMissing);
+        this.withKey = !matching.isEmpty() && !matching.get(0).isNoSignature();
+    }
+
+    /**
+     * Artifact can has no signature.
+     *
+     * @return signature status
+     */
+    public boolean isNoSignature() {
+        return noSignature;
+    }
+
+    /**
+     * Artifact can has broken signature.
+     *
+     * @return broken signature status
+     */
+    public boolean isBrokenSignature() {
+        return brokenSignature;
+    }
+
+    /**
+     * Key for signature can be not found on public key servers.
+     *
+     * @return key missing status
+     */
+    public boolean isKeyMissing() {
+        return keyMissing;
+    }
+
+    /**
+     * The first entry matching artifact requires signature.
+     *
+     * @return with key status
+     */
+    public boolean isWithKey() {
+        return withKey;
+    }
+
+    /**
+     * Locations of keysMaps with entries matching artifact.
+     *
+     * @return keysMap locations in order of precedence
+     */
+    public List<String> getSources() {
+        return sources;
+    }
+
+    /**
+     * Check if artifact can be signed by given key, any key is valid for empty keysMap.
+     *
+     * @param key     key used for signature
+     * @param keyRing keys ring to find master key
+     *
+     * @return key matching status
+     */
+    public boolean isValidKey(PGPPublicKey key, PGPPublicKeyRing keyRing) {
+        if (keysMapEmpty) {
+            return true;
+        }
+
+        byte[] fingerprint = key.getFingerprint();
+        if (matching.stream().anyMatch(artifactInfo -> artifactInfo.isKeyMatch(fingerprint))) {
+            return true;
+        }
+
+        return getMasterFingerprint(key, keyRing)
+                .filter(masterFingerprint -> matching.stream()
+                        .anyMatch(artifactInfo -> artifactInfo.isKeyMatch(masterFingerprint)))
+                .isPresent();
+    }
+
+    private static Optional<byte[]> getMasterFingerprint(PGPPublicKey key, PGPPublicKeyRing keyRing) {
+
+        if (key.isMasterKey()) {
+            return Optional.empty();
+        }
+
+        String subKeyFingerprint = Hex.toHexString(key.getFingerprint());
+        byte[] masterFingerprint = MASTER_FINGERPRINTS.getIfPresent(subKeyFingerprint);
+        if (masterFingerprint != null) {
+            return Optional.of(masterFingerprint);
+        }
+
+        // master key not found in given keys ring is not remembered, it can be found in other keys ring
+        Optional<byte[]> ret = PublicKeyUtils.getMasterKey(key, keyRing).map(PGPPublicKey::getFingerprint);
+        ret.ifPresent(fingerprint -> MASTER_FINGERPRINTS.put(subKeyFingerprint, fingerprint));
+        return ret;
+    }
+}
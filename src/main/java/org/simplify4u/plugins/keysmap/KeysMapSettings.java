@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.io.File;
+
+import lombok.Builder;
+import lombok.Value;
+import org.apache.maven.settings.Proxy;
+
+/**
+ * Configuration of keysMap loading.
+ */
+@Value
+@Builder
+public class KeysMapSettings {
+
+    public static final long DEFAULT_MAX_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * Directory for storing keysMaps fetched from http(s) locations and parsed keysMaps,
+     * <code>null</code> means no disk cache.
+     */
+    File cachePath;
+
+    /**
+     * In offline mode keysMaps from http(s) locations are only read from disk cache.
+     */
+    boolean offline;
+
+    /**
+     * Proxy from Maven settings used for fetching keysMaps from http(s) locations,
+     * <code>null</code> means system proxy configuration.
+     */
+    Proxy proxy;
+
+    /**
+     * The maximum size (in bytes) of keysMap fetched from http(s) location.
+     */
+    @Builder.Default
+    long maxSize = DEFAULT_MAX_SIZE;
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Compile patterns from keysMap items into string matchers.
+ * <p>
+ * The most common patterns: empty, exact value, <code>group.*</code>, <code>prefix*</code>,
+ * <code>*suffix</code> and other <code>*</code> wildcards are matched by simple string operations,
+ * regular expressions are used only for patterns with other special characters.
+ * <p>
+ * Matcher is described by its kind and literals, so it can be stored and created again without
+ * classification of pattern.
+ *
+ * @author Slawomir Jaranowski.
+ */
+final class PatternMatcher implements Predicate<String> {
+
+    /**
+     * Kind of matcher, literals used by each kind are described for items.
+     */
+    enum Kind {
+        /**
+         * Match any value, no literals.
+         */
+        ANY,
+        /**
+         * Value equals to literal.
+         */
+        EXACT,
+        /**
+         * Value is group from literal or its subgroup.
+         */
+        GROUP,
+        /**
+         * Value starts with literal.
+         */
+        PREFIX,
+        /**
+         * Value ends with literal.
+         */
+        SUFFIX,
+        /**
+         * Value starts with first literal and ends with second.
+         */
+        PREFIX_SUFFIX,
+        /**
+         * Literals are segments between stars which must occur in order.
+         */
+        GLOB,
+        /**
+         * Value match regular expression from literal.
+         */
+        REGEX
+    }
+
+    private static final String GROUP_SUFFIX = ".*";
+    private static final String REGEX_SPECIAL = "\\[](){}+?^$|";
+
+    private static final Pattern DOT_REPLACE = Pattern.compile("\\.");
+    private static final Pattern STAR_REPLACE = Pattern.compile("\\*");
+
+    private final Kind kind;
+    private final String[] literals;
+    private final Predicate<String> matcher;
+
+    private PatternMatcher(Kind kind, String[] literals) {
+        this.kind = kind;
+        this.literals = literals.clone();
+        this.matcher = createMatcher(kind, this.literals);
+    }
+
+    /**
+     * Create matcher of given kind.
+     *
+     * @param kind     kind of matcher
+     * @param literals literals for matcher kind
+     *
+     * @return matcher
+     *
+     * @throws java.util.regex.PatternSyntaxException for invalid regular expression
+     */
+    static PatternMatcher of(Kind kind, String... literals) {
+        return new PatternMatcher(kind, literals);
+    }
+
+    /**
+     * Compile pattern into matcher.
+     *
+     * @param spec pattern from keysMap item
+     *
+     * @return matcher for pattern
+     *
+     * @throws java.util.regex.PatternSyntaxException for invalid pattern which requires regular expression
+     */
+    static PatternMatcher compile(String spec) {
+
+        if (spec.isEmpty() || "*".equals(spec)) {
+            return of(Kind.ANY);
+        }
+
+        if (containsRegexSpecial(spec)) {
+            return of(Kind.REGEX, patternPrepare(spec));
+        }
+
+        if (spec.endsWith(GROUP_SUFFIX)) {
+            String group = spec.substring(0, spec.length() - GROUP_SUFFIX.length());
+            if (group.indexOf('*') >= 0) {
+                // star before .* is treated as regular expression quantifier
+                return of(Kind.REGEX, patternPrepare(spec));
+            }
+            return of(Kind.GROUP, group);
+        }
+
+        int firstStar = spec.indexOf('*');
+        if (firstStar < 0) {
+            return of(Kind.EXACT, spec);
+        }
+
+        int lastStar = spec.lastIndexOf('*');
+        if (firstStar == lastStar) {
+            String prefix = spec.substring(0, firstStar);
+            String suffix = spec.substring(firstStar + 1);
+            if (suffix.isEmpty()) {
+                return of(Kind.PREFIX, prefix);
+            }
+            if (prefix.isEmpty()) {
+                return of(Kind.SUFFIX, suffix);
+            }
+            return of(Kind.PREFIX_SUFFIX, prefix, suffix);
+        }
+
+        return of(Kind.GLOB, spec.split("\\*", -1));
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String[] getLiterals() {
+        return literals.clone();
+    }
+
+    @Override
+    public boolean test(String str) {
+        return matcher.test(str);
+    }
+
+    /**
+     * Translate pattern into regular expression.
+     */
+    static String patternPrepare(String str) {
+
+        if (str.length() == 0) {
+            return ".*";
+        }
+
+        String ret;
+        if (str.endsWith(GROUP_SUFFIX)) {
+            ret = str.substring(0, str.length() - 2) + "(\\..+)?$";
+        } else {
+            ret = DOT_REPLACE.matcher(str).replaceAll("\\\\.");
+            ret = STAR_REPLACE.matcher(ret).replaceAll(".*");
+        }
+        return ret;
+    }
+
+    private static boolean containsRegexSpecial(String spec) {
+        for (int i = 0; i < spec.length(); i++) {
+            if (REGEX_SPECIAL.indexOf(spec.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Predicate<String> createMatcher(Kind kind, String[] literals) {
+
+        switch (kind) {
+            case ANY:
+                return str -> true;
+            case EXACT:
+                return literals[0]::equals;
+            case GROUP:
+                return groupMatcher(literals[0]);
+            case PREFIX:
+                return str -> str.startsWith(literals[0]);
+            case SUFFIX:
+                return str -> str.endsWith(literals[0]);
+            case PREFIX_SUFFIX:
+                return prefixSuffixMatcher(literals[0], literals[1]);
+            case GLOB:
+                return globMatcher(literals);
+            case REGEX:
+                return regexMatcher(literals[0]);
+            default:
+                throw new IllegalArgumentException("Unsupported pattern matcher kind: " + kind);
+        }
+    }
+
+    private static Predicate<String> regexMatcher(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return str -> pattern.matcher(str).matches();
+    }
+
+    private static Predicate<String> prefixSuffixMatcher(String prefix, String suffix) {
+        int minLength = prefix.length() + suffix.length();
+        return str -> str.length() >= minLength && str.startsWith(prefix) && str.endsWith(suffix);
+    }
+
+    /**
+     * Pattern <code>group.*</code> match group and all subgroups.
+     */
+    private static Predicate<String> groupMatcher(String group) {
+        int groupLength = group.length();
+        return str -> str.startsWith(group)
+                && (str.length() == groupLength
+                || str.length() > groupLength + 1 && str.charAt(groupLength) == '.');
+    }
+
+    /**
+     * Pattern with many stars, segments between stars must occur in order.
+     */
+    private static Predicate<String> globMatcher(String[] segments) {
+
+        String first = segments[0];
+        String last = segments[segments.length - 1];
+
+        int minLength = 0;
+        for (String segment : segments) {
+            minLength += segment.length();
+        }
+        int minLengthFinal = minLength;
+
+        return str -> {
+            if (str.length() < minLengthFinal || !str.startsWith(first) || !str.endsWith(last)) {
+                return false;
+            }
+
+            int pos = first.length();
+            int end = str.length() - last.length();
+            for (int i = 1; i < segments.length - 1; i++) {
+                String segment = segments[i];
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                int found = str.indexOf(segment, pos);
+                if (found < 0 || found + segment.length() > end) {
+                    return false;
+                }
+                pos = found + segment.length();
+            }
+            return true;
+        };
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.Restriction;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+/**
+ * Compile version from keysMap items into artifact version matcher.
+ * <p>
+ * Matcher is described by its kind, version and range restrictions, so it can be stored
+ * and created again without parsing version specification.
+ *
+ * @author Slawomir Jaranowski.
+ */
+final class VersionMatcher implements Predicate<ArtifactData> {
+
+    /**
+     * Kind of version matcher.
+     */
+    enum Kind {
+        /**
+         * Match any version.
+         */
+        ANY,
+        /**
+         * Version equals to specification.
+         */
+        EXACT,
+        /**
+         * Version in range restrictions.
+         */
+        RANGE
+    }
+
+    private static final int MAX_CACHED_RANGE_RESULTS = 1_000;
+
+    private final Kind kind;
+    private final String version;
+    private final List<Restriction> restrictions;
+    private final Predicate<ArtifactData> matcher;
+
+    private VersionMatcher(Kind kind, String version, List<Restriction> restrictions) {
+        this.kind = kind;
+        this.version = version;
+        this.restrictions = Collections.unmodifiableList(new ArrayList<>(restrictions));
+        this.matcher = createMatcher();
+    }
+
+    /**
+     * Matcher for any version.
+     */
+    static VersionMatcher any() {
+        return new VersionMatcher(Kind.ANY, "", Collections.emptyList());
+    }
+
+    /**
+     * Matcher for specific version.
+     */
+    static VersionMatcher exact(String version) {
+        return new VersionMatcher(Kind.EXACT, version, Collections.emptyList());
+    }
+
+    /**
+     * Matcher for version in ranges.
+     */
+    static VersionMatcher range(List<Restriction> restrictions) {
+        return new VersionMatcher(Kind.RANGE, "", restrictions);
+    }
+
+    /**
+     * Compile version specification into matcher.
+     *
+     * @param versionSpec version specification from keysMap item
+     *
+     * @return matcher for version
+     *
+     * @throws InvalidVersionSpecificationException for invalid version specification
+     */
+    static VersionMatcher compile(String versionSpec) throws InvalidVersionSpecificationException {
+
+        if (versionSpec.length() == 0 || "*".equals(versionSpec)) {
+            // special case - always true - the most common case
+            // fix for https://github.com/s4u/pgpverify-maven-plugin/issues/135
+            return any();
+        }
+
+        if (versionSpec.contains("*")) {
+            throw new InvalidVersionSpecificationException("Invalid maven version range: " + versionSpec);
+        }
+
+        VersionRange versionRange = VersionRange.createFromVersionSpec(versionSpec);
+        if (versionRange.hasRestrictions()) {
+            return range(versionRange.getRestrictions());
+        }
+
+        // only specific version to compare
+        return exact(versionSpec);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String getVersion() {
+        return version;
+    }
+
+    List<Restriction> getRestrictions() {
+        return restrictions;
+    }
+
+    @Override
+    public boolean test(ArtifactData artifactData) {
+        return matcher.test(artifactData);
+    }
+
+    private Predicate<ArtifactData> createMatcher() {
+
+        switch (kind) {
+            case ANY:
+                return artifact -> true;
+            case EXACT:
+                return artifact -> version.equals(artifact.getVersion());
+            case RANGE:
+                // check version in range, result is remembered for each checked version
+                Cache<String, Boolean> inRange = CacheBuilder.newBuilder()
+                        .maximumSize(MAX_CACHED_RANGE_RESULTS)
+                        .build();
+                return artifact -> inRange.asMap().computeIfAbsent(artifact.getVersion(),
+                        v -> containsVersion(artifact.getArtifactVersion()));
+            default:
+                throw new IllegalArgumentException("Unsupported version matcher kind: " + kind);
+        }
+    }
+
+    private boolean containsVersion(ArtifactVersion artifactVersion) {
+        for (Restriction restriction : restrictions) {
+            if (restriction.containsVersion(artifactVersion)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -18,9 +18,11 @@ package org.simplify4u.plugins.utils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -165,6 +167,36 @@ public final class PublicKeyUtils {
         return publicKeyRing;
     }
 
+    /**
+     * Load all Public Keys rings from stream, eg. from exported keyring.
+     * <p>
+     * Key rings with invalid signatures for subKeys are skipped.
+     *
+     * @param keyStream
+     *         input stream with public keys
+     *
+     * @return valid key rings
+     *
+     * @throws IOException
+     *         if problem with comunication
+     * @throws PGPException
+     *         if problem with PGP data
+     */
+    public static List<PGPPublicKeyRing> loadPublicKeyRings(InputStream keyStream) throws IOException, PGPException {
+
+        InputStream keyIn = PGPUtil.getDecoderStream(keyStream);
+        PGPPublicKeyRingCollection pgpRing = new PGPPublicKeyRingCollection(keyIn, new BcKeyFingerprintCalculator());
+
+        List<PGPPublicKeyRing> ret = new ArrayList<>();
+        pgpRing.getKeyRings().forEachRemaining(publicKeyRing ->
+                Try.run(() -> verifyPublicKeyRing(publicKeyRing))
+                        .onSuccess(v -> ret.add(publicKeyRing))
+                        .onFailure(e -> LOGGER.warn("Skip invalid key ring: {} - {}",
+                                fingerprint(publicKeyRing.getPublicKey()), e.getMessage())));
+
+        return ret;
+    }
+
     /**
      * Validate signatures for subKeys in given key ring.
      *
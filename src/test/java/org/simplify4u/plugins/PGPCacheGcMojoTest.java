@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.simplify4u.plugins.keyserver.KeyCacheCleanResult;
+import org.simplify4u.plugins.keyserver.PGPKeysCache;
+import org.simplify4u.plugins.utils.PGPSignatureUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+@Listeners(MockitoTestNGListener.class)
+public class PGPCacheGcMojoTest {
+
+    @Mock
+    private ArtifactResolver artifactResolver;
+
+    @Mock
+    private PGPKeysCache pgpKeysCache;
+
+    @Mock
+    private PGPSignatureUtils pgpSignatureUtils;
+
+    private PGPCacheGcMojo mojo;
+
+    @BeforeMethod
+    void setup() {
+        mojo = new PGPCacheGcMojo(artifactResolver, pgpKeysCache, pgpSignatureUtils, null);
+    }
+
+    @Test
+    void shouldCleanCacheWithoutKeyServers() throws MojoFailureException, MojoExecutionException, IOException {
+
+        // given
+        when(pgpKeysCache.cleanCache(any(Duration.class), anyLong()))
+                .thenReturn(KeyCacheCleanResult.builder().build());
+
+        // when
+        mojo.execute();
+
+        // then
+        verify(pgpKeysCache).init((File) isNull());
+        verify(pgpKeysCache).cleanCache(any(Duration.class), anyLong());
+        verifyNoMoreInteractions(pgpKeysCache);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.simplify4u.plugins.keyserver.KeyCacheSettings;
+import org.simplify4u.plugins.keyserver.KeyServerClientSettings;
+import org.simplify4u.plugins.keyserver.PGPKeysCache;
+import org.simplify4u.plugins.utils.PGPSignatureUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+@Listeners(MockitoTestNGListener.class)
+public class PGPImportKeysMojoTest {
+
+    @Mock
+    private ArtifactResolver artifactResolver;
+
+    @Mock
+    private PGPKeysCache pgpKeysCache;
+
+    @Mock
+    private PGPSignatureUtils pgpSignatureUtils;
+
+    private PGPImportKeysMojo mojo;
+
+    @BeforeMethod
+    void setup() {
+        mojo = new PGPImportKeysMojo(artifactResolver, pgpKeysCache, pgpSignatureUtils, null);
+    }
+
+    @Test
+    void shouldImportKeysFromFile() throws MojoFailureException, MojoExecutionException, IOException,
+            URISyntaxException {
+
+        // given
+        mojo.setKeysFile(new File(getClass().getResource("/EFE8086F9E93774E.asc").toURI()));
+        when(pgpKeysCache.importKeyRings(any(InputStream.class))).thenReturn(1);
+
+        // when
+        mojo.execute();
+
+        // then
+        verify(pgpKeysCache).init(any(KeyCacheSettings.class), any(KeyServerClientSettings.class));
+        verify(pgpKeysCache).importKeyRings(any(InputStream.class));
+    }
+
+    @Test
+    void shouldThrowExceptionForNotExistingFile() {
+
+        // given
+        mojo.setKeysFile(new File("not-existing.asc"));
+
+        // when, then
+        assertThatCode(() -> mojo.execute())
+                .isExactlyInstanceOf(PGPMojoException.class)
+                .hasMessage("The parameter 'keysFile' is miss or file not exist: not-existing.asc");
+    }
+}
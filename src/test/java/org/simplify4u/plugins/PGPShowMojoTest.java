@@ -40,6 +40,8 @@ import org.bouncycastle.openpgp.PGPException;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.testng.MockitoTestNGListener;
+import org.simplify4u.plugins.keyserver.KeyCacheSettings;
+import org.simplify4u.plugins.keyserver.KeyServerClientSettings;
 import org.simplify4u.plugins.keyserver.PGPKeysCache;
 import org.simplify4u.plugins.pgp.ArtifactInfo;
 import org.simplify4u.plugins.pgp.KeyInfo;
@@ -139,7 +141,7 @@ public class PGPShowMojoTest {
         verify(pgpSignatureUtils).getSignatureInfo(artifact, artifactAsc, pgpKeysCache);
         verify(pgpSignatureUtils).keyAlgorithmName(anyInt());
 
-        verify(pgpKeysCache).init(null, null, false, null);
+        verify(pgpKeysCache).init(any(KeyCacheSettings.class), any(KeyServerClientSettings.class));
 
         verifyNoMoreInteractions(artifactResolver, pgpKeysCache, pgpSignatureUtils, repositorySystem);
     }
@@ -166,7 +168,7 @@ public class PGPShowMojoTest {
         verify(artifactResolver).resolveSignatures(anyCollection(), eq(NONE));
 
 
-        verify(pgpKeysCache).init(null, null, false, null);
+        verify(pgpKeysCache).init(any(KeyCacheSettings.class), any(KeyServerClientSettings.class));
 
         verifyNoMoreInteractions(artifactResolver, pgpKeysCache, pgpSignatureUtils, repositorySystem);
     }
@@ -204,7 +206,7 @@ public class PGPShowMojoTest {
 
         verify(pgpSignatureUtils).keyAlgorithmName(anyInt());
 
-        verify(pgpKeysCache).init(null, null, false, null);
+        verify(pgpKeysCache).init(any(KeyCacheSettings.class), any(KeyServerClientSettings.class));
 
         verifyNoMoreInteractions(artifactResolver, pgpKeysCache, pgpSignatureUtils, repositorySystem);
     }
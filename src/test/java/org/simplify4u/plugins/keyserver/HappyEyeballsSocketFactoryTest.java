@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class HappyEyeballsSocketFactoryTest {
+
+    private static final String TEST_HOST = "keys.example.com";
+
+    // not routed address - connection will hang or fail
+    private static final byte[] BLACK_HOLE = {10, (byte) 255, (byte) 255, 1};
+
+    private ServerSocket serverSocket;
+
+    @BeforeMethod
+    void setup() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    void cleanup() throws IOException {
+        serverSocket.close();
+    }
+
+    private KeyServerAddresses keyServerAddresses(InetAddress... addresses) {
+        return new KeyServerAddresses(Duration.ofMinutes(1), Duration.ofMinutes(1), System::currentTimeMillis,
+                hostName -> addresses);
+    }
+
+    @Test
+    public void shouldConnectToNextAddressWhenFirstHangs() throws IOException {
+
+        InetAddress blackHole = InetAddress.getByAddress(TEST_HOST, BLACK_HOLE);
+        InetAddress loopback = InetAddress.getByAddress(TEST_HOST, InetAddress.getLoopbackAddress().getAddress());
+
+        HappyEyeballsSocketFactory socketFactory = new HappyEyeballsSocketFactory(
+                PlainConnectionSocketFactory.getSocketFactory(), keyServerAddresses(blackHole, loopback),
+                Duration.ofMillis(50));
+
+        HttpHost httpHost = new HttpHost(TEST_HOST, serverSocket.getLocalPort());
+        InetSocketAddress remoteAddress = new InetSocketAddress(blackHole, serverSocket.getLocalPort());
+
+        long start = System.nanoTime();
+        try (Socket socket = socketFactory.connectSocket(5000, socketFactory.createSocket(null), httpHost,
+                remoteAddress, null, null)) {
+
+            assertThat(socket.isConnected()).isTrue();
+            assertThat(socket.getInetAddress()).isEqualTo(loopback);
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void shouldUseOnlyRouteAddressForOneAddressHost() throws IOException {
+
+        InetAddress loopback = InetAddress.getByAddress(TEST_HOST, InetAddress.getLoopbackAddress().getAddress());
+
+        HappyEyeballsSocketFactory socketFactory = new HappyEyeballsSocketFactory(
+                PlainConnectionSocketFactory.getSocketFactory(), keyServerAddresses(loopback), Duration.ofMillis(50));
+
+        HttpHost httpHost = new HttpHost(TEST_HOST, serverSocket.getLocalPort());
+        InetSocketAddress remoteAddress = new InetSocketAddress(loopback, serverSocket.getLocalPort());
+
+        try (Socket socket = socketFactory.connectSocket(5000, socketFactory.createSocket(null), httpHost,
+                remoteAddress, null, null)) {
+
+            assertThat(socket.isConnected()).isTrue();
+            assertThat(socket.getInetAddress()).isEqualTo(loopback);
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenAllAddressFailed() throws IOException {
+
+        InetAddress blackHole = InetAddress.getByAddress(TEST_HOST, BLACK_HOLE);
+        InetAddress loopback = InetAddress.getByAddress(TEST_HOST, InetAddress.getLoopbackAddress().getAddress());
+
+        HappyEyeballsSocketFactory socketFactory = new HappyEyeballsSocketFactory(
+                PlainConnectionSocketFactory.getSocketFactory(), keyServerAddresses(blackHole, loopback),
+                Duration.ofMillis(50));
+
+        int port = serverSocket.getLocalPort();
+        serverSocket.close();
+
+        HttpHost httpHost = new HttpHost(TEST_HOST, port);
+        InetSocketAddress remoteAddress = new InetSocketAddress(blackHole, port);
+
+        assertThatCode(() -> socketFactory.connectSocket(500, socketFactory.createSocket(null), httpHost,
+                remoteAddress, null, null))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeyCacheArchiveTest {
+
+    private Path tempPath;
+    private File cachePath;
+
+    @BeforeMethod
+    void setup() throws IOException {
+        tempPath = Files.createTempDirectory("cache-archive-test");
+        cachePath = tempPath.resolve("cache").toFile();
+
+        copyKey("/EFE8086F9E93774E.asc", "EF/E8/EFE8086F9E93774E.asc");
+        copyKey("/EFE8086F9E93774E.asc", "EF/E8/EFE8086F9E93774F.asc");
+        copyKey("/F8484389379ACEAC.asc", "F8/48/F8484389379ACEAC.asc");
+        copyKey("/wrong.asc", "00/00/0000000000000000.asc");
+    }
+
+    @AfterMethod
+    void cleanup() throws IOException {
+        MoreFiles.deleteRecursively(tempPath, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    private void copyKey(String resource, String keyPath) throws IOException {
+        Path keyFile = cachePath.toPath().resolve(keyPath);
+        Files.createDirectories(keyFile.getParent());
+        try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+            Files.copy(inputStream, keyFile);
+        }
+    }
+
+    @Test
+    void exportShouldBeDeterministic() throws IOException {
+
+        File archive1 = tempPath.resolve("archive1.zip").toFile();
+        File archive2 = tempPath.resolve("archive2.zip").toFile();
+
+        assertThat(KeyCacheArchive.exportCache(cachePath, archive1)).isEqualTo(3);
+        assertThat(KeyCacheArchive.exportCache(cachePath, archive2)).isEqualTo(3);
+
+        assertThat(archive1).hasSameBinaryContentAs(archive2);
+        assertThat(KeyCacheArchive.hashFile(archive1)).isFile();
+    }
+
+    @Test
+    void importShouldRestoreCache() throws IOException {
+
+        File archive = tempPath.resolve("archive.zip").toFile();
+        KeyCacheArchive.exportCache(cachePath, archive);
+
+        File newCachePath = tempPath.resolve("new-cache").toFile();
+        assertThat(KeyCacheArchive.importCache(archive, newCachePath)).isEqualTo(3);
+
+        assertThat(new File(newCachePath, "EF/E8/EFE8086F9E93774E.asc")).isFile();
+        assertThat(new File(newCachePath, "EF/E8/EFE8086F9E93774F.asc")).isFile();
+        assertThat(new File(newCachePath, "F8/48/F8484389379ACEAC.asc")).isFile();
+        assertThat(new File(newCachePath, "00/00/0000000000000000.asc")).doesNotExist();
+
+        // existing keys are not replaced
+        assertThat(KeyCacheArchive.importCache(archive, newCachePath)).isZero();
+    }
+
+    @Test
+    void importShouldVerifyArchiveHash() throws IOException {
+
+        File archive = tempPath.resolve("archive.zip").toFile();
+        KeyCacheArchive.exportCache(cachePath, archive);
+
+        Files.write(KeyCacheArchive.hashFile(archive).toPath(),
+                "0000  archive.zip".getBytes(StandardCharsets.US_ASCII));
+
+        File newCachePath = tempPath.resolve("new-cache").toFile();
+        assertThatCode(() -> KeyCacheArchive.importCache(archive, newCachePath))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessageContaining("not match expected: 0000");
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeyCacheCleanerTest {
+
+    private static final long NOW = 1_600_000_000_000L;
+
+    private Path cachePath;
+
+    @BeforeMethod
+    void setup() throws IOException {
+        cachePath = Files.createTempDirectory("cache-clean-test");
+    }
+
+    @AfterMethod
+    void cleanup() throws IOException {
+        MoreFiles.deleteRecursively(cachePath, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    private Path copyKey(String resource, String keyPath, Duration lastUsed) throws IOException {
+        Path keyFile = cachePath.resolve(keyPath);
+        Files.createDirectories(keyFile.getParent());
+        try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+            Files.copy(inputStream, keyFile);
+        }
+        Files.setLastModifiedTime(keyFile, FileTime.fromMillis(NOW - lastUsed.toMillis()));
+        return keyFile;
+    }
+
+    @Test
+    void expiredAndCorruptKeysShouldBeRemoved() throws IOException {
+
+        Path usedKey = copyKey("/EFE8086F9E93774E.asc", "EF/E8/EFE8086F9E93774E.asc", Duration.ofDays(1));
+        Path expiredKey = copyKey("/F8484389379ACEAC.asc", "F8/48/F8484389379ACEAC.asc", Duration.ofDays(100));
+        Path corruptKey = copyKey("/wrong.asc", "00/00/0000000000000000.asc", Duration.ofDays(1));
+
+        KeyCacheCleanResult result = KeyCacheCleaner.clean(cachePath.toFile(), Duration.ofDays(30), 0, NOW);
+
+        assertThat(result.getRemovedExpired()).isEqualTo(1);
+        assertThat(result.getRemovedCorrupt()).isEqualTo(1);
+        assertThat(result.getRemovedOverSize()).isZero();
+        assertThat(result.getKeys()).isEqualTo(1);
+        assertThat(result.getSize()).isEqualTo(Files.size(usedKey));
+
+        assertThat(usedKey).isRegularFile();
+        assertThat(expiredKey).doesNotExist();
+        assertThat(corruptKey).doesNotExist();
+
+        // empty directories are also removed
+        assertThat(cachePath.resolve("F8")).doesNotExist();
+        assertThat(cachePath.resolve("00")).doesNotExist();
+    }
+
+    @Test
+    void leastRecentlyUsedKeysShouldBeRemovedAboveSizeLimit() throws IOException {
+
+        Path recentKey = copyKey("/EFE8086F9E93774E.asc", "EF/E8/EFE8086F9E93774E.asc", Duration.ofDays(1));
+        Path oldKey = copyKey("/F8484389379ACEAC.asc", "F8/48/F8484389379ACEAC.asc", Duration.ofDays(10));
+
+        KeyCacheCleanResult result = KeyCacheCleaner.clean(cachePath.toFile(), Duration.ZERO,
+                Files.size(recentKey), NOW);
+
+        assertThat(result.getRemovedOverSize()).isEqualTo(1);
+        assertThat(result.getKeys()).isEqualTo(1);
+
+        assertThat(recentKey).isRegularFile();
+        assertThat(oldKey).doesNotExist();
+    }
+
+    @Test
+    void onlyKeysChangedAfterPreviousCleaningShouldBeValidated() throws IOException {
+
+        Path validatedKey = copyKey("/wrong.asc", "00/00/0000000000000000.asc", Duration.ofDays(10));
+        Path newKey = copyKey("/wrong.asc", "00/00/0000000000000001.asc", Duration.ofDays(1));
+        Path emptyKey = cachePath.resolve("00/00/0000000000000002.asc");
+        Files.write(emptyKey, new byte[0]);
+        Files.setLastModifiedTime(emptyKey, FileTime.fromMillis(NOW - Duration.ofDays(10).toMillis()));
+
+        KeyCacheCleanResult result = KeyCacheCleaner.clean(cachePath.toFile(), Duration.ZERO, 0, NOW,
+                NOW - Duration.ofDays(5).toMillis());
+
+        assertThat(result.getRemovedCorrupt()).isEqualTo(2);
+        assertThat(result.getKeys()).isEqualTo(1);
+
+        // key not changed since previous cleaning is not parsed
+        assertThat(validatedKey).isRegularFile();
+        assertThat(newKey).doesNotExist();
+        assertThat(emptyKey).doesNotExist();
+    }
+
+    @Test
+    void touchShouldUpdateLastUsedTimeOncePerInterval() throws IOException {
+
+        File keyFile = copyKey("/EFE8086F9E93774E.asc", "EF/E8/EFE8086F9E93774E.asc", Duration.ofHours(1))
+                .toFile();
+
+        KeyCacheCleaner.touch(keyFile, NOW);
+        assertThat(keyFile.lastModified()).isEqualTo(NOW - Duration.ofHours(1).toMillis());
+
+        KeyCacheCleaner.touch(keyFile, NOW + Duration.ofDays(2).toMillis());
+        assertThat(keyFile.lastModified()).isEqualTo(NOW + Duration.ofDays(2).toMillis());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+import com.google.common.io.ByteStreams;
+import org.apache.maven.settings.Proxy;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.verify.VerificationTimes;
+import org.simplify4u.plugins.utils.PGPKeyId;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeyCacheTierHttpIT {
+
+    private static final PGPKeyId KEY_ID = PGPKeyId.from(0xEFE8086F9E93774EL);
+    private static final String KEY_PATH = "/cache/EF/E8/EFE8086F9E93774E.asc";
+
+    private ClientAndServer mockServer;
+
+    private KeyCacheTierHttp cacheTier;
+
+    @BeforeClass
+    void setupMockServer() {
+        mockServer = ClientAndServer.startClientAndServer(0);
+    }
+
+    @AfterClass(alwaysRun = true)
+    void cleanupMockServer() {
+        mockServer.stop();
+    }
+
+    @BeforeMethod
+    void setup() {
+        mockServer.reset();
+        cacheTier = new KeyCacheTierHttp(URI.create("http://localhost:" + mockServer.getLocalPort() + "/cache"),
+                true, null, KeyServerClientSettings.builder().build());
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = KeyCacheTierHttpIT.class.getResourceAsStream(name)) {
+            return ByteStreams.toByteArray(inputStream);
+        }
+    }
+
+    @Test
+    void keyShouldBeLoadedFromRemoteCache() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEY_PATH))
+                .respond(response().withStatusCode(200).withBody(readResource("/EFE8086F9E93774E.asc")));
+
+        assertThat(cacheTier.loadKey(KEY_ID))
+                .hasValueSatisfying(keyRing -> assertThat(keyRing.getPublicKey(0xEFE8086F9E93774EL)).isNotNull());
+    }
+
+    @Test
+    void notExistingKeyShouldReturnEmpty() throws IOException {
+
+        assertThat(cacheTier.loadKey(KEY_ID)).isEmpty();
+    }
+
+    @Test
+    void serverErrorShouldThrowException() {
+
+        mockServer.when(request().withPath(KEY_PATH)).respond(response().withStatusCode(500));
+
+        assertThatCode(() -> cacheTier.loadKey(KEY_ID))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessageStartingWith("Remote keys cache returned an error: HTTP/1.1 500");
+    }
+
+    @Test
+    void keyShouldBeStoredInRemoteCache() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEY_PATH))
+                .respond(response().withStatusCode(200).withBody(readResource("/EFE8086F9E93774E.asc")));
+        mockServer.when(request().withMethod("PUT").withPath(KEY_PATH))
+                .respond(response().withStatusCode(201));
+
+        Optional<PGPPublicKeyRing> keyRing = cacheTier.loadKey(KEY_ID);
+        assertThat(keyRing).isPresent();
+
+        cacheTier.storeKey(KEY_ID, keyRing.get());
+
+        mockServer.verify(request().withMethod("PUT").withPath(KEY_PATH)
+                .withHeader("Content-Type", "application/pgp-keys"), VerificationTimes.once());
+    }
+
+    @Test
+    void keyShouldNotBeStoredWithoutPush() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEY_PATH))
+                .respond(response().withStatusCode(200).withBody(readResource("/EFE8086F9E93774E.asc")));
+
+        KeyCacheTierHttp readOnlyTier = new KeyCacheTierHttp(
+                URI.create("http://localhost:" + mockServer.getLocalPort() + "/cache/"),
+                false, null, KeyServerClientSettings.builder().build());
+
+        Optional<PGPPublicKeyRing> keyRing = readOnlyTier.loadKey(KEY_ID);
+        assertThat(keyRing).isPresent();
+        assertThat(readOnlyTier.isReadOnly()).isTrue();
+
+        readOnlyTier.storeKey(KEY_ID, keyRing.get());
+
+        mockServer.verify(request().withMethod("PUT"), VerificationTimes.exactly(0));
+    }
+
+    @Test
+    void keyShouldBeLoadedThroughProxy() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEY_PATH).withHeader("Host", "keys-cache.example.com"))
+                .respond(response().withStatusCode(200).withBody(readResource("/EFE8086F9E93774E.asc")));
+
+        Proxy proxy = new Proxy();
+        proxy.setHost("localhost");
+        proxy.setPort(mockServer.getLocalPort());
+
+        KeyCacheTierHttp proxiedTier = new KeyCacheTierHttp(URI.create("http://keys-cache.example.com/cache"),
+                false, proxy, KeyServerClientSettings.builder().build());
+
+        assertThat(proxiedTier.loadKey(KEY_ID)).isPresent();
+    }
+
+    @Test
+    void notAvailableCacheShouldBeDisabled() throws IOException {
+
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+
+        KeyCacheTierHttp notAvailableTier = new KeyCacheTierHttp(URI.create("http://localhost:" + port + "/cache"),
+                true, null, KeyServerClientSettings.builder().build());
+
+        assertThatCode(() -> notAvailableTier.loadKey(KEY_ID))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessageStartingWith("Remote keys cache is not available, it will not be used any more");
+
+        // next requests are not done, also from other modules
+        KeyCacheTierHttp nextModuleTier = new KeyCacheTierHttp(URI.create("http://localhost:" + port + "/cache/"),
+                true, null, KeyServerClientSettings.builder().build());
+
+        assertThat(notAvailableTier.loadKey(KEY_ID)).isEmpty();
+        assertThat(nextModuleTier.loadKey(KEY_ID)).isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+public class KeyFetchBudgetTest {
+
+    @Test
+    public void unlimitedBudgetShouldAllowRetries() {
+
+        KeyFetchBudget budget = KeyFetchBudget.unlimited();
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(budget.tryAcquireRetry()).isTrue();
+        }
+        assertThat(budget.isExhausted()).isFalse();
+    }
+
+    @Test
+    public void retriesShouldBeLimited() {
+
+        KeyFetchBudget budget = new KeyFetchBudget(2, Duration.ZERO);
+
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.isExhausted()).isFalse();
+
+        assertThat(budget.tryAcquireRetry()).isFalse();
+        assertThat(budget.isExhausted()).isTrue();
+        assertThat(budget.getExhaustedReason()).isEqualTo("all retries for fetching keys were used");
+    }
+
+    @Test
+    public void deadlineShouldExhaustBudget() {
+
+        AtomicLong nanoTime = new AtomicLong(100);
+        KeyFetchBudget budget = new KeyFetchBudget(-1, Duration.ofSeconds(10), nanoTime::get);
+        budget.start();
+
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.isExhausted()).isFalse();
+
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(budget.tryAcquireRetry()).isFalse();
+        assertThat(budget.isExhausted()).isTrue();
+        assertThat(budget.getExhaustedReason()).isEqualTo("deadline for fetching keys was exceeded");
+    }
+
+    @Test
+    public void deadlineShouldBeCountedFromStart() {
+
+        AtomicLong nanoTime = new AtomicLong(100);
+        KeyFetchBudget budget = new KeyFetchBudget(-1, Duration.ofSeconds(10), nanoTime::get);
+
+        nanoTime.addAndGet(Duration.ofSeconds(20).toNanos());
+        assertThat(budget.isExhausted()).isFalse();
+
+        budget.start();
+        nanoTime.addAndGet(Duration.ofSeconds(5).toNanos());
+        // next start does not move deadline
+        budget.start();
+        assertThat(budget.isExhausted()).isFalse();
+
+        nanoTime.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(budget.isExhausted()).isTrue();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeyServerAddressesTest {
+
+    private static final String TEST_HOST = "keys.example.com";
+
+    private InetAddress address1;
+    private InetAddress address2;
+    private InetAddress address3;
+
+    private final AtomicLong currentTime = new AtomicLong();
+    private final AtomicInteger resolveCount = new AtomicInteger();
+
+    private KeyServerAddresses keyServerAddresses;
+
+    @BeforeMethod
+    void setup() throws UnknownHostException {
+        address1 = InetAddress.getByAddress(TEST_HOST, new byte[]{10, 0, 0, 1});
+        address2 = InetAddress.getByAddress(TEST_HOST, new byte[]{10, 0, 0, 2});
+        address3 = InetAddress.getByAddress(TEST_HOST, new byte[]{10, 0, 0, 3});
+
+        currentTime.set(1000L);
+        resolveCount.set(0);
+
+        keyServerAddresses = new KeyServerAddresses(Duration.ofSeconds(60), Duration.ofSeconds(10),
+                currentTime::get, hostName -> {
+            if (!TEST_HOST.equals(hostName)) {
+                throw new UnknownHostException(hostName);
+            }
+            resolveCount.incrementAndGet();
+            return new InetAddress[]{address1, address2, address3};
+        });
+    }
+
+    @Test
+    public void resolvedAddressesShouldBeCachedUntilTtl() throws UnknownHostException {
+
+        assertThat(keyServerAddresses.resolve(TEST_HOST)).containsExactly(address1, address2, address3);
+        assertThat(keyServerAddresses.resolve(TEST_HOST)).containsExactly(address1, address2, address3);
+        assertThat(resolveCount).hasValue(1);
+
+        currentTime.addAndGet(Duration.ofSeconds(61).toMillis());
+
+        assertThat(keyServerAddresses.resolve(TEST_HOST)).containsExactly(address1, address2, address3);
+        assertThat(resolveCount).hasValue(2);
+    }
+
+    @Test
+    public void unknownHostShouldThrowException() {
+
+        assertThatCode(() -> keyServerAddresses.resolve("unknown.example.com"))
+                .isExactlyInstanceOf(UnknownHostException.class);
+    }
+
+    @Test
+    public void failedAddressShouldBeLastUntilPenaltyExpire() throws UnknownHostException {
+
+        keyServerAddresses.markFailure(address1);
+
+        assertThat(keyServerAddresses.getOrderedAddresses(TEST_HOST)).containsExactly(address2, address3, address1);
+
+        currentTime.addAndGet(Duration.ofSeconds(11).toMillis());
+        assertThat(keyServerAddresses.getOrderedAddresses(TEST_HOST)).containsExactly(address1, address2, address3);
+
+        // next failure double penalty time
+        keyServerAddresses.markFailure(address1);
+        currentTime.addAndGet(Duration.ofSeconds(11).toMillis());
+        assertThat(keyServerAddresses.getOrderedAddresses(TEST_HOST)).containsExactly(address2, address3, address1);
+    }
+
+    @Test
+    public void addressWithLatencyShouldBePreferred() throws UnknownHostException {
+
+        keyServerAddresses.markSuccess(address3, Duration.ofMillis(100));
+        keyServerAddresses.markSuccess(address2, Duration.ofMillis(50));
+
+        assertThat(keyServerAddresses.getOrderedAddresses(TEST_HOST)).containsExactly(address2, address3, address1);
+    }
+
+    @Test
+    public void successShouldClearFailures() throws UnknownHostException {
+
+        keyServerAddresses.markFailure(address1);
+        keyServerAddresses.markSuccess(address1, Duration.ofMillis(10));
+
+        assertThat(keyServerAddresses.getOrderedAddresses(TEST_HOST)).containsExactly(address1, address2, address3);
+    }
+
+    @Test
+    public void newPlanerShouldStartFromBestAddress() throws HttpException {
+
+        HttpHost httpHost = new HttpHost(TEST_HOST, 443, "https");
+
+        RoundRobinRouterPlaner planer1 = new RoundRobinRouterPlaner(keyServerAddresses);
+        HttpRoute route = planer1.determineRoute(httpHost, null, null);
+        assertThat(route.getTargetHost().getAddress()).isEqualTo(address1);
+
+        planer1.lastRouteCauseError();
+        route = planer1.determineRoute(httpHost, null, null);
+        assertThat(route.getTargetHost().getAddress()).isEqualTo(address2);
+        planer1.lastRouteSuccess(null, Duration.ofMillis(20));
+
+        RoundRobinRouterPlaner planer2 = new RoundRobinRouterPlaner(keyServerAddresses);
+        route = planer2.determineRoute(httpHost, null, null);
+        assertThat(route.getTargetHost().getAddress()).isEqualTo(address2);
+    }
+}
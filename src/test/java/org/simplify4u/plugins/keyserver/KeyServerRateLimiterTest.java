@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import org.apache.http.client.utils.DateUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeyServerRateLimiterTest {
+
+    private static final KeyFetchBudget BUDGET = KeyFetchBudget.unlimited();
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @BeforeMethod
+    void setup() {
+        nanoTime.set(1000L);
+    }
+
+    private KeyServerRateLimiter rateLimiter(double permitsPerSecond) {
+        // sleep only move time
+        return new KeyServerRateLimiter(permitsPerSecond, nanoTime::get, nanoTime::addAndGet);
+    }
+
+    @Test
+    public void requestsInBurstShouldNotWait() throws IOException {
+
+        KeyServerRateLimiter rateLimiter = rateLimiter(2);
+
+        assertThat(rateLimiter.acquire(BUDGET)).isZero();
+        assertThat(rateLimiter.acquire(BUDGET)).isZero();
+    }
+
+    @Test
+    public void requestsOverLimitShouldWait() throws IOException {
+
+        KeyServerRateLimiter rateLimiter = rateLimiter(2);
+
+        rateLimiter.acquire(BUDGET);
+        rateLimiter.acquire(BUDGET);
+
+        assertThat(rateLimiter.acquire(BUDGET)).isEqualTo(Duration.ofMillis(500));
+        assertThat(rateLimiter.acquire(BUDGET)).isEqualTo(Duration.ofMillis(500));
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(rateLimiter.acquire(BUDGET)).isZero();
+    }
+
+    @Test
+    public void noLimitShouldNotWait() throws IOException {
+
+        KeyServerRateLimiter rateLimiter = rateLimiter(0);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(rateLimiter.acquire(BUDGET)).isZero();
+        }
+    }
+
+    @Test
+    public void pauseShouldDelayNextRequest() throws IOException {
+
+        KeyServerRateLimiter rateLimiter = rateLimiter(0);
+
+        rateLimiter.pauseFor(Duration.ofSeconds(3));
+
+        assertThat(rateLimiter.acquire(BUDGET)).isEqualTo(Duration.ofSeconds(3));
+        assertThat(rateLimiter.acquire(BUDGET)).isZero();
+    }
+
+    @Test
+    public void pauseShouldBeLimited() throws IOException {
+
+        KeyServerRateLimiter rateLimiter = rateLimiter(0);
+
+        rateLimiter.pauseFor(Duration.ofHours(1));
+
+        assertThat(rateLimiter.acquire(BUDGET)).isEqualTo(KeyServerRateLimiter.MAX_RETRY_AFTER);
+    }
+
+    @Test
+    public void retryAfterInSecondsShouldBeParsed() {
+        assertThat(KeyServerRateLimiter.parseRetryAfter(" 120 ", 0)).contains(Duration.ofSeconds(120));
+    }
+
+    @Test
+    public void retryAfterAsDateShouldBeParsed() {
+
+        long now = 1_600_000_000_000L;
+        String date = DateUtils.formatDate(new Date(now + 30_000L));
+
+        assertThat(KeyServerRateLimiter.parseRetryAfter(date, now)).contains(Duration.ofSeconds(30));
+        assertThat(KeyServerRateLimiter.parseRetryAfter(date, now + 60_000L)).contains(Duration.ZERO);
+    }
+
+    @Test
+    public void invalidRetryAfterShouldBeIgnored() {
+        assertThat(KeyServerRateLimiter.parseRetryAfter(null, 0)).isEmpty();
+        assertThat(KeyServerRateLimiter.parseRetryAfter("", 0)).isEmpty();
+        assertThat(KeyServerRateLimiter.parseRetryAfter("-1", 0)).isEmpty();
+        assertThat(KeyServerRateLimiter.parseRetryAfter("tomorrow", 0)).isEmpty();
+    }
+
+    @Test
+    public void limiterShouldBeSharedForKeyServer() {
+
+        KeyServerRateLimiter limiter1 = KeyServerRateLimiter.forKeyServer(URI.create("hkps://keys.example.com"), 1);
+        KeyServerRateLimiter limiter2 = KeyServerRateLimiter.forKeyServer(URI.create("hkps://keys.example.com"), 1);
+        KeyServerRateLimiter limiter3 = KeyServerRateLimiter.forKeyServer(URI.create("hkps://keys.example.org"), 1);
+
+        assertThat(limiter1).isSameAs(limiter2).isNotSameAs(limiter3);
+    }
+
+    @Test
+    public void limiterShouldBeSeparatedForDifferentRate() {
+
+        KeyServerRateLimiter limiter1 = KeyServerRateLimiter.forKeyServer(URI.create("hkps://keys.example.net"), 1);
+        KeyServerRateLimiter limiter2 = KeyServerRateLimiter.forKeyServer(URI.create("hkps://keys.example.net"), 5);
+
+        assertThat(limiter1).isNotSameAs(limiter2);
+    }
+
+    @Test
+    public void waitAfterDeadlineShouldFailFast() throws IOException {
+
+        KeyServerRateLimiter rateLimiter = rateLimiter(0);
+        KeyFetchBudget budget = new KeyFetchBudget(-1, Duration.ofSeconds(10), nanoTime::get);
+        budget.start();
+
+        rateLimiter.pauseFor(Duration.ofSeconds(30));
+
+        assertThatCode(() -> rateLimiter.acquire(budget))
+                .isExactlyInstanceOf(PGPKeyUnavailable.class)
+                .hasMessage("Key server requests wait PT30S, but deadline for fetching keys would be exceeded");
+
+        // there was no sleep
+        assertThat(rateLimiter.acquire(BUDGET)).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void interruptedWaitShouldThrowException() {
+
+        KeyServerRateLimiter rateLimiter = new KeyServerRateLimiter(0, nanoTime::get, nanos -> {
+            throw new InterruptedException();
+        });
+
+        rateLimiter.pauseFor(Duration.ofSeconds(3));
+
+        try {
+            assertThatCode(() -> rateLimiter.acquire(BUDGET))
+                    .isExactlyInstanceOf(InterruptedIOException.class);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            // clear interrupted flag
+            Thread.interrupted();
+        }
+    }
+}
@@ -15,28 +15,39 @@
  */
 package org.simplify4u.plugins.keyserver;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -47,6 +58,7 @@ import com.google.common.io.MoreFiles;
 import com.google.common.io.RecursiveDeleteOption;
 import io.vavr.control.Try;
 import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -59,6 +71,7 @@ import org.simplify4u.plugins.keyserver.PGPKeysCache.KeyServerListLoadBalance;
 import org.simplify4u.plugins.keyserver.PGPKeysCache.KeyServerListOne;
 import org.simplify4u.plugins.utils.PGPKeyId;
 import org.simplify4u.plugins.utils.PGPKeyId.PGPKeyIdLong;
+import org.simplify4u.plugins.utils.PublicKeyUtils;
 import org.slf4j.Logger;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -78,23 +91,22 @@ public class PGPKeysCacheTest {
     private PGPPublicKeyRing emptyPgpPublicKeyRing;
 
     @Mock
-    private PGPKeysServerClient keysServerClient;
+    private PGPKeysProvider keysServerClient;
 
     @InjectMocks
     private PGPKeysCache pgpKeysCache;
 
-    public List<PGPKeysServerClient> prepareKeyServerClient() throws IOException {
+    public List<PGPKeysProvider> prepareKeyServerClient() throws IOException {
 
         doAnswer(i -> new URI(String.format("https://key.get.example.com/?keyId=%s", (PGPKeyId) i.getArgument(0))))
                 .when(keysServerClient).getUriForGetKey(any(PGPKeyId.class));
 
         doAnswer(i -> {
             try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
-                ByteStreams.copy(inputStream, i.getArgument(1));
+                return i.<PGPKeysProvider.KeyStreamProcessor<?>>getArgument(1).process(inputStream);
             }
-            return null;
-        }).when(keysServerClient).copyKeyToOutputStream(any(PGPKeyId.class), any(OutputStream.class),
-                any(PGPKeysServerClient.OnRetryConsumer.class));
+        }).when(keysServerClient).fetchKey(any(PGPKeyId.class), any(PGPKeysProvider.KeyStreamProcessor.class),
+                any(PGPKeysProvider.OnRetryConsumer.class));
 
         return Collections.singletonList(keysServerClient);
     }
@@ -146,7 +158,7 @@ public class PGPKeysCacheTest {
     @Test
     public void getKeyFromCache() throws IOException, PGPException {
 
-        List<PGPKeysServerClient> keysServerClients = prepareKeyServerClient();
+        List<PGPKeysProvider> keysServerClients = prepareKeyServerClient();
         pgpKeysCache.init(cachePath.toFile(), keysServerClients, true);
 
         // first call retrieve key from server
@@ -157,7 +169,7 @@ public class PGPKeysCacheTest {
                 .anyMatch(key -> key.getKeyID() == 0xEFE8086F9E93774EL);
 
         verify(keysServerClients.get(0)).getUriForGetKey(any(PGPKeyId.class));
-        verify(keysServerClients.get(0)).copyKeyToOutputStream(any(PGPKeyIdLong.class), any(OutputStream.class), any(PGPKeysServerClient.OnRetryConsumer.class));
+        verify(keysServerClients.get(0)).fetchKey(any(PGPKeyIdLong.class), any(PGPKeysProvider.KeyStreamProcessor.class), any(PGPKeysProvider.OnRetryConsumer.class));
         verifyNoMoreInteractions(keysServerClients.get(0));
         clearInvocations(keysServerClients.get(0));
 
@@ -171,10 +183,161 @@ public class PGPKeysCacheTest {
         verifyNoInteractions(keysServerClients.get(0));
     }
 
+    @Test
+    public void receivedKeyShouldBeStoredInCache() throws IOException {
+
+        List<PGPKeysProvider> keysServerClients = prepareKeyServerClient();
+        pgpKeysCache.init(cachePath.toFile(), keysServerClients, true);
+
+        pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL));
+
+        try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
+            assertThat(cachePath.resolve("EF").resolve("E8").resolve("EFE8086F9E93774E.asc"))
+                    .hasBinaryContent(ByteStreams.toByteArray(inputStream));
+        }
+    }
+
+    @Test
+    public void cacheShouldNotBeLockedWhileKeyIsReceived() throws IOException {
+
+        doAnswer(i -> {
+            // other module cleans cache while key is received
+            CompletableFuture.supplyAsync(() -> Try.of(() -> pgpKeysCache.cleanCache(Duration.ZERO, 0)).get())
+                    .get(5, TimeUnit.SECONDS);
+
+            try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
+                return i.<PGPKeysProvider.KeyStreamProcessor<?>>getArgument(1).process(inputStream);
+            }
+        }).when(keysServerClient).fetchKey(any(PGPKeyId.class), any(PGPKeysProvider.KeyStreamProcessor.class),
+                any(PGPKeysProvider.OnRetryConsumer.class));
+
+        pgpKeysCache.init(cachePath.toFile(), Collections.singletonList(keysServerClient), true);
+
+        assertThat(pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL)))
+                .anyMatch(key -> key.getKeyID() == 0xEFE8086F9E93774EL);
+    }
+
+    @Test
+    public void prefetchShouldReceiveOnlyMissingKeys() throws IOException {
+
+        doAnswer(i -> {
+            Function<PGPKeyId, PGPKeysProvider.KeyStreamProcessor<?>> processors = i.getArgument(1);
+            Map<PGPKeyId, Try<Object>> ret = new LinkedHashMap<>();
+            for (PGPKeyId keyId : i.<Collection<PGPKeyId>>getArgument(0)) {
+                try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
+                    ret.put(keyId, Try.success(processors.apply(keyId).process(inputStream)));
+                }
+            }
+            return ret;
+        }).when(keysServerClient).fetchKeys(anyCollection(), any(), any(PGPKeysProvider.OnRetryConsumer.class));
+
+        pgpKeysCache.init(cachePath.toFile(), Collections.singletonList(keysServerClient), true);
+
+        PGPKeyId keyId = PGPKeyId.from(0xEFE8086F9E93774EL);
+        pgpKeysCache.prefetchKeyRings(Arrays.asList(keyId, PGPKeyId.from(0xEFE8086F9E93774EL)));
+
+        assertThat(cachePath.resolve("EF").resolve("E8").resolve("EFE8086F9E93774E.asc")).isRegularFile();
+        verify(keysServerClient).fetchKeys(argThat(keys -> keys.size() == 1), any(),
+                any(PGPKeysProvider.OnRetryConsumer.class));
+        clearInvocations(keysServerClient);
+
+        // key is in cache - nothing to receive
+        pgpKeysCache.prefetchKeyRings(Collections.singletonList(keyId));
+        assertThat(pgpKeysCache.getKeyRing(keyId)).anyMatch(key -> key.getKeyID() == 0xEFE8086F9E93774EL);
+
+        verifyNoInteractions(keysServerClient);
+    }
+
+    @Test
+    public void prefetchShouldUseNextKeyServerForNotReceivedKeys() throws IOException {
+
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
+
+        doAnswer(i -> {
+            Map<PGPKeyId, Try<Object>> ret = new LinkedHashMap<>();
+            for (PGPKeyId keyId : i.<Collection<PGPKeyId>>getArgument(0)) {
+                ret.put(keyId, Try.failure(new IOException("Connect timed out")));
+            }
+            return ret;
+        }).when(client1).fetchKeys(anyCollection(), any(), any(PGPKeysProvider.OnRetryConsumer.class));
+
+        doAnswer(i -> {
+            Function<PGPKeyId, PGPKeysProvider.KeyStreamProcessor<?>> processors = i.getArgument(1);
+            Map<PGPKeyId, Try<Object>> ret = new LinkedHashMap<>();
+            for (PGPKeyId keyId : i.<Collection<PGPKeyId>>getArgument(0)) {
+                try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
+                    ret.put(keyId, Try.success(processors.apply(keyId).process(inputStream)));
+                }
+            }
+            return ret;
+        }).when(client2).fetchKeys(anyCollection(), any(), any(PGPKeysProvider.OnRetryConsumer.class));
+
+        pgpKeysCache.init(cachePath.toFile(), Arrays.asList(client1, client2), false);
+
+        pgpKeysCache.prefetchKeyRings(Collections.singletonList(PGPKeyId.from(0xEFE8086F9E93774EL)));
+
+        assertThat(cachePath.resolve("EF").resolve("E8").resolve("EFE8086F9E93774E.asc")).isRegularFile();
+        verify(client1).fetchKeys(anyCollection(), any(), any(PGPKeysProvider.OnRetryConsumer.class));
+        verify(client2).fetchKeys(anyCollection(), any(), any(PGPKeysProvider.OnRetryConsumer.class));
+    }
+
+    @Test
+    public void keysNotReceivedInPrefetchShouldNotBeRequestedAgain() throws IOException {
+
+        PGPKeyId notFoundKeyId = PGPKeyId.from(0x1234567890ABCDEFL);
+        PGPKeyId failedKeyId = PGPKeyId.from(0xEFE8086F9E93774EL);
+
+        doAnswer(i -> {
+            Map<PGPKeyId, Try<Object>> ret = new LinkedHashMap<>();
+            ret.put(notFoundKeyId, Try.failure(new PGPKeyNotFound("PGP key not found")));
+            ret.put(failedKeyId, Try.failure(new IOException("Connect timed out")));
+            return ret;
+        }).when(keysServerClient).fetchKeys(anyCollection(), any(), any(PGPKeysProvider.OnRetryConsumer.class));
+
+        pgpKeysCache.init(cachePath.toFile(), Collections.singletonList(keysServerClient), true);
+
+        pgpKeysCache.prefetchKeyRings(Arrays.asList(notFoundKeyId, failedKeyId));
+        pgpKeysCache.prefetchKeyRings(Arrays.asList(notFoundKeyId, failedKeyId));
+
+        assertThatCode(() -> pgpKeysCache.getKeyRing(notFoundKeyId))
+                .isExactlyInstanceOf(PGPKeyNotFound.class);
+
+        assertThatCode(() -> pgpKeysCache.getKeyRing(failedKeyId))
+                .isExactlyInstanceOf(PGPKeyUnavailable.class)
+                .hasMessageContaining("Connect timed out");
+
+        verify(keysServerClient).fetchKeys(anyCollection(), any(), any(PGPKeysProvider.OnRetryConsumer.class));
+        verifyNoMoreInteractions(keysServerClient);
+    }
+
+    @Test
+    public void autoCleanShouldBeDoneOnceADay() throws IOException {
+
+        pgpKeysCache.init(cachePath.toFile(), Collections.singletonList(keysServerClient), true);
+
+        assertThat(pgpKeysCache.autoCleanCache(Duration.ZERO, 0)).isPresent();
+        assertThat(pgpKeysCache.autoCleanCache(Duration.ZERO, 0)).isEmpty();
+    }
+
+    @Test
+    public void prewarmShouldBeCalledForAllClients() throws IOException {
+
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
+        doThrow(new IOException("Connect timed out")).when(client1).prewarm();
+
+        pgpKeysCache.init(cachePath.toFile(), Arrays.asList(client1, client2), true);
+        pgpKeysCache.prewarm();
+
+        verify(client1, timeout(5000)).prewarm();
+        verify(client2, timeout(5000)).prewarm();
+    }
+
     @Test
     public void brokenKeyInCache() throws IOException, PGPException {
 
-        List<PGPKeysServerClient> keysServerClients = prepareKeyServerClient();
+        List<PGPKeysProvider> keysServerClients = prepareKeyServerClient();
         pgpKeysCache.init(cachePath.toFile(), keysServerClients, true);
 
         // create empty file for key in cache
@@ -190,7 +353,7 @@ public class PGPKeysCacheTest {
                 .anyMatch(key -> key.getKeyID() == 0xEFE8086F9E93774EL);
 
         verify(keysServerClients.get(0)).getUriForGetKey(any(PGPKeyId.class));
-        verify(keysServerClients.get(0)).copyKeyToOutputStream(any(PGPKeyIdLong.class), any(OutputStream.class), any(PGPKeysServerClient.OnRetryConsumer.class));
+        verify(keysServerClients.get(0)).fetchKey(any(PGPKeyIdLong.class), any(PGPKeysProvider.KeyStreamProcessor.class), any(PGPKeysProvider.OnRetryConsumer.class));
         verifyNoMoreInteractions(keysServerClients.get(0));
         clearInvocations(keysServerClients.get(0));
     }
@@ -198,7 +361,7 @@ public class PGPKeysCacheTest {
     @Test
     public void nonExistingKeyInRingThrowException() throws IOException, PGPException {
 
-        List<PGPKeysServerClient> keysServerClients = prepareKeyServerClient();
+        List<PGPKeysProvider> keysServerClients = prepareKeyServerClient();
         pgpKeysCache.init(cachePath.toFile(), keysServerClients, true);
 
         // first call retrieve key from server
@@ -207,11 +370,177 @@ public class PGPKeysCacheTest {
                 .hasMessageStartingWith("Can't find public key 0x0000001234567890 in download file:");
     }
 
+    @Test
+    public void exhaustedBudgetShouldStopFetchingKeys() throws IOException {
+
+        KeyFetchBudget fetchBudget = new KeyFetchBudget(0, Duration.ZERO);
+        // spend budget
+        assertThat(fetchBudget.tryAcquireRetry()).isFalse();
+
+        pgpKeysCache.init(cachePath.toFile(), Collections.singletonList(keysServerClient), true, fetchBudget);
+
+        assertThatCode(() -> pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL)))
+                .isExactlyInstanceOf(PGPKeyUnavailable.class)
+                .hasMessage("PGP key 0xEFE8086F9E93774E not fetched - all retries for fetching keys were used");
+
+        verifyNoInteractions(keysServerClient);
+    }
+
+    @Test
+    public void failedFetchWithExhaustedBudgetThrowsKeyUnavailable() throws IOException {
+
+        KeyFetchBudget fetchBudget = new KeyFetchBudget(0, Duration.ZERO);
+
+        doAnswer(i -> {
+            // retry was requested by client
+            fetchBudget.tryAcquireRetry();
+            throw new IOException("Connect timed out");
+        }).when(keysServerClient).fetchKey(any(PGPKeyId.class), any(PGPKeysProvider.KeyStreamProcessor.class),
+                any(PGPKeysProvider.OnRetryConsumer.class));
+
+        pgpKeysCache.init(cachePath.toFile(), Collections.singletonList(keysServerClient), true, fetchBudget);
+
+        assertThatCode(() -> pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL)))
+                .isExactlyInstanceOf(PGPKeyUnavailable.class)
+                .hasMessage("PGP key 0xEFE8086F9E93774E not fetched - all retries for fetching keys were used")
+                .hasCauseExactlyInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void offlineModeShouldNotUseRemoteKeyServers() throws IOException {
+
+        pgpKeysCache.init(cachePath.toFile(), Collections.singletonList(keysServerClient), true,
+                KeyFetchBudget.unlimited(), true);
+
+        assertThatCode(() -> pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL)))
+                .isExactlyInstanceOf(PGPKeyUnavailable.class)
+                .hasMessage("PGP key 0xEFE8086F9E93774E not found in cache - offline mode");
+
+        verifyNoInteractions(keysServerClient);
+    }
+
+    @Test
+    public void offlineModeShouldUseLocalKeyServers() throws IOException {
+
+        PGPKeysServerClientFile localClient = mock(PGPKeysServerClientFile.class);
+        doAnswer(i -> {
+            try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
+                return i.<PGPKeysProvider.KeyStreamProcessor<?>>getArgument(1).process(inputStream);
+            }
+        }).when(localClient).fetchKey(any(PGPKeyId.class), any(PGPKeysProvider.KeyStreamProcessor.class),
+                any(PGPKeysProvider.OnRetryConsumer.class));
+
+        pgpKeysCache.init(cachePath.toFile(), Arrays.asList(keysServerClient, localClient), false,
+                KeyFetchBudget.unlimited(), true);
+
+        assertThat(pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL)))
+                .anyMatch(key -> key.getKeyID() == 0xEFE8086F9E93774EL);
+
+        verifyNoInteractions(keysServerClient);
+    }
+
+    private Path prepareReadOnlyCache(String content) throws IOException {
+        Path readOnlyPath = cachePath.resolve("read-only");
+        Path keyFile = readOnlyPath.resolve("EF").resolve("E8").resolve("EFE8086F9E93774E.asc");
+        Files.createDirectories(keyFile.getParent());
+        if (content == null) {
+            try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
+                Files.copy(inputStream, keyFile);
+            }
+        } else {
+            Files.write(keyFile, content.getBytes());
+        }
+        return readOnlyPath;
+    }
+
+    @Test
+    public void keyFromReadOnlyCacheShouldBePromotedToLocalCache() throws IOException {
+
+        Path readOnlyPath = prepareReadOnlyCache(null);
+        File localCachePath = cachePath.resolve("local").toFile();
+
+        pgpKeysCache.init(localCachePath, Collections.singletonList(keysServerClient), true,
+                KeyFetchBudget.unlimited(), false,
+                Collections.singletonList(new KeyCacheTierDirectory(readOnlyPath.toFile())));
+
+        assertThat(pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL)))
+                .anyMatch(key -> key.getKeyID() == 0xEFE8086F9E93774EL);
+
+        assertThat(localCachePath.toPath().resolve("EF").resolve("E8").resolve("EFE8086F9E93774E.asc"))
+                .isRegularFile();
+
+        // promoted key should be loaded from local cache
+        assertThat(pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL)))
+                .anyMatch(key -> key.getKeyID() == 0xEFE8086F9E93774EL);
+
+        verifyNoInteractions(keysServerClient);
+    }
+
+    @Test
+    public void brokenKeyInReadOnlyCacheShouldNotBeDeleted() throws IOException {
+
+        prepareKeyServerClient();
+        Path readOnlyPath = prepareReadOnlyCache("broken key");
+        File localCachePath = cachePath.resolve("local").toFile();
+
+        pgpKeysCache.init(localCachePath, Collections.singletonList(keysServerClient), true,
+                KeyFetchBudget.unlimited(), false,
+                Collections.singletonList(new KeyCacheTierDirectory(readOnlyPath.toFile())));
+
+        assertThat(pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL)))
+                .anyMatch(key -> key.getKeyID() == 0xEFE8086F9E93774EL);
+
+        assertThat(readOnlyPath.resolve("EF").resolve("E8").resolve("EFE8086F9E93774E.asc"))
+                .hasContent("broken key");
+        assertThat(localCachePath.toPath().resolve("EF").resolve("E8").resolve("EFE8086F9E93774E.asc"))
+                .isRegularFile();
+
+        verify(keysServerClient).fetchKey(any(PGPKeyId.class), any(PGPKeysProvider.KeyStreamProcessor.class),
+                any(PGPKeysProvider.OnRetryConsumer.class));
+    }
+
+    @Test
+    public void notExistingReadOnlyCacheThrowException() {
+
+        File notExistingPath = cachePath.resolve("not-existing").toFile();
+
+        assertThatCode(() -> new KeyCacheTierDirectory(notExistingPath))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessageStartingWith("PGP keys cache path not exist or is not a directory: ");
+    }
+
+    @Test
+    public void importedKeysShouldBeStoredForAllKeysInRing() throws IOException, PGPException {
+
+        ByteArrayOutputStream keyRings = new ByteArrayOutputStream();
+        for (long keyId : new long[]{0xEFE8086F9E93774EL, 0xF8484389379ACEACL}) {
+            try (InputStream inputStream = getClass().getResourceAsStream(String.format("/%016X.asc", keyId))) {
+                keyRings.write(PublicKeyUtils.loadPublicKeyRing(inputStream, PGPKeyId.from(keyId))
+                        .orElseThrow(IllegalStateException::new).getEncoded());
+            }
+        }
+
+        pgpKeysCache.init(cachePath.toFile(), Collections.singletonList(keysServerClient), true);
+
+        assertThat(pgpKeysCache.importKeyRings(new ByteArrayInputStream(keyRings.toByteArray()))).isEqualTo(2);
+
+        assertThat(cachePath.resolve("EF").resolve("E8").resolve("EFE8086F9E93774E.asc")).isRegularFile();
+        assertThat(cachePath.resolve("F8").resolve("48").resolve("F8484389379ACEAC.asc")).isRegularFile();
+
+        PGPPublicKeyRing keyRing = pgpKeysCache.getKeyRing(PGPKeyId.from(0xEFE8086F9E93774EL));
+        for (PGPPublicKey publicKey : keyRing) {
+            assertThat(pgpKeysCache.getKeyRing(PGPKeyId.from(publicKey.getKeyID()))).isNotNull();
+            assertThat(pgpKeysCache.getKeyRing(PGPKeyId.from(publicKey.getFingerprint()))).isNotNull();
+        }
+
+        verifyNoInteractions(keysServerClient);
+    }
+
     @DataProvider(name = "serverListTestData")
     public Object[][] serverListTestData() {
 
-        PGPKeysServerClient client1 = mock(PGPKeysServerClient.class);
-        PGPKeysServerClient client2 = mock(PGPKeysServerClient.class);
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
 
         return new Object[][]{
                 {Collections.singletonList(client1), true, KeyServerListOne.class},
@@ -223,7 +552,7 @@ public class PGPKeysCacheTest {
 
     @Test(dataProvider = "serverListTestData")
     public void createKeyServerListReturnCorrectImplementation(
-            List<PGPKeysServerClient> serverList, boolean loadBalance, Class<? extends KeyServerList> aClass) {
+            List<PGPKeysProvider> serverList, boolean loadBalance, Class<? extends KeyServerList> aClass) {
 
         KeyServerList keyServerList = PGPKeysCache.createKeyServerList(serverList, loadBalance);
 
@@ -233,10 +562,10 @@ public class PGPKeysCacheTest {
     @Test
     public void listOneUseFirstServerForCorrectExecute() throws IOException {
 
-        PGPKeysServerClient client1 = mock(PGPKeysServerClient.class);
-        PGPKeysServerClient client2 = mock(PGPKeysServerClient.class);
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
 
-        List<PGPKeysServerClient> executedClient = new ArrayList<>();
+        List<PGPKeysProvider> executedClient = new ArrayList<>();
 
         KeyServerList serverList = new KeyServerListOne().withClients(Arrays.asList(client1, client2));
 
@@ -260,8 +589,8 @@ public class PGPKeysCacheTest {
     @Test
     public void listOneThrowsExceptionForFailedExecute() throws IOException {
 
-        PGPKeysServerClient client1 = mock(PGPKeysServerClient.class);
-        PGPKeysServerClient client2 = mock(PGPKeysServerClient.class);
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
 
         doThrow(new IOException("Fallback test")).when(client1).copyKeyToOutputStream(KEY_ID_1, null, null);
 
@@ -283,10 +612,10 @@ public class PGPKeysCacheTest {
     @Test
     public void fallbackOnlyUseFirstServerForCorrectExecute() throws IOException {
 
-        PGPKeysServerClient client1 = mock(PGPKeysServerClient.class);
-        PGPKeysServerClient client2 = mock(PGPKeysServerClient.class);
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
 
-        List<PGPKeysServerClient> executedClient = new ArrayList<>();
+        List<PGPKeysProvider> executedClient = new ArrayList<>();
 
         KeyServerList serverListFallback = new KeyServerListFallback().withClients(Arrays.asList(client1, client2));
 
@@ -310,10 +639,10 @@ public class PGPKeysCacheTest {
     @Test
     public void loadBalanceIterateByAllServer() throws IOException {
 
-        PGPKeysServerClient client1 = mock(PGPKeysServerClient.class);
-        PGPKeysServerClient client2 = mock(PGPKeysServerClient.class);
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
 
-        List<PGPKeysServerClient> executedClient = new ArrayList<>();
+        List<PGPKeysProvider> executedClient = new ArrayList<>();
 
         KeyServerList serverListFallback = new KeyServerListLoadBalance().withClients(Arrays.asList(client1, client2));
 
@@ -350,14 +679,14 @@ public class PGPKeysCacheTest {
     @Test(dataProvider = "keyServerListWithFallBack")
     public void useSecondServerForFailedExecute(KeyServerList keyServerList) throws IOException {
 
-        PGPKeysServerClient client1 = mock(PGPKeysServerClient.class);
-        PGPKeysServerClient client2 = mock(PGPKeysServerClient.class);
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
 
         doThrow(new IOException("Fallback test")).when(client1).copyKeyToOutputStream(KEY_ID_1, null, null);
 
         keyServerList.withClients(Arrays.asList(client1, client2));
 
-        List<PGPKeysServerClient> executedClient = new ArrayList<>();
+        List<PGPKeysProvider> executedClient = new ArrayList<>();
 
         for (int i = 0; i < 2; i++) {
             PGPPublicKeyRing publicKeyRing = keyServerList.execute(client -> {
@@ -383,8 +712,8 @@ public class PGPKeysCacheTest {
     @Test(dataProvider = "keyServerListWithFallBack")
     public void throwsExceptionForAllFailedExecute(KeyServerList keyServerList) throws IOException {
 
-        PGPKeysServerClient client1 = mock(PGPKeysServerClient.class);
-        PGPKeysServerClient client2 = mock(PGPKeysServerClient.class);
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
 
         doThrow(new IOException("Fallback test1")).when(client1).copyKeyToOutputStream(KEY_ID_1, null, null);
         doThrow(new IOException("Fallback test2")).when(client2).copyKeyToOutputStream(KEY_ID_1, null, null);
@@ -414,8 +743,8 @@ public class PGPKeysCacheTest {
     @Test(dataProvider = "keyServerListWithFallBack")
     public void throwsPGPKeyNotFoundWhenKeyNotFoundOnAnyServer(KeyServerList keyServerList) throws IOException {
 
-        PGPKeysServerClient client1 = mock(PGPKeysServerClient.class);
-        PGPKeysServerClient client2 = mock(PGPKeysServerClient.class);
+        PGPKeysProvider client1 = mock(PGPKeysProvider.class);
+        PGPKeysProvider client2 = mock(PGPKeysProvider.class);
 
         doThrow(new PGPKeyNotFound()).when(client1).copyKeyToOutputStream(KEY_ID_1, null, null);
         doThrow(new PGPKeyNotFound()).when(client2).copyKeyToOutputStream(KEY_ID_1, null, null);
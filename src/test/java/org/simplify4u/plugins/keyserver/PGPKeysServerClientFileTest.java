@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.simplify4u.plugins.utils.PGPKeyId;
+import org.simplify4u.plugins.utils.PublicKeyUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PGPKeysServerClientFileTest {
+
+    private static final PGPKeyId KEY_ID = PGPKeyId.from(0xEFE8086F9E93774EL);
+    private static final PGPKeyId NOT_EXISTING_KEY_ID = PGPKeyId.from(0x1234567890L);
+
+    private Path keysPath;
+
+    @BeforeMethod
+    void setup() throws IOException {
+        keysPath = Files.createTempDirectory("keys-mirror-test");
+
+        Path keyFile = keysPath.resolve(KEY_ID.getHashPath());
+        Files.createDirectories(keyFile.getParent());
+        try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
+            Files.copy(inputStream, keyFile);
+        }
+    }
+
+    @AfterMethod
+    void cleanup() throws IOException {
+        MoreFiles.deleteRecursively(keysPath, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    @Test
+    public void keyShouldBeReadFromDirectory() throws IOException {
+
+        PGPKeysProvider client = PGPKeysProvider.getProvider(keysPath.toUri().toString(), null);
+
+        assertThat(client).isExactlyInstanceOf(PGPKeysServerClientFile.class);
+        assertThat(client.fetchKey(KEY_ID, inputStream -> PublicKeyUtils.loadPublicKeyRing(inputStream, KEY_ID), null))
+                .hasValueSatisfying(keyRing -> assertThat(KEY_ID.getKeyFromRing(keyRing)).isNotNull());
+    }
+
+    @Test
+    public void keyShouldBeReadFromKeyRingFile() throws IOException {
+
+        Path keyRingFile = keysPath.resolve(KEY_ID.getHashPath());
+        PGPKeysProvider client = PGPKeysProvider.getProvider(keyRingFile.toUri().toString(), null);
+
+        Optional<PGPPublicKeyRing> keyRing = client.fetchKey(KEY_ID,
+                inputStream -> PublicKeyUtils.loadPublicKeyRing(inputStream, KEY_ID), null);
+
+        assertThat(keyRing).hasValueSatisfying(ring -> assertThat(KEY_ID.getKeyFromRing(ring)).isNotNull());
+        assertThat(client.getUriForGetKey(KEY_ID)).isEqualTo(keyRingFile.toUri());
+    }
+
+    @Test
+    public void notExistingKeyInDirectoryThrowsNotFound() throws IOException {
+
+        PGPKeysProvider client = PGPKeysProvider.getProvider(keysPath.toUri().toString(), null);
+
+        assertThatCode(() -> client.fetchKey(NOT_EXISTING_KEY_ID, inputStream -> null, null))
+                .isExactlyInstanceOf(PGPKeyNotFound.class);
+    }
+
+    @Test
+    public void notExistingKeyInKeyRingThrowsNotFound() throws IOException {
+
+        PGPKeysProvider client = PGPKeysProvider.getProvider(
+                keysPath.resolve(KEY_ID.getHashPath()).toUri().toString(), null);
+
+        assertThatCode(() -> client.fetchKey(NOT_EXISTING_KEY_ID, inputStream -> null, null))
+                .isExactlyInstanceOf(PGPKeyNotFound.class);
+    }
+
+    @Test
+    public void notExistingPathThrowsException() {
+
+        assertThatCode(() -> PGPKeysProvider.getProvider(keysPath.resolve("not-exist").toUri().toString(), null))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessageStartingWith("Path for key server not exist:");
+    }
+}
@@ -19,19 +19,40 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import javax.net.ssl.SSLSocket;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockserver.model.HttpRequest.request;
 import static org.mockserver.model.HttpResponse.response;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
+import com.google.common.io.ByteStreams;
+import io.vavr.control.Try;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.bouncycastle.util.encoders.Hex;
 import org.mockserver.client.MockServerClient;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.integration.ClientAndServer;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.socket.tls.KeyStoreFactory;
+import org.mockserver.verify.VerificationTimes;
 import org.simplify4u.plugins.utils.PGPKeyId;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -41,6 +62,11 @@ import org.testng.annotations.Test;
 public class PGPKeysServerClientIT {
     private static final PGPKeyId TEST_KEYID = PGPKeyId.from(0xF8484389379ACEACL);
 
+    private static final PGPKeyId BATCH_KEY_ID_1 = PGPKeyId.from(0xEFE8086F9E93774EL);
+    private static final PGPKeyId BATCH_KEY_ID_2 = PGPKeyId.from(0xF8484389379ACEACL);
+
+    private static final PGPKeyId GZIP_KEY_ID = PGPKeyId.from(0xB0F3710FA64900E7L);
+
     private static final int SHORT_TEST_TIMEOUT = 500;
 
     private ClientAndServer mockServer;
@@ -84,7 +110,7 @@ public class PGPKeysServerClientIT {
     }
 
     @BeforeClass
-    public void setupMockServer() {
+    public void setupMockServer() throws IOException {
         mockServer = ClientAndServer.startClientAndServer(0);
 
         ConfigurationProperties.disableSystemOut(true);
@@ -106,6 +132,32 @@ public class PGPKeysServerClientIT {
                 .when(request().withPath("/502"))
                 .respond(response().withStatusCode(502));
 
+        mockServerClient
+                .when(request().withPath("/pks/lookup").withQueryStringParameter("search", BATCH_KEY_ID_1.toString()))
+                .respond(response().withStatusCode(200).withBody(readResource("/EFE8086F9E93774E.asc")));
+
+        mockServerClient
+                .when(request().withPath("/pks/lookup").withQueryStringParameter("search", BATCH_KEY_ID_2.toString()))
+                .respond(response().withStatusCode(200).withBody(readResource("/F8484389379ACEAC.asc")));
+
+        mockServerClient
+                .when(request().withPath("/pks/lookup").withQueryStringParameter("search", GZIP_KEY_ID.toString()))
+                .respond(response().withStatusCode(200)
+                        .withHeader("Content-Encoding", "gzip")
+                        .withBody(gzip(readResource("/B0F3710FA64900E7.asc"))));
+
+        mockServerClient
+                .when(request().withPath("/pks/lookup"))
+                .respond(response().withStatusCode(404));
+
+        mockServerClient
+                .when(request().withPath("/vks/v1/by-keyid/EFE8086F9E93774E"))
+                .respond(response().withStatusCode(200).withBody(readResource("/EFE8086F9E93774E.asc")));
+
+        mockServerClient
+                .when(request().withPath("/vks/v1/.*"))
+                .respond(response().withStatusCode(404));
+
     }
 
     @AfterClass(alwaysRun = true)
@@ -119,7 +171,7 @@ public class PGPKeysServerClientIT {
 
         tempFile.deleteOnExit();
 
-        final PGPKeysServerClient client = PGPKeysServerClient.getClient(keyServerUrl, null);
+        final PGPKeysProvider client = PGPKeysProvider.getProvider(keyServerUrl, null);
 
         try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
             client.copyKeyToOutputStream(TEST_KEYID, outputStream, null);
@@ -162,6 +214,156 @@ public class PGPKeysServerClientIT {
         }
     }
 
+    @Test
+    public void batchFetchShouldReturnResultForEachKey() throws IOException {
+
+        PGPKeysProvider client = PGPKeysProvider.getProvider(
+                "http://localhost:" + mockServer.getLocalPort(), null);
+
+        PGPKeyId notExistingKeyId = PGPKeyId.from(0x1234567890L);
+
+        Map<PGPKeyId, Try<byte[]>> result = client.fetchKeys(
+                Arrays.asList(BATCH_KEY_ID_1, notExistingKeyId, BATCH_KEY_ID_2),
+                keyId -> ByteStreams::toByteArray, null);
+
+        assertThat(result.keySet()).containsExactly(BATCH_KEY_ID_1, notExistingKeyId, BATCH_KEY_ID_2);
+
+        assertThat(result.get(BATCH_KEY_ID_1).get()).isEqualTo(readResource("/EFE8086F9E93774E.asc"));
+        assertThat(result.get(BATCH_KEY_ID_2).get()).isEqualTo(readResource("/F8484389379ACEAC.asc"));
+        assertThat(result.get(notExistingKeyId).getCause()).isInstanceOf(PGPKeyNotFound.class);
+    }
+
+    @Test
+    public void vksClientShouldReceiveKey() throws IOException {
+
+        PGPKeysProvider client = PGPKeysProvider.getProvider(
+                "vks+http://localhost:" + mockServer.getLocalPort(), null);
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            client.copyKeyToOutputStream(BATCH_KEY_ID_1, outputStream, null);
+            assertThat(outputStream.toByteArray()).isEqualTo(readResource("/EFE8086F9E93774E.asc"));
+        }
+
+        assertThatCode(() -> client.copyKeyToOutputStream(PGPKeyId.from(0x1234567890L),
+                new ByteArrayOutputStream(), null))
+                .isExactlyInstanceOf(PGPKeyNotFound.class);
+    }
+
+    @Test
+    public void secureConnectionShouldBeReusedForNextRequests() throws IOException {
+
+        AtomicInteger tlsConnections = new AtomicInteger();
+
+        // trust mockserver certificate, count new TLS connections
+        SSLConnectionSocketFactory socketFactory = new SSLConnectionSocketFactory(
+                new KeyStoreFactory(new MockServerLogger()).sslContext(), NoopHostnameVerifier.INSTANCE) {
+            @Override
+            protected void prepareSocket(SSLSocket socket) throws IOException {
+                tlsConnections.incrementAndGet();
+                super.prepareSocket(socket);
+            }
+        };
+
+        PGPKeysProvider client = new PGPKeysServerClientHttps(
+                URI.create("https://localhost:" + mockServer.getLocalPort()), null,
+                KeyServerClientSettings.builder().build()) {
+            @Override
+            protected LayeredConnectionSocketFactory getSecureSocketFactory() {
+                return socketFactory;
+            }
+        };
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            client.copyKeyToOutputStream(BATCH_KEY_ID_1, outputStream, null);
+            assertThat(outputStream.toByteArray()).isEqualTo(readResource("/EFE8086F9E93774E.asc"));
+        }
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            client.copyKeyToOutputStream(BATCH_KEY_ID_2, outputStream, null);
+            assertThat(outputStream.toByteArray()).isEqualTo(readResource("/F8484389379ACEAC.asc"));
+        }
+
+        mockServer.verify(request().withPath("/pks/lookup").withSecure(true), VerificationTimes.exactly(2));
+        assertThat(tlsConnections).as("TLS handshakes").hasValue(1);
+    }
+
+    @Test
+    public void tlsSessionShouldBeResumedByNextConnections() throws IOException {
+
+        List<String> sessionIds = Collections.synchronizedList(new ArrayList<>());
+
+        // trust mockserver certificate, TLS 1.2 resumes session with the same session id
+        SSLConnectionSocketFactory socketFactory = new SSLConnectionSocketFactory(
+                new KeyStoreFactory(new MockServerLogger()).sslContext(), new String[]{"TLSv1.2"}, null,
+                NoopHostnameVerifier.INSTANCE) {
+            @Override
+            public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+                    throws IOException {
+                Socket sslSocket = super.createLayeredSocket(socket, target, port, context);
+                sessionIds.add(Hex.toHexString(((SSLSocket) sslSocket).getSession().getId()));
+                return sslSocket;
+            }
+        };
+
+        // each client has own connections pool, so each request opens new connection
+        for (PGPKeyId keyId : Arrays.asList(BATCH_KEY_ID_1, BATCH_KEY_ID_2)) {
+            PGPKeysProvider client = new PGPKeysServerClientHttps(
+                    URI.create("https://localhost:" + mockServer.getLocalPort()), null,
+                    KeyServerClientSettings.builder().build()) {
+                @Override
+                protected LayeredConnectionSocketFactory getSecureSocketFactory() {
+                    return socketFactory;
+                }
+            };
+
+            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+                client.copyKeyToOutputStream(keyId, outputStream, null);
+                assertThat(outputStream.toByteArray()).isNotEmpty();
+            }
+        }
+
+        assertThat(sessionIds).as("TLS sessions of new connections").hasSize(2);
+        assertThat(sessionIds.get(0)).isNotEmpty().isEqualTo(sessionIds.get(1));
+    }
+
+    @Test
+    public void compressedKeyShouldBeDecodedAndCounted() throws IOException {
+
+        KeyFetchStatistics statistics = new KeyFetchStatistics();
+        PGPKeysProvider client = PGPKeysProvider.getProvider("http://localhost:" + mockServer.getLocalPort(), null,
+                KeyServerClientSettings.builder().fetchStatistics(statistics).build());
+
+        byte[] key = readResource("/B0F3710FA64900E7.asc");
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            client.copyKeyToOutputStream(GZIP_KEY_ID, outputStream, null);
+            assertThat(outputStream.toByteArray()).isEqualTo(key);
+        }
+
+        mockServer.verify(request().withPath("/pks/lookup")
+                        .withQueryStringParameter("search", GZIP_KEY_ID.toString())
+                        .withHeader("Accept-Encoding", ".*gzip.*"),
+                VerificationTimes.once());
+
+        assertThat(statistics.getKeys()).isEqualTo(1);
+        assertThat(statistics.getTransferredBytes()).isEqualTo(gzip(key).length);
+        assertThat(statistics.getKeyBytes()).isEqualTo(key.length);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = PGPKeysServerClientIT.class.getResourceAsStream(name)) {
+            return ByteStreams.toByteArray(inputStream);
+        }
+    }
+
     /**
      * A special key client that allows the URL the client is requesting to be stubbed-out by tests.
      *
@@ -173,17 +375,21 @@ public class PGPKeysServerClientIT {
         private final URI stubbedUri;
 
         StubbedClient(URI stubbedUri, int connectTimeout, int readTimeout, int maxAttempts) throws IOException {
-            super(stubbedUri, connectTimeout, readTimeout, maxAttempts, null);
+            super(stubbedUri, null, KeyServerClientSettings.builder()
+                    .connectTimeout(connectTimeout)
+                    .readTimeout(readTimeout)
+                    .maxAttempts(maxAttempts)
+                    .build());
             this.stubbedUri = stubbedUri;
         }
 
         @Override
-        URI getUriForShowKey(PGPKeyId keyID) {
+        public URI getUriForShowKey(PGPKeyId keyID) {
             return this.stubbedUri;
         }
 
         @Override
-        URI getUriForGetKey(PGPKeyId keyID) {
+        public URI getUriForGetKey(PGPKeyId keyID) {
             return this.stubbedUri;
         }
     }
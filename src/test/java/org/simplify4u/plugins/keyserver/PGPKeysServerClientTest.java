@@ -1,16 +1,34 @@
 package org.simplify4u.plugins.keyserver;
 
+import com.google.common.io.ByteStreams;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicHeader;
 import org.apache.maven.settings.Proxy;
+import org.simplify4u.plugins.keyserver.PGPKeysServerClientHttps.TrustConfig;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.simplify4u.plugins.utils.ProxyUtil.makeMavenProxy;
 
 public class PGPKeysServerClientTest {
@@ -32,7 +50,12 @@ public class PGPKeysServerClientTest {
     }
 
     private void runProxyConfig(URI uri, Proxy proxy) throws IOException {
-        PGPKeysServerClient pgpKeysServerClient = new PGPKeysServerClient(uri, 10_000, 10_000, 10_000, proxy) {
+        PGPKeysServerClient pgpKeysServerClient = new PGPKeysServerClient(uri, proxy, KeyServerClientSettings.builder().build()) {
+            @Override
+            protected LayeredConnectionSocketFactory getSecureSocketFactory() {
+                return null;
+            }
+
             @Override
             protected HttpClientBuilder createClientBuilder() {
                 return null;
@@ -46,4 +69,89 @@ public class PGPKeysServerClientTest {
             Assert.assertNotNull(closeableHttpClient);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sslSocketFactoryShouldBeSharedByClients() throws IOException {
+
+        PGPKeysProvider client1 = PGPKeysProvider.getProvider("hkps://keys.example.com", null);
+        PGPKeysProvider client2 = PGPKeysProvider.getProvider("https://keys.example.org", null);
+        PGPKeysProvider client3 = PGPKeysProvider.getProvider("hkps://hkps.pool.sks-keyservers.net", null);
+
+        SSLConnectionSocketFactory systemSocketFactory =
+                PGPKeysServerClientHttps.getSslSocketFactory(TrustConfig.SYSTEM);
+
+        assertThat(client1).extracting("sslSocketFactory").isSameAs(systemSocketFactory);
+        assertThat(client2).extracting("sslSocketFactory").isSameAs(systemSocketFactory);
+        assertThat(client3).extracting("sslSocketFactory")
+                .isSameAs(PGPKeysServerClientHttps.getSslSocketFactory(TrustConfig.SKS_KEYSERVERS))
+                .isNotSameAs(systemSocketFactory);
+    }
+
+    @Test
+    public void prewarmShouldOpenConnection() throws IOException {
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            serverSocket.setSoTimeout(5000);
+
+            PGPKeysProvider client = PGPKeysProvider.getProvider(
+                    "http://localhost:" + serverSocket.getLocalPort(), null);
+            client.prewarm();
+
+            try (Socket socket = serverSocket.accept()) {
+                assertThat(socket.isConnected()).isTrue();
+            }
+        }
+    }
+
+    @DataProvider(name = "contentEncoding")
+    public static Object[][] contentEncoding() {
+        return new Object[][]{
+                {null, (Encoder) data -> data},
+                {"identity", (Encoder) data -> data},
+                {"gzip", (Encoder) PGPKeysServerClientTest::gzip},
+                {"deflate", (Encoder) PGPKeysServerClientTest::deflate}
+        };
+    }
+
+    @Test(dataProvider = "contentEncoding")
+    public void contentShouldBeDecoded(String encoding, Encoder encoder) throws IOException {
+
+        byte[] data = "-----BEGIN PGP PUBLIC KEY BLOCK-----".getBytes(StandardCharsets.US_ASCII);
+        Header header = encoding == null ? null : new BasicHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+
+        try (InputStream inputStream = PGPKeysServerClient.decodeContent(
+                new ByteArrayInputStream(encoder.encode(data)), header)) {
+            assertThat(ByteStreams.toByteArray(inputStream)).isEqualTo(data);
+        }
+    }
+
+    @Test
+    public void unsupportedContentEncodingThrowException() {
+
+        assertThatCode(() -> PGPKeysServerClient.decodeContent(new ByteArrayInputStream(new byte[0]),
+                new BasicHeader(HttpHeaders.CONTENT_ENCODING, "br")))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessage("Unsupported content encoding: br");
+    }
+
+    @FunctionalInterface
+    interface Encoder {
+        byte[] encode(byte[] data) throws IOException;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (OutputStream gzipStream = new GZIPOutputStream(outputStream)) {
+            gzipStream.write(data);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (OutputStream deflateStream = new DeflaterOutputStream(outputStream)) {
+            deflateStream.write(data);
+        }
+        return outputStream.toByteArray();
+    }
+}
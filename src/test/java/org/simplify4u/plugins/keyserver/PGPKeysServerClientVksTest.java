@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.simplify4u.plugins.utils.PGPKeyId;
+import org.testng.annotations.Test;
+
+public class PGPKeysServerClientVksTest {
+
+    private static final PGPKeyId FINGERPRINT = PGPKeyId.from(new byte[]{
+            (byte) 0xAB, (byte) 0xCD, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08,
+            0x09, 0x0A, 0x0B, 0x0C, 0x0D, 0x0E, 0x0F, 0x10, 0x11, 0x12});
+
+    private static final PGPKeyId KEY_ID = PGPKeyId.from(0xEFE8086F9E93774EL);
+
+    @Test
+    public void vksClientShouldUseHttps() throws IOException {
+
+        PGPKeysProvider client = PGPKeysProvider.getProvider("vks://keys.openpgp.org", null);
+
+        assertThat(client).isExactlyInstanceOf(PGPKeysServerClientVks.class);
+        assertThat(client.getUriForGetKey(FINGERPRINT)).isEqualTo(URI.create(
+                "https://keys.openpgp.org/vks/v1/by-fingerprint/ABCD0102030405060708090A0B0C0D0E0F101112"));
+        assertThat(client.getUriForGetKey(KEY_ID))
+                .isEqualTo(URI.create("https://keys.openpgp.org/vks/v1/by-keyid/EFE8086F9E93774E"));
+        assertThat(client.getUriForShowKey(KEY_ID))
+                .isEqualTo(URI.create("https://keys.openpgp.org/search?q=EFE8086F9E93774E"));
+    }
+
+    @Test
+    public void vksHttpClientShouldUseHttp() throws IOException {
+
+        PGPKeysProvider client = PGPKeysProvider.getProvider("vks+http://localhost:8080", null);
+
+        assertThat(client.getUriForGetKey(KEY_ID))
+                .isEqualTo(URI.create("http://localhost:8080/vks/v1/by-keyid/EFE8086F9E93774E"));
+    }
+}
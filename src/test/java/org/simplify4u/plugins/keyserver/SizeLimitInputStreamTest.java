@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import com.google.common.io.ByteStreams;
+import org.testng.annotations.Test;
+
+public class SizeLimitInputStreamTest {
+
+    private static final byte[] DATA = "0123456789".getBytes();
+
+    @Test
+    public void dataInLimitShouldBeRead() throws IOException {
+
+        try (InputStream inputStream = new SizeLimitInputStream(new ByteArrayInputStream(DATA), DATA.length)) {
+            assertThat(ByteStreams.toByteArray(inputStream)).isEqualTo(DATA);
+        }
+    }
+
+    @Test
+    public void dataOverLimitShouldThrowException() {
+
+        InputStream inputStream = new SizeLimitInputStream(new ByteArrayInputStream(DATA), DATA.length - 1);
+
+        assertThatCode(() -> ByteStreams.toByteArray(inputStream))
+                .isExactlyInstanceOf(PGPKeyTooLarge.class)
+                .hasMessage("Key server response exceeds maximum allowed size: 9 bytes");
+    }
+
+    @Test
+    public void namedDataOverLimitShouldThrowException() {
+
+        InputStream inputStream = new SizeLimitInputStream(new ByteArrayInputStream(DATA), DATA.length - 1, "Test");
+
+        assertThatCode(() -> ByteStreams.toByteArray(inputStream))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessage("Test exceeds maximum allowed size: 9 bytes");
+    }
+
+    @Test
+    public void teeShouldCopyReadAndSkippedData() throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (InputStream inputStream = new TeeInputStream(new ByteArrayInputStream(DATA), outputStream)) {
+            assertThat(inputStream.read()).isEqualTo('0');
+            assertThat(inputStream.skip(2)).isEqualTo(2);
+            ByteStreams.exhaust(inputStream);
+        }
+
+        assertThat(outputStream.toByteArray()).isEqualTo(DATA);
+    }
+}
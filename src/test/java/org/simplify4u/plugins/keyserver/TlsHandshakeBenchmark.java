@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keyserver;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.socket.tls.KeyStoreFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare full TLS handshake with resumed session for new connections to local HTTPS server.
+ * <p>
+ * TLS 1.2 is used, so resumed session can be recognized by the same session id.
+ * <p>
+ * Run after <code>mvn test-compile</code> by <code>main</code> method with test classpath.
+ *
+ * @author Slawomir Jaranowski.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TlsHandshakeBenchmark {
+
+    private static final String[] PROTOCOLS = {"TLSv1.2"};
+
+    private ClientAndServer mockServer;
+    private SSLSocketFactory socketFactory;
+
+    @Setup
+    public void setup() {
+        ConfigurationProperties.disableSystemOut(true);
+        ConfigurationProperties.logLevel("WARNING");
+
+        mockServer = ClientAndServer.startClientAndServer(0);
+        socketFactory = new KeyStoreFactory(new MockServerLogger()).sslContext().getSocketFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mockServer.stop();
+    }
+
+    @Benchmark
+    public byte[] fullHandshake() throws IOException {
+        SSLSession session = handshake();
+        // session is removed from cache, so next connection can not resume it
+        session.invalidate();
+        return session.getId();
+    }
+
+    @Benchmark
+    public byte[] resumedSession() throws IOException {
+        return handshake().getId();
+    }
+
+    private SSLSession handshake() throws IOException {
+        try (SSLSocket socket = (SSLSocket) socketFactory.createSocket("localhost", mockServer.getLocalPort())) {
+            socket.setEnabledProtocols(PROTOCOLS);
+            socket.startHandshake();
+            return socket.getSession();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TlsHandshakeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -66,7 +66,30 @@ public class ArtifactInfoTest {
 
         ArtifactInfo artifactInfo = new ArtifactInfo(pattern, ANY_KEY);
         assertThat(artifactInfo.isMatch(new ArtifactData(artifact))).isEqualTo(match);
-        assertThat(artifactInfo.isKeyMatch(null, null)).isTrue();
+        assertThat(artifactInfo.isKeyMatch(new byte[20])).isTrue();
+    }
+
+    @Test
+    public void versionRangeShouldBeCheckedManyTimes() {
+
+        ArtifactInfo artifactInfo = new ArtifactInfo("test.group:*:[1.1,2.0)", ANY_KEY);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(artifactInfo.isMatch(new ArtifactData(testArtifact().artifactId("test" + i).build())))
+                    .isTrue();
+            assertThat(artifactInfo.isMatch(new ArtifactData(testArtifact().artifactId("test" + i).version("2.0")
+                    .build()))).isFalse();
+        }
+    }
+
+    @Test
+    public void artifactVersionShouldBeParsedOnce() {
+
+        ArtifactData artifactData1 = new ArtifactData(testArtifact().artifactId("test1").version("1.2.3").build());
+        ArtifactData artifactData2 = new ArtifactData(testArtifact().artifactId("test2").version("1.2.3").build());
+
+        assertThat(artifactData1.getArtifactVersion().getMinorVersion()).isEqualTo(2);
+        assertThat(artifactData2.getArtifactVersion()).isSameAs(artifactData1.getArtifactVersion());
     }
 
     @Test
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.testng.annotations.Test;
+
+public class KeyFingerprintsTest {
+
+    private static final byte[] FINGERPRINT = Hex.decode("9ABCDEF0123456789ABCDEF0123456789ABCDEF0");
+
+    @Test
+    void emptySetShouldNotMatch() {
+
+        KeyFingerprints fingerprints = new KeyFingerprints(Collections.emptyList());
+
+        assertThat(fingerprints.isEmpty()).isTrue();
+        assertThat(fingerprints.contains(FINGERPRINT)).isFalse();
+    }
+
+    @Test
+    void keyIdShouldMatchFingerprint() {
+
+        KeyFingerprints fingerprints = new KeyFingerprints(Collections.singletonList(
+                Hex.decode("123456789ABCDEF0")));
+
+        assertThat(fingerprints.contains(FINGERPRINT)).isTrue();
+        assertThat(fingerprints.contains(Hex.decode("9ABCDEF0123456789ABCDEF0123456789ABCDEF1"))).isFalse();
+    }
+
+    @Test
+    void fullFingerprintShouldBeCompared() {
+
+        KeyFingerprints fingerprints = new KeyFingerprints(Arrays.asList(
+                Hex.decode("0000DEF0123456789ABCDEF0123456789ABCDEF0"),
+                Hex.decode("9ABCDEF0123456789ABCDEF0123456789ABCDEF0")));
+
+        assertThat(fingerprints.contains(FINGERPRINT)).isTrue();
+        assertThat(fingerprints.contains(Hex.decode("1111DEF0123456789ABCDEF0123456789ABCDEF0"))).isFalse();
+    }
+
+    @Test
+    void manyKeysShouldBeFound() {
+
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add(Hex.decode(String.format("%016X", i * 0x0101010101010101L)));
+        }
+
+        KeyFingerprints fingerprints = new KeyFingerprints(keys);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(fingerprints.contains(Hex.decode(String.format("9ABCDEF0%016X", i * 0x0101010101010101L))))
+                    .isTrue();
+        }
+        assertThat(fingerprints.contains(Hex.decode("9ABCDEF00000000000000001"))).isFalse();
+    }
+}
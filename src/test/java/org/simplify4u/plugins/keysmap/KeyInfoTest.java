@@ -17,6 +17,7 @@ package org.simplify4u.plugins.keysmap;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -58,7 +59,7 @@ public class KeyInfoTest {
     public void testIsKeyMatch(String strKeys, long key, boolean match) throws Exception {
 
         KeyInfo keyInfo = new KeyInfo(strKeys);
-        assertThat(keyInfo.isKeyMatch(getPGPgpPublicKey(key), null)).as("isKeyMatch").isEqualTo(match);
+        assertThat(keyInfo.isKeyMatch(getPGPgpPublicKey(key).getFingerprint())).as("isKeyMatch").isEqualTo(match);
     }
 
     @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "null key not allowed")
@@ -100,9 +101,38 @@ public class KeyInfoTest {
                         // keyInfo with master key fingerprint
                         KeyInfo keyInfo = new KeyInfo(PublicKeyUtils.fingerprint(publicKeyRing.getPublicKey()));
 
-                        assertThat(keyInfo.isKeyMatch(publicKeyRing.getPublicKey(0xEFE8086F9E93774EL), publicKeyRing))
-                                .isTrue();
+                        KeysMapMatch keysMapMatch = new KeysMapMatch(false,
+                                Collections.singletonList(new ArtifactInfo("test.group:test", keyInfo)),
+                                Collections.singletonList(""));
+
+                        assertThat(keyInfo.isKeyMatch(publicKeyRing.getPublicKey(0xEFE8086F9E93774EL).getFingerprint()))
+                                .isFalse();
+                        assertThat(keysMapMatch.isValidKey(publicKeyRing.getPublicKey(0xEFE8086F9E93774EL),
+                                publicKeyRing)).isTrue();
                     });
         }
     }
+
+    @Test
+    public void masterKeyShouldBeRememberedForSubKeyFromOtherKeysRing() throws IOException, PGPException {
+
+        PGPPublicKeyRing publicKeyRing = loadKeyRing(0xEFE8086F9E93774EL);
+        KeyInfo keyInfo = new KeyInfo(PublicKeyUtils.fingerprint(publicKeyRing.getPublicKey()));
+        KeysMapMatch keysMapMatch = new KeysMapMatch(false,
+                Collections.singletonList(new ArtifactInfo("test.group:test", keyInfo)),
+                Collections.singletonList(""));
+
+        assertThat(keysMapMatch.isValidKey(publicKeyRing.getPublicKey(0xEFE8086F9E93774EL), publicKeyRing))
+                .isTrue();
+
+        // keys ring loaded again from cache has new key objects, master key is found by sub key fingerprint
+        PGPPublicKeyRing reloadedKeyRing = loadKeyRing(0xEFE8086F9E93774EL);
+        assertThat(keysMapMatch.isValidKey(reloadedKeyRing.getPublicKey(0xEFE8086F9E93774EL), null)).isTrue();
+    }
+
+    private PGPPublicKeyRing loadKeyRing(long keyId) throws IOException, PGPException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/EFE8086F9E93774E.asc")) {
+            return PublicKeyUtils.loadPublicKeyRing(inputStream, PGPKeyId.from(keyId)).get();
+        }
+    }
 }
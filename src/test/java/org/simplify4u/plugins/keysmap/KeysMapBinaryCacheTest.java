@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.simplify4u.plugins.TestArtifactBuilder.testArtifact;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.bouncycastle.util.encoders.Hex;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeysMapBinaryCacheTest {
+
+    private static final String HASH = "0123456789abcdef";
+
+    private Path cachePath;
+
+    private KeysMapBinaryCache binaryCache;
+
+    @BeforeMethod
+    void setup() throws IOException {
+        cachePath = Files.createTempDirectory("keysmap-binary-cache-test");
+        binaryCache = new KeysMapBinaryCache(cachePath.toFile());
+    }
+
+    @AfterMethod
+    void cleanup() throws IOException {
+        MoreFiles.deleteRecursively(cachePath, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    @Test
+    void notCachedKeysMapShouldReturnEmpty() {
+        assertThat(binaryCache.load(HASH)).isEmpty();
+    }
+
+    @Test
+    void storedKeysMapShouldBeLoaded() {
+
+        List<ArtifactInfo> entries = Arrays.asList(
+                new ArtifactInfo("test.group:test:jar:[1.0,2.0)",
+                        new KeyInfo("0x1234567890ABCDEF, 0x9ABCDEF0123456789ABCDEF0123456789ABCDEF0")),
+                new ArtifactInfo("test.group.*", new KeyInfo("noSig, badSig, noKey")),
+                new ArtifactInfo("other", new KeyInfo("any")),
+                new ArtifactInfo("empty", new KeyInfo("")));
+
+        binaryCache.store(HASH, new KeysMapIndex(entries));
+
+        Optional<KeysMapIndex> loaded = binaryCache.load(HASH);
+
+        assertThat(loaded).map(KeysMapIndex::getEntries).hasValueSatisfying(list -> {
+            assertThat(list).hasSize(4);
+
+            ArtifactInfo first = list.get(0);
+            assertThat(first.getSpec()).isEqualTo("test.group:test:jar:[1.0,2.0)");
+            assertThat(first.isMatch(new ArtifactData(testArtifact().groupId("test.group").artifactId("test")
+                    .version("1.1").build()))).isTrue();
+            assertThat(first.isMatch(new ArtifactData(testArtifact().groupId("test.group").artifactId("test")
+                    .version("2.0").build()))).isFalse();
+            assertThat(first.isKeyMatch(Hex.decode("0000000000000000000000001234567890ABCDEF"))).isTrue();
+            assertThat(first.isKeyMatch(Hex.decode("9ABCDEF0123456789ABCDEF0123456789ABCDEF0"))).isTrue();
+            assertThat(first.isKeyMatch(Hex.decode("0000000000000000000000000000000000000001"))).isFalse();
+
+            ArtifactInfo second = list.get(1);
+            assertThat(second.isNoSignature()).isTrue();
+            assertThat(second.isBrokenSignature()).isTrue();
+            assertThat(second.isKeyMissing()).isTrue();
+
+            assertThat(list.get(2).isKeyMatch(Hex.decode("0000000000000001"))).isTrue();
+            assertThat(list.get(3).isNoSignature()).isTrue();
+        });
+    }
+
+    @Test
+    void compiledMatchersAndIndexShouldBeLoaded() {
+
+        List<ArtifactInfo> entries = Arrays.asList(
+                new ArtifactInfo("test.group:test-*:jar:[1.0,2.0),[3.0,)", new KeyInfo("any")),
+                new ArtifactInfo("test.group.*:*-plugin:pom:1.0", new KeyInfo("any")),
+                new ArtifactInfo("test.(group|other):maven-*-plugin", new KeyInfo("any")));
+
+        binaryCache.store(HASH, new KeysMapIndex(entries));
+
+        Optional<KeysMapIndex> loaded = binaryCache.load(HASH);
+
+        assertThat(loaded).hasValueSatisfying(index -> {
+            assertThat(index.getExactGroups()).containsOnlyKeys("test.group");
+            assertThat(index.getExactGroups().get("test.group")).containsExactly(0);
+            assertThat(index.getPrefixGroups()).containsOnlyKeys("test.group");
+            assertThat(index.getPrefixGroups().get("test.group")).containsExactly(1);
+            assertThat(index.getOtherEntries()).containsExactly(2);
+
+            ArtifactInfo first = index.getEntries().get(0);
+            assertThat(first.getGroupIdMatch().getKind()).isEqualTo(PatternMatcher.Kind.EXACT);
+            assertThat(first.getArtifactIdMatch().getKind()).isEqualTo(PatternMatcher.Kind.PREFIX);
+            assertThat(first.getArtifactIdMatch().getLiterals()).containsExactly("test-");
+            assertThat(first.getPackagingMatch().getLiterals()).containsExactly("jar");
+            assertThat(first.getVersionMatch().getKind()).isEqualTo(VersionMatcher.Kind.RANGE);
+            assertThat(first.getVersionMatch().getRestrictions()).hasSize(2);
+
+            ArtifactInfo second = index.getEntries().get(1);
+            assertThat(second.getGroupIdMatch().getKind()).isEqualTo(PatternMatcher.Kind.GROUP);
+            assertThat(second.getGroupIdMatch().getLiterals()).containsExactly("test.group");
+            assertThat(second.getArtifactIdMatch().getKind()).isEqualTo(PatternMatcher.Kind.SUFFIX);
+            assertThat(second.getVersionMatch().getKind()).isEqualTo(VersionMatcher.Kind.EXACT);
+            assertThat(second.getVersionMatch().getVersion()).isEqualTo("1.0");
+
+            ArtifactInfo third = index.getEntries().get(2);
+            assertThat(third.getGroupIdMatch().getKind()).isEqualTo(PatternMatcher.Kind.REGEX);
+            assertThat(third.getArtifactIdMatch().getKind()).isEqualTo(PatternMatcher.Kind.PREFIX_SUFFIX);
+            assertThat(third.getVersionMatch().getKind()).isEqualTo(VersionMatcher.Kind.ANY);
+
+            assertThat(index.getMatching(new ArtifactData(testArtifact().groupId("test.group")
+                    .artifactId("test-core").version("3.1").build()))).containsExactly(first);
+            assertThat(index.getMatching(new ArtifactData(testArtifact().groupId("test.group")
+                    .artifactId("test-core").version("2.5").build()))).isEmpty();
+            assertThat(index.getMatching(new ArtifactData(testArtifact().groupId("test.group.sub")
+                    .artifactId("maven-test-plugin").packaging("pom").version("1.0").build())))
+                    .containsExactly(second);
+            assertThat(index.getMatching(new ArtifactData(testArtifact().groupId("test.other")
+                    .artifactId("maven-test-plugin").build()))).containsExactly(third);
+        });
+    }
+
+    @Test
+    void brokenCacheFileShouldBeIgnored() throws IOException {
+
+        Files.write(cachePath.resolve(HASH + ".bin"), new byte[]{1, 2, 3});
+
+        assertThat(binaryCache.load(HASH)).isEmpty();
+    }
+
+    @Test
+    void cacheFileForOtherHashShouldBeIgnored() throws IOException {
+
+        binaryCache.store("other", new KeysMapIndex(Arrays.asList(new ArtifactInfo("test", new KeyInfo("any")))));
+        Files.move(cachePath.resolve("other.bin"), cachePath.resolve(HASH + ".bin"));
+
+        assertThat(binaryCache.load(HASH)).isEmpty();
+    }
+}
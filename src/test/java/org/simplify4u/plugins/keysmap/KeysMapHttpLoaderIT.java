@@ -0,0 +1,226 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.apache.maven.settings.Proxy;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.verify.VerificationTimes;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeysMapHttpLoaderIT {
+
+    private static final String KEYS_MAP_PATH = "/keysmap.list";
+    private static final String KEYS_MAP = "junit:junit = 0x123456789ABCDEF0\n";
+
+    private ClientAndServer mockServer;
+
+    private Path cachePath;
+
+    private String location;
+
+    @BeforeClass
+    void setupMockServer() {
+        mockServer = ClientAndServer.startClientAndServer(0);
+    }
+
+    @AfterClass(alwaysRun = true)
+    void cleanupMockServer() {
+        mockServer.stop();
+    }
+
+    @BeforeMethod
+    void setup() throws IOException {
+        mockServer.reset();
+        cachePath = Files.createTempDirectory("keysmap-cache-test");
+        location = "http://localhost:" + mockServer.getLocalPort() + KEYS_MAP_PATH;
+    }
+
+    @AfterMethod
+    void cleanup() throws IOException {
+        MoreFiles.deleteRecursively(cachePath, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    private List<Path> listCache() throws IOException {
+        try (Stream<Path> files = Files.list(cachePath)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private KeysMapHttpLoader newLoader(boolean offline) {
+        return new KeysMapHttpLoader(new HashMap<>(),
+                KeysMapSettings.builder().cachePath(cachePath.toFile()).offline(offline).build());
+    }
+
+    @Test
+    void keysMapShouldBeFetchedOnceForReactor() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH))
+                .respond(response().withStatusCode(200).withBody(KEYS_MAP));
+
+        Map<String, KeysMapHttpLoader.FetchedKeysMap> fetched = new HashMap<>();
+        KeysMapSettings settings = KeysMapSettings.builder().cachePath(cachePath.toFile()).build();
+
+        assertThat(new KeysMapHttpLoader(fetched, settings).load(location))
+                .isEqualTo(KEYS_MAP.getBytes(StandardCharsets.US_ASCII));
+        assertThat(new KeysMapHttpLoader(fetched, settings).load(location))
+                .isEqualTo(KEYS_MAP.getBytes(StandardCharsets.US_ASCII));
+
+        mockServer.verify(request().withPath(KEYS_MAP_PATH), VerificationTimes.once());
+    }
+
+    @Test
+    void notModifiedKeysMapShouldBeLoadedFromCache() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH)
+                .withHeader("If-None-Match", "\"v1\""))
+                .respond(response().withStatusCode(304));
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH))
+                .respond(response().withStatusCode(200).withHeader("ETag", "\"v1\"").withBody(KEYS_MAP));
+
+        assertThat(newLoader(false).load(location)).isEqualTo(KEYS_MAP.getBytes(StandardCharsets.US_ASCII));
+        assertThat(newLoader(false).load(location)).isEqualTo(KEYS_MAP.getBytes(StandardCharsets.US_ASCII));
+
+        mockServer.verify(request().withPath(KEYS_MAP_PATH).withHeader("If-None-Match", "\"v1\""),
+                VerificationTimes.once());
+    }
+
+    @Test
+    void cachedKeysMapShouldBeUsedWhenServerFails() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH))
+                .respond(response().withStatusCode(200).withBody(KEYS_MAP));
+
+        newLoader(false).load(location);
+
+        mockServer.reset();
+        mockServer.when(request().withPath(KEYS_MAP_PATH)).respond(response().withStatusCode(500));
+
+        assertThat(newLoader(false).load(location)).isEqualTo(KEYS_MAP.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void serverErrorWithoutCacheShouldThrowException() {
+
+        mockServer.when(request().withPath(KEYS_MAP_PATH)).respond(response().withStatusCode(500));
+
+        assertThatCode(() -> newLoader(false).load(location))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessageStartingWith("Fetch keysMap returned an error: HTTP/1.1 500");
+    }
+
+    @Test
+    void offlineModeShouldUseOnlyCache() throws IOException {
+
+        assertThatCode(() -> newLoader(true).load(location))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessage("KeysMap: " + location + " is not available in offline mode");
+
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH))
+                .respond(response().withStatusCode(200).withBody(KEYS_MAP));
+        newLoader(false).load(location);
+
+        assertThat(newLoader(true).load(location)).isEqualTo(KEYS_MAP.getBytes(StandardCharsets.US_ASCII));
+
+        mockServer.verify(request().withPath(KEYS_MAP_PATH), VerificationTimes.once());
+    }
+
+    @Test
+    void keysMapWithValidatorsShouldBeCachedInOneFile() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH))
+                .respond(response().withStatusCode(200).withHeader("ETag", "\"v1\"").withBody(KEYS_MAP));
+
+        newLoader(false).load(location);
+
+        assertThat(listCache()).hasSize(1);
+        assertThat(listCache().get(0).getFileName().toString()).endsWith(".keysmap");
+    }
+
+    @Test
+    void brokenCacheShouldBeIgnored() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH))
+                .respond(response().withStatusCode(200).withHeader("ETag", "\"v1\"").withBody(KEYS_MAP));
+
+        newLoader(false).load(location);
+
+        Path cacheFile = listCache().get(0);
+        byte[] content = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(content, content.length - 2));
+
+        assertThat(newLoader(false).load(location)).isEqualTo(KEYS_MAP.getBytes(StandardCharsets.US_ASCII));
+
+        mockServer.verify(request().withPath(KEYS_MAP_PATH).withHeader("If-None-Match", "\"v1\""),
+                VerificationTimes.exactly(0));
+    }
+
+    @Test
+    void tooLargeKeysMapShouldNotBeLoaded() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH))
+                .respond(response().withStatusCode(200).withBody(KEYS_MAP));
+
+        KeysMapHttpLoader loader = new KeysMapHttpLoader(new HashMap<>(),
+                KeysMapSettings.builder().cachePath(cachePath.toFile()).maxSize(10).build());
+
+        assertThatCode(() -> loader.load(location))
+                .isExactlyInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds maximum allowed size: 10 bytes");
+
+        assertThat(listCache()).isEmpty();
+    }
+
+    @Test
+    void keysMapShouldBeFetchedByMavenProxy() throws IOException {
+
+        mockServer.when(request().withMethod("GET").withPath(KEYS_MAP_PATH).withHeader("Host", "keysmap.example.com"))
+                .respond(response().withStatusCode(200).withBody(KEYS_MAP));
+
+        Proxy proxy = new Proxy();
+        proxy.setHost("localhost");
+        proxy.setPort(mockServer.getLocalPort());
+
+        KeysMapHttpLoader loader = new KeysMapHttpLoader(new HashMap<>(),
+                KeysMapSettings.builder().proxy(proxy).build());
+
+        assertThat(loader.load("http://keysmap.example.com" + KEYS_MAP_PATH))
+                .isEqualTo(KEYS_MAP.getBytes(StandardCharsets.US_ASCII));
+
+        mockServer.verify(request().withPath(KEYS_MAP_PATH), VerificationTimes.once());
+    }
+}
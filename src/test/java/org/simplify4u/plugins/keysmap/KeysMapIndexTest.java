@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.simplify4u.plugins.TestArtifactBuilder.testArtifact;
+
+import org.apache.maven.artifact.Artifact;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class KeysMapIndexTest {
+
+    private static final KeyInfo ANY_KEY = new KeyInfo("*");
+
+    private static final List<ArtifactInfo> ENTRIES = Arrays.asList(
+            new ArtifactInfo("test.group:test", ANY_KEY),
+            new ArtifactInfo("test.*", ANY_KEY),
+            new ArtifactInfo("test.group.*:test", ANY_KEY),
+            new ArtifactInfo("other.group", ANY_KEY),
+            new ArtifactInfo("*:test", ANY_KEY),
+            new ArtifactInfo("test.gr*", ANY_KEY),
+            new ArtifactInfo("", ANY_KEY),
+            new ArtifactInfo("test.group:test:pom", ANY_KEY),
+            new ArtifactInfo("test.group", ANY_KEY)
+    );
+
+    @DataProvider
+    public static Object[] artifacts() {
+        return new Object[]{
+                testArtifact().build(),
+                testArtifact().packaging("pom").build(),
+                testArtifact().groupId("test").build(),
+                testArtifact().groupId("test.group.next").build(),
+                testArtifact().groupId("test.groupnext").build(),
+                testArtifact().groupId("other.group").artifactId("other").build(),
+                testArtifact().groupId("unknown").artifactId("unknown").build()
+        };
+    }
+
+    @Test(dataProvider = "artifacts")
+    public void indexShouldReturnTheSameEntriesAsFullScan(Artifact artifact) {
+
+        ArtifactData artifactData = new ArtifactData(artifact);
+        KeysMapIndex keysMapIndex = new KeysMapIndex(ENTRIES);
+
+        List<ArtifactInfo> expected = ENTRIES.stream()
+                .filter(artifactInfo -> artifactInfo.isMatch(artifactData))
+                .collect(Collectors.toList());
+
+        assertThat(keysMapIndex.getMatching(artifactData)).containsExactlyElementsOf(expected);
+    }
+
+    @Test(dataProvider = "artifacts")
+    public void mergedIndexShouldReturnTheSameEntriesAsIndexOfAllEntries(Artifact artifact) {
+
+        ArtifactData artifactData = new ArtifactData(artifact);
+        KeysMapIndex keysMapIndex = new KeysMapIndex(ENTRIES);
+
+        KeysMapIndex mergedIndex = KeysMapIndex.merge(Arrays.asList(
+                new KeysMapIndex(ENTRIES.subList(0, 4)).withSource("first"),
+                new KeysMapIndex(ENTRIES.subList(4, ENTRIES.size())).withSource("second")));
+
+        assertThat(mergedIndex.getMatching(artifactData))
+                .containsExactlyElementsOf(keysMapIndex.getMatching(artifactData));
+        assertThat(mergedIndex.getSources()).hasSize(ENTRIES.size()).startsWith("first").endsWith("second");
+    }
+
+    @Test
+    public void emptyIndexShouldReturnNoEntries() {
+
+        KeysMapIndex keysMapIndex = new KeysMapIndex(Arrays.asList());
+
+        assertThat(keysMapIndex.isEmpty()).isTrue();
+        assertThat(keysMapIndex.getMatching(new ArtifactData(testArtifact().build()))).isEmpty();
+    }
+}
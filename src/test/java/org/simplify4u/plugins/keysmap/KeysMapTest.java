@@ -15,15 +15,32 @@
  */
 package org.simplify4u.plugins.keysmap;
 
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.simplify4u.plugins.TestArtifactBuilder.testArtifact;
 import static org.simplify4u.plugins.TestUtils.getPGPgpPublicKey;
 
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.apache.maven.artifact.Artifact;
 import org.assertj.core.api.Assertions;
 import org.codehaus.plexus.resource.ResourceManager;
 import org.codehaus.plexus.resource.loader.ResourceNotFoundException;
@@ -199,6 +216,105 @@ public class KeysMapTest {
         ).isTrue();
     }
 
+    @Test
+    public void resolveShouldReturnMemoizedMatch() throws Exception {
+
+        keysMap.load("/keysMap.list");
+
+        KeysMapMatch match = keysMap.resolve(
+                testArtifact().groupId("junit").artifactId("junit").version("4.12").build());
+
+        assertThat(match.isWithKey()).isTrue();
+        assertThat(match.isNoSignature()).isFalse();
+        assertThat(match.isValidKey(getPGPgpPublicKey(0x123456789abcdef0L), null)).isTrue();
+
+        assertThat(keysMap.resolve(testArtifact().groupId("junit").artifactId("junit").version("4.12").build()))
+                .isSameAs(match);
+
+        assertThat(keysMap.resolve(testArtifact().groupId("noSig").artifactId("test").build()).isNoSignature())
+                .isTrue();
+    }
+
+    @Test
+    public void theSameKeysMapContentShouldBeParsedOnce() throws Exception {
+
+        keysMap.load("/keysMap.list");
+
+        KeysMap otherKeysMap = new KeysMap(resourceManager);
+        otherKeysMap.load("/keysMap.list");
+
+        Artifact artifact = testArtifact().groupId("junit").artifactId("junit").version("4.12").build();
+        assertThat(otherKeysMap.resolve(artifact)).isSameAs(keysMap.resolve(artifact));
+    }
+
+    @Test
+    public void manyKeysMapsShouldBeMerged() throws Exception {
+
+        keysMap.load(Arrays.asList("/keysMap.list", null, "/keysMap-overlay.list"),
+                KeysMapSettings.builder().build());
+
+        Artifact artifact = testArtifact().groupId("junit").artifactId("junit").version("4.12").build();
+
+        assertThat(keysMap.isValidKey(artifact, getPGPgpPublicKey(0x123456789abcdef0L), null)).isTrue();
+        assertThat(keysMap.isValidKey(artifact, getPGPgpPublicKey(0x1234567890abcdefL), null)).isTrue();
+        assertThat(keysMap.resolve(artifact).getSources())
+                .containsExactly("/keysMap.list", "/keysMap-overlay.list");
+
+        Artifact overlayArtifact = testArtifact().groupId("overlay").artifactId("test").build();
+        assertThat(keysMap.isValidKey(overlayArtifact, getPGPgpPublicKey(0x123456789abcdef0L), null)).isTrue();
+        assertThat(keysMap.resolve(overlayArtifact).getSources()).containsExactly("/keysMap-overlay.list");
+    }
+
+    @Test
+    public void manyKeysMapsShouldBeLoadedWithCallerContextClassLoader() throws Exception {
+
+        List<ClassLoader> usedClassLoaders = Collections.synchronizedList(new ArrayList<>());
+        reset(resourceManager);
+        doAnswer(invocation -> {
+            usedClassLoaders.add(Thread.currentThread().getContextClassLoader());
+            return getClass().getResourceAsStream(invocation.getArgument(0));
+        }).when(resourceManager).getResourceAsInputStream(anyString());
+
+        Thread currentThread = Thread.currentThread();
+        ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+        ClassLoader pluginClassLoader = new URLClassLoader(new URL[0], previousClassLoader);
+        currentThread.setContextClassLoader(pluginClassLoader);
+        try {
+            keysMap.load(Arrays.asList("/keysMap.list", "/keysMap-overlay.list"), KeysMapSettings.builder().build());
+        } finally {
+            currentThread.setContextClassLoader(previousClassLoader);
+        }
+
+        assertThat(usedClassLoaders).hasSize(2).containsOnly(pluginClassLoader);
+    }
+
+    @Test
+    public void keysMapFromBinaryCacheShouldNotBeParsed() throws Exception {
+
+        // unique content, so keysMap is not parsed by other tests in the same JVM
+        byte[] content = ("# " + UUID.randomUUID() + "\ntest:test = 0x123456789abcdef0\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        String hash = Hashing.sha256().hashBytes(content).toString();
+
+        Path cachePath = Files.createTempDirectory("keysmap-cache-test");
+        try {
+            // cache for content contains other keysMap, so it is visible if content is parsed
+            new KeysMapBinaryCache(cachePath.toFile()).store(hash,
+                    new KeysMapIndex(Collections.singletonList(new ArtifactInfo("test:test", new KeyInfo("noSig")))));
+
+            reset(resourceManager);
+            doReturn(new ByteArrayInputStream(content)).when(resourceManager).getResourceAsInputStream("/cached");
+
+            keysMap.load("/cached", KeysMapSettings.builder().cachePath(cachePath.toFile()).build());
+
+            Artifact artifact = testArtifact().groupId("test").artifactId("test").build();
+            assertThat(keysMap.isNoSignature(artifact)).isTrue();
+            assertThat(keysMap.isValidKey(artifact, getPGPgpPublicKey(0x123456789abcdef0L), null)).isFalse();
+        } finally {
+            MoreFiles.deleteRecursively(cachePath, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+
     @Test
     public void shortKeyShouldThrownException() throws Exception {
         Assertions.assertThatCode(() -> keysMap.load("/keyMap-keyToShort.list"))
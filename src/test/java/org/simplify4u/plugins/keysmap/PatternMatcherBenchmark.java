@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare keysMap patterns matchers with regular expressions used before.
+ * <p>
+ * Run after <code>mvn test-compile</code> by <code>main</code> method with test classpath.
+ *
+ * @author Slawomir Jaranowski.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternMatcherBenchmark {
+
+    private static final String[] PATTERNS = {
+            "", "*", "org.apache.maven", "org.apache.*", "commons-*", "*-plugin", "maven-*-plugin"
+    };
+
+    private static final String[] VALUES = {
+            "org.apache.maven", "org.apache.maven.plugins", "commons-io", "maven-compiler-plugin", "junit"
+    };
+
+    private Predicate<String>[] matchers;
+    private Pattern[] regexPatterns;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        matchers = new Predicate[PATTERNS.length];
+        regexPatterns = new Pattern[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; i++) {
+            matchers[i] = PatternMatcher.compile(PATTERNS[i]);
+            regexPatterns[i] = Pattern.compile(PatternMatcher.patternPrepare(PATTERNS[i]));
+        }
+    }
+
+    @Benchmark
+    public void patternMatcher(Blackhole blackhole) {
+        for (Predicate<String> matcher : matchers) {
+            for (String value : VALUES) {
+                blackhole.consume(matcher.test(value));
+            }
+        }
+    }
+
+    @Benchmark
+    public void regexPattern(Blackhole blackhole) {
+        for (Pattern pattern : regexPatterns) {
+            for (String value : VALUES) {
+                blackhole.consume(pattern.matcher(value).matches());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PatternMatcherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class PatternMatcherTest {
+
+    private static final String[] VALUES = {
+            "", "a", "test", "test.group", "test.group.next", "test.groupnext", "test.", "test.g",
+            "org.apache.maven", "commons-io", "commons-lang3", "plexus-utils", "abc", "abcabc", "xtestx"
+    };
+
+    @DataProvider
+    public static Object[] patterns() {
+        return new Object[]{
+                "", "*", "**", "test", "test.group", "test.*", "test.group.*", "commons-*", "*-utils",
+                "test*", "*test*", "a*c", "a*b*c", "a**c", "*.group.*x", "t*t.g*p", "x*x", "[a-c]+"
+        };
+    }
+
+    @Test(dataProvider = "patterns")
+    public void matcherShouldGiveTheSameResultAsRegex(String spec) {
+
+        Predicate<String> matcher = PatternMatcher.compile(spec);
+        Pattern pattern = Pattern.compile(PatternMatcher.patternPrepare(spec));
+
+        for (String value : VALUES) {
+            assertThat(matcher.test(value))
+                    .as("pattern: %s value: %s", spec, value)
+                    .isEqualTo(pattern.matcher(value).matches());
+        }
+    }
+
+    @Test
+    public void dotInGroupPatternShouldBeLiteral() {
+
+        Predicate<String> matcher = PatternMatcher.compile("test.group.*");
+
+        assertThat(matcher.test("test.group.next")).isTrue();
+        assertThat(matcher.test("testXgroup.next")).isFalse();
+    }
+
+    @Test
+    public void groupPatternShouldNotMatchWhatPreviousRegexMatchedByDot() {
+
+        Predicate<String> matcher = PatternMatcher.compile("test.group.*");
+        Pattern pattern = Pattern.compile(PatternMatcher.patternPrepare("test.group.*"));
+
+        for (String value : new String[]{"testXgroup", "testXgroup.next", "test-group.next"}) {
+            assertThat(pattern.matcher(value).matches()).as("regex value: %s", value).isTrue();
+            assertThat(matcher.test(value)).as("matcher value: %s", value).isFalse();
+        }
+    }
+}
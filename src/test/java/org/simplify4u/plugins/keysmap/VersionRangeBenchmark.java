@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Slawomir Jaranowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.simplify4u.plugins.keysmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.simplify4u.plugins.TestArtifactBuilder.testArtifact;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Evaluate keysMap dominated by version ranges, compare with parsing version for each check.
+ * <p>
+ * Run after <code>mvn test-compile</code> by <code>main</code> method with test classpath.
+ *
+ * @author Slawomir Jaranowski.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionRangeBenchmark {
+
+    private static final int ENTRIES = 200;
+    private static final int ARTIFACTS = 50;
+
+    private static final KeyInfo ANY_KEY = new KeyInfo("*");
+
+    private final List<ArtifactInfo> entries = new ArrayList<>();
+    private final List<VersionRange> ranges = new ArrayList<>();
+    private final List<ArtifactData> artifacts = new ArrayList<>();
+
+    @Setup
+    public void setup() throws InvalidVersionSpecificationException {
+
+        for (int i = 0; i < ENTRIES; i++) {
+            String range = String.format("[%d.%d,%d.0)", i % 10, i % 7, i % 10 + 1);
+            entries.add(new ArtifactInfo("test.group:*:" + range, ANY_KEY));
+            ranges.add(VersionRange.createFromVersionSpec(range));
+        }
+
+        for (int i = 0; i < ARTIFACTS; i++) {
+            artifacts.add(new ArtifactData(testArtifact().artifactId("test" + i)
+                    .version(String.format("%d.%d.%d", i % 12, i % 5, i)).build()));
+        }
+    }
+
+    @Benchmark
+    public void cachedVersionRange(Blackhole blackhole) {
+        for (ArtifactData artifact : artifacts) {
+            for (ArtifactInfo entry : entries) {
+                blackhole.consume(entry.isMatch(artifact));
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseVersionForEachCheck(Blackhole blackhole) {
+        for (ArtifactData artifact : artifacts) {
+            for (VersionRange range : ranges) {
+                blackhole.consume(range.containsVersion(new DefaultArtifactVersion(artifact.getVersion())));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VersionRangeBenchmark.class.getSimpleName()).build()).run();
+    }
+}